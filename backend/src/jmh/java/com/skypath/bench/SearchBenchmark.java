@@ -0,0 +1,62 @@
+package com.skypath.bench;
+
+import com.skypath.SkypathBackendApplication;
+import com.skypath.model.Itinerary;
+import com.skypath.service.FlightSearchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search throughput and allocation against the shipped dataset.
+ * Run with {@code ./gradlew jmh}; the gc profiler reports bytes allocated per search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 15);
+
+    private ConfigurableApplicationContext context;
+    private FlightSearchService searchService;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SkypathBackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .run();
+        searchService = context.getBean(FlightSearchService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // Many expansions, many results
+    @Benchmark
+    public List<Itinerary> jfkToLax() {
+        return searchService.search("JFK", "LAX", DATE);
+    }
+
+    // Connections only
+    @Benchmark
+    public List<Itinerary> bosToSea() {
+        return searchService.search("BOS", "SEA", DATE);
+    }
+
+    // Expands the network but finds nothing: allocation here is pure search overhead
+    @Benchmark
+    public List<Itinerary> noRoute() {
+        return searchService.search("AMS", "ATL", DATE);
+    }
+}
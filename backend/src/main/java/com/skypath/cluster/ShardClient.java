@@ -0,0 +1,88 @@
+package com.skypath.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypath.dto.ShardQuery;
+import com.skypath.model.Flight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * HTTP client for the internal shard API.
+ */
+@Component
+public class ShardClient {
+
+    private static final TypeReference<List<List<Flight>>> FLIGHT_LISTS = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+    private final HttpClient http;
+    private final Duration timeout;
+
+    public ShardClient(ObjectMapper objectMapper,
+                       @Value("${skypath.cluster.timeout-ms:2000}") long timeoutMillis) {
+        this.objectMapper = objectMapper;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    public Duration timeout() {
+        return timeout;
+    }
+
+    // Answers are positional: one flight list per query
+    public CompletableFuture<List<List<Flight>>> fetchFlights(String shardUrl, List<ShardQuery> queries) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(shardUrl + "/internal/shard/flights"))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(queries)))
+                    .build();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException(
+                                "Shard " + shardUrl + " answered HTTP " + response.statusCode());
+                    }
+                    try {
+                        return objectMapper.readValue(response.body(), FLIGHT_LISTS);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    public CompletableFuture<Long> fetchVersion(String shardUrl) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(shardUrl + "/internal/shard/version"))
+                .timeout(timeout)
+                .GET()
+                .build();
+
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException(
+                                "Shard " + shardUrl + " answered HTTP " + response.statusCode());
+                    }
+                    return Long.parseLong(response.body().trim());
+                });
+    }
+}
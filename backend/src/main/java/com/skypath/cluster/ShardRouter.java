@@ -0,0 +1,50 @@
+package com.skypath.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps origin airports to the shard that owns their flights.
+ *
+ * Every node is configured with the same ordered shard list and its own
+ * position in it; an airport belongs to shard {@code hash(code) mod shards}.
+ */
+@Component
+public class ShardRouter {
+
+    @Value("${skypath.cluster.enabled:false}")
+    private boolean enabled;
+
+    // Base URLs of all shards, identical and identically ordered on every node
+    @Value("${skypath.cluster.shards:}")
+    private String[] shards;
+
+    // Position of this node in the shard list
+    @Value("${skypath.cluster.self:0}")
+    private int self;
+
+    public boolean isEnabled() {
+        return enabled && shards.length > 0;
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public int self() {
+        return self;
+    }
+
+    public String shardUrl(int shard) {
+        return shards[shard];
+    }
+
+    public int owner(String airportCode) {
+        return Math.floorMod(airportCode.hashCode(), shards.length);
+    }
+
+    // True if this node holds the airport's departures (always true outside cluster mode)
+    public boolean isLocal(String airportCode) {
+        return !isEnabled() || owner(airportCode) == self;
+    }
+}
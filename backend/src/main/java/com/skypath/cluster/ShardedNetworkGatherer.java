@@ -0,0 +1,167 @@
+package com.skypath.cluster;
+
+import com.skypath.dto.ShardQuery;
+import com.skypath.exception.ShardUnavailableException;
+import com.skypath.index.ConnectionRules;
+import com.skypath.index.FlightNetwork;
+import com.skypath.model.Airport;
+import com.skypath.model.Flight;
+import com.skypath.service.FlightDataService;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Scatter-gather coordinator for origin-sharded deployments.
+ *
+ * Fetches the first legs from the origin's shard, then, one level per stop,
+ * asks each hub's owner for the flights that can leave the hub inside the
+ * layover window of the flights arriving there (the last level only for flights
+ * into a destination). The fetched flights are assembled into a small local
+ * network, and the regular search runs on it, so results match a single node.
+ */
+@Component
+public class ShardedNetworkGatherer {
+
+    private final ShardRouter router;
+    private final ShardClient client;
+    private final FlightDataService dataService;
+
+    public ShardedNetworkGatherer(ShardRouter router, ShardClient client, FlightDataService dataService) {
+        this.router = router;
+        this.client = client;
+        this.dataService = dataService;
+    }
+
+    public boolean isEnabled() {
+        return router.isEnabled();
+    }
+
+    /**
+     * The dataset versions of all shards joined with '.', e.g. "4.1.2". Any schedule change
+     * on any shard changes it, so it can stand in for the dataset version in ETags.
+     */
+    public String clusterVersion() {
+        Map<Integer, CompletableFuture<Long>> calls = new LinkedHashMap<>();
+        for (int shard = 0; shard < router.shardCount(); shard++) {
+            calls.put(shard, shard == router.self()
+                    ? CompletableFuture.completedFuture(dataService.getNetwork().version())
+                    : client.fetchVersion(router.shardUrl(shard)));
+        }
+        await(calls.values());
+
+        StringJoiner version = new StringJoiner(".");
+        calls.values().forEach(call -> version.add(Long.toString(call.join())));
+        return version.toString();
+    }
+
+    public FlightNetwork gather(String origin, Set<String> destinations, LocalDate date, int maxStops) {
+        if (dataService.getAirport(origin) == null) {
+            return FlightNetwork.EMPTY;
+        }
+        Map<String, Map<String, Flight>> byOrigin = new LinkedHashMap<>();
+        ConnectionRules rules = dataService.getConnectionRules();
+
+        ZoneId originZone = zoneOf(origin);
+        List<Flight> frontier = fetch(List.of(new ShardQuery(origin,
+                date.atStartOfDay(originZone).toEpochSecond(),
+                date.plusDays(1).atStartOfDay(originZone).toEpochSecond(),
+                null))).get(0);
+        addAll(byOrigin, origin, frontier);
+
+        for (int level = 1; level <= maxStops && !frontier.isEmpty(); level++) {
+            // Earliest and latest arrival into each hub reached at this level
+            Map<String, long[]> arrivals = new LinkedHashMap<>();
+            for (Flight f : frontier) {
+                String hub = f.destination();
+                if (destinations.contains(hub) || hub.equals(origin)) {
+                    continue;
+                }
+                long arrival = f.arrivalTime().atZone(zoneOf(hub)).toEpochSecond();
+                arrivals.merge(hub, new long[]{arrival, arrival},
+                        (a, b) -> new long[]{Math.min(a[0], b[0]), Math.max(a[1], b[1])});
+            }
+
+            boolean lastLevel = level == maxStops;
+            List<ShardQuery> queries = new ArrayList<>();
+            arrivals.forEach((hub, range) -> queries.add(new ShardQuery(hub,
+                    range[0] + rules.minMinutes(hub) * 60L,
+                    ConnectionRules.latestDepartureExclusive(range[1]),
+                    lastLevel ? destinations : null)));
+
+            List<List<Flight>> answers = fetch(queries);
+            List<Flight> next = new ArrayList<>();
+            for (int i = 0; i < queries.size(); i++) {
+                addAll(byOrigin, queries.get(i).origin(), answers.get(i));
+                next.addAll(answers.get(i));
+            }
+            frontier = next;
+        }
+
+        Map<String, List<Flight>> flights = new LinkedHashMap<>();
+        byOrigin.forEach((airport, departures) -> flights.put(airport, new ArrayList<>(departures.values())));
+        return FlightNetwork.assemble(origin, flights, dataService::getAirport, rules);
+    }
+
+    // A hub can be queried at several levels with different windows; keep each flight once
+    private void addAll(Map<String, Map<String, Flight>> byOrigin, String airport, List<Flight> flights) {
+        Map<String, Flight> departures = byOrigin.computeIfAbsent(airport, a -> new LinkedHashMap<>());
+        flights.forEach(f -> departures.putIfAbsent(f.flightNumber(), f));
+    }
+
+    // Answers queries positionally: local ones directly, the rest with one request per shard
+    private List<List<Flight>> fetch(List<ShardQuery> queries) {
+        List<List<Flight>> answers = new ArrayList<>(Collections.nCopies(queries.size(), null));
+        Map<Integer, List<Integer>> remote = new TreeMap<>();
+        for (int i = 0; i < queries.size(); i++) {
+            String airport = queries.get(i).origin();
+            if (router.isLocal(airport)) {
+                answers.set(i, dataService.findFlights(queries.get(i)));
+            } else {
+                remote.computeIfAbsent(router.owner(airport), s -> new ArrayList<>()).add(i);
+            }
+        }
+        if (remote.isEmpty()) {
+            return answers;
+        }
+
+        Map<Integer, CompletableFuture<List<List<Flight>>>> calls = new LinkedHashMap<>();
+        remote.forEach((shard, positions) -> calls.put(shard, client.fetchFlights(router.shardUrl(shard),
+                positions.stream().map(queries::get).toList())));
+
+        await(calls.values());
+
+        remote.forEach((shard, positions) -> {
+            List<List<Flight>> shardAnswers = calls.get(shard).join();
+            for (int i = 0; i < positions.size(); i++) {
+                answers.set(positions.get(i), shardAnswers.get(i));
+            }
+        });
+        return answers;
+    }
+
+    private void await(Collection<? extends CompletableFuture<?>> calls) {
+        try {
+            CompletableFuture.allOf(calls.toArray(new CompletableFuture[0]))
+                    .get(client.timeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            calls.forEach(call -> call.cancel(true));
+            throw new ShardUnavailableException("A shard did not answer within " + client.timeout().toMillis()
+                    + " ms.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShardUnavailableException("Interrupted while waiting for shards.", e);
+        }
+    }
+
+    private ZoneId zoneOf(String airportCode) {
+        Airport airport = dataService.getAirport(airportCode);
+        return ZoneId.of(airport.timezone());
+    }
+}
@@ -0,0 +1,37 @@
+package com.skypath.config;
+
+import com.skypath.controller.ServerTiming;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Hands the handler a {@link ServerTiming} through a request attribute and sends
+ * its phases as the Server-Timing header. Headers cannot follow the body, so the
+ * body is buffered until serialization (everything after the handler's last mark)
+ * has been timed, then copied out with its Content-Length.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ServerTiming timing = new ServerTiming();
+        request.setAttribute(ServerTiming.ATTRIBUTE, timing);
+        ContentCachingResponseWrapper buffered = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, buffered);
+        } finally {
+            timing.mark("serialize");
+            buffered.setHeader(ServerTiming.HEADER, timing.header());
+            // Cross-origin pages (the API allows any origin) may only read it with this
+            buffered.setHeader("Timing-Allow-Origin", "*");
+            buffered.copyBodyToResponse();
+        }
+    }
+}
@@ -1,21 +1,48 @@
 package com.skypath.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.skypath.model.Airport;
 import com.skypath.service.FlightDataService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Collection;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/airports")
 public class AirportController {
 
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final FlightDataService dataService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${skypath.http.airports-max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    // The airport list serialized and gzipped once per dataset version
+    private record Payload(long version, String etag, byte[] json, byte[] gzip) {
+    }
 
-    public AirportController(FlightDataService dataService) {
+    private volatile Payload payload;
+
+    public AirportController(FlightDataService dataService, ObjectMapper objectMapper) {
         this.dataService = dataService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -23,7 +50,67 @@ public class AirportController {
      * GET /api/airports
      */
     @GetMapping
-    public Collection<Airport> getAllAirports() {
-        return dataService.getAllAirports();
+    public ResponseEntity<byte[]> getAllAirports(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        Payload current = currentPayload();
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+
+        if (HttpCaching.matches(ifNoneMatch, current.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(current.etag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(current.etag())
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (HttpCaching.acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(current.gzip());
+        }
+        return response.body(current.json());
+    }
+
+    /**
+     * Ranked autocomplete matches on code, city and name.
+     * GET /api/airports/suggest?q={prefix}&limit={n}
+     */
+    @GetMapping("/suggest")
+    public List<Airport> suggest(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "10") String limit
+    ) {
+        int suggestions = SearchParams.nonNegative(limit, "INVALID_LIMIT", "limit");
+        if (q == null || q.isBlank()) {
+            return List.of();
+        }
+        return dataService.suggestAirports(q, Math.min(Math.max(suggestions, 1), MAX_SUGGESTIONS));
+    }
+
+    private Payload currentPayload() {
+        long version = dataService.getNetwork().version();
+        Payload current = payload;
+        if (current == null || current.version() != version) {
+            current = serialize(version);
+            payload = current;
+        }
+        return current;
+    }
+
+    private Payload serialize(long version) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(dataService.getAllAirports());
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(json);
+            }
+            return new Payload(version, HttpCaching.etag(version, "airports"), json, compressed.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
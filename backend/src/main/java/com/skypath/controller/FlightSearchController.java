@@ -1,16 +1,39 @@
 package com.skypath.controller;
 
-import com.skypath.dto.ErrorResponse;
+import com.skypath.cluster.ShardedNetworkGatherer;
+import com.skypath.dto.NormalizedSearchResponse;
+import com.skypath.exception.InventoryException;
 import com.skypath.dto.SearchResponse;
+import com.skypath.index.FlightNetwork;
 import com.skypath.model.Itinerary;
 import com.skypath.service.FlightDataService;
 import com.skypath.service.FlightSearchService;
+import com.skypath.service.HotRouteService;
+import com.skypath.service.QueryLog;
+import com.skypath.service.QueryRecord;
+import com.skypath.service.SearchAdmission;
+import com.skypath.service.SearchFilters;
+import com.skypath.service.SearchLimits;
+import com.skypath.service.SearchRanking;
+import com.skypath.service.SearchResult;
+import com.skypath.service.SearchTimings;
+import com.skypath.service.SearchView;
+import com.skypath.service.SeatInventory;
+import com.skypath.service.TripSort;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/flights")
@@ -18,75 +41,212 @@ public class FlightSearchController {
 
     private final FlightSearchService searchService;
     private final FlightDataService dataService;
+    private final HotRouteService hotRoutes;
+    private final SearchAdmission admission;
+    private final QueryLog queryLog;
+    private final SeatInventory inventory;
+    private final ShardedNetworkGatherer cluster;
 
-    public FlightSearchController(FlightSearchService searchService, FlightDataService dataService) {
+    @Value("${skypath.http.search-max-age-seconds:60}")
+    private long maxAgeSeconds;
+
+    // Budget when the client sends no maxTimeMs, and the most a client may ask for
+    @Value("${skypath.search.budget.default-millis:2000}")
+    private long defaultBudgetMillis;
+
+    @Value("${skypath.search.budget.max-millis:10000}")
+    private long maxBudgetMillis;
+
+    @Value("${skypath.search.budget.max-expansions:5000000}")
+    private long maxExpansions;
+
+    // Most itineraries a ranked search (?limit=) may ask for
+    @Value("${skypath.search.max-limit:100}")
+    private int maxLimit;
+
+    // How long a search may wait in the executor queue before the request is shed
+    @Value("${skypath.search.executor.max-queue-wait-millis:1000}")
+    private long maxQueueWaitMillis;
+
+    public FlightSearchController(FlightSearchService searchService, FlightDataService dataService,
+                                  HotRouteService hotRoutes, SearchAdmission admission, QueryLog queryLog,
+                                  SeatInventory inventory, ShardedNetworkGatherer cluster) {
         this.searchService = searchService;
         this.dataService = dataService;
+        this.hotRoutes = hotRoutes;
+        this.admission = admission;
+        this.queryLog = queryLog;
+        this.inventory = inventory;
+        this.cluster = cluster;
     }
 
     @GetMapping("/search")
     public ResponseEntity<?> search(
             @RequestParam(required = false) String origin,
             @RequestParam(required = false) String destination,
-            @RequestParam(required = false) String date
+            @RequestParam(required = false) String date,
+            @RequestParam(required = false) String maxTimeMs,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String limit,
+            @RequestParam(required = false) String airlines,
+            @RequestParam(required = false) String excludeAirlines,
+            @RequestParam(required = false) String maxPrice,
+            @RequestParam(required = false) String maxDurationMinutes,
+            @RequestParam(required = false) String maxStops,
+            @RequestParam(required = false) String departAfter,
+            @RequestParam(required = false) String departBefore,
+            @RequestParam(required = false) String arriveAfter,
+            @RequestParam(required = false) String arriveBefore,
+            @RequestParam(required = false) String seats,
+            @RequestParam(required = false) String version,
+            @RequestParam(required = false) String asOf,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestAttribute(value = ServerTiming.ATTRIBUTE, required = false) ServerTiming timing
     ) {
+        long started = System.nanoTime();
+        // Set by ServerTimingFilter unless Server-Timing is turned off
+        ServerTiming phases = timing != null ? timing : new ServerTiming();
+
         // --- Input Validation ---
 
         // Check required parameters are present
-        if (origin == null || origin.isBlank()) {
-            return badRequest("MISSING_ORIGIN", "The 'origin' parameter is required.");
+        SearchParams.require(origin, "origin");
+        SearchParams.require(destination, "destination");
+        SearchParams.require(date, "date");
+
+        // Each side is a comma-separated list of airport or metro codes (e.g. "NYC" or "JFK,EWR")
+        String[] originCodes = SearchParams.codes(origin, "origin");
+        String[] destCodes = SearchParams.codes(destination, "destination");
+        Set<String> origins = SearchParams.airports(dataService, originCodes, "origin");
+        Set<String> destinations = SearchParams.airports(dataService, destCodes, "destination");
+        SearchParams.requireDisjoint(origins, destinations);
+
+        LocalDate searchDate = SearchParams.date(date, "date");
+        SearchFilters filters = SearchParams.filters(airlines, excludeAirlines, maxPrice, maxDurationMinutes,
+                maxStops, departAfter, departBefore, arriveAfter, arriveBefore, seats);
+        // Seats left change between dataset versions, so these results are not cached
+        boolean seatFiltered = filters.seats() > 0;
+        if (seatFiltered && !inventory.isAvailable()) {
+            throw new InventoryException("INVENTORY_UNAVAILABLE",
+                    "Seat availability is not tracked in cluster mode.", HttpStatus.NOT_IMPLEMENTED);
         }
-        if (destination == null || destination.isBlank()) {
-            return badRequest("MISSING_DESTINATION", "The 'destination' parameter is required.");
+        boolean filtered = !filters.equals(SearchFilters.NONE);
+        long budgetMillis = SearchParams.budgetMillis(maxTimeMs, defaultBudgetMillis, maxBudgetMillis);
+        SearchView searchView = SearchParams.view(view);
+        SearchRanking ranking = SearchParams.ranking(sort, limit, maxLimit);
+        // Set for time-travel searches against a retained earlier dataset version
+        FlightNetwork snapshot = SearchParams.snapshot(dataService, version, asOf);
+        phases.mark("validation");
+
+        // Hot routes are served from the materialized table; everything else is searched live.
+        // A hot list is tagged with the version it was searched on, a live search with the version
+        // read before it runs, so the ETag is never newer than the body. Only unfiltered single
+        // airport pairs of the current version are materialized, in duration order, so a limit
+        // by duration is a prefix. In cluster mode the version is every shard's, as a change on
+        // any shard can change the result.
+        String datasetVersion = cluster.isEnabled() ? cluster.clusterVersion()
+                : Long.toString(snapshot != null ? snapshot.version() : dataService.getNetwork().version());
+        List<Itinerary> itineraries = null;
+        if (origins.size() == 1 && destinations.size() == 1 && !filtered && snapshot == null
+                && ranking.sort() == TripSort.DURATION && hotRoutes.isAvailable()) {
+            HotRouteService.HotRoute route = hotRoutes.lookup(origins.iterator().next(),
+                    destinations.iterator().next(), searchDate);
+            if (route != null) {
+                datasetVersion = Long.toString(route.version());
+                itineraries = searchView.project(
+                        route.itineraries().subList(0, Math.min(route.itineraries().size(), ranking.limit())));
+            }
         }
-        if (date == null || date.isBlank()) {
-            return badRequest("MISSING_DATE", "The 'date' parameter is required.");
+        boolean hot = itineraries != null;
+
+        // Airports are joined with '/' since commas separate the tags of an If-None-Match list
+        String query = String.join("/", origins) + "-" + String.join("/", destinations) + "@" + searchDate;
+        if (filtered) {
+            // Airline names may hold spaces and commas, which an ETag cannot
+            query += ":" + Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(filters.toString().getBytes(StandardCharsets.UTF_8));
         }
-
-        String normalizedOrigin = origin.trim().toUpperCase();
-        String normalizedDest = destination.trim().toUpperCase();
-
-        if (!isValidIataCode(normalizedOrigin)) {
-            return badRequest("INVALID_ORIGIN",
-                    "Origin must be a 3-letter IATA airport code. Got: '" + origin + "'.");
+        if (!ranking.equals(SearchRanking.ALL)) {
+            query += ":" + ranking.sort().name().toLowerCase()
+                    + (ranking.limit() < Integer.MAX_VALUE ? "-" + ranking.limit() : "");
         }
-        if (!isValidIataCode(normalizedDest)) {
-            return badRequest("INVALID_DESTINATION",
-                    "Destination must be a 3-letter IATA airport code. Got: '" + destination + "'.");
+        String etag = HttpCaching.etag(datasetVersion, query, representation(accept, searchView));
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+        phases.mark("cache");
+        if (!seatFiltered && HttpCaching.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
         }
 
-        if (!dataService.airportExists(normalizedOrigin)) {
-            return badRequest("UNKNOWN_ORIGIN",
-                    "Airport '" + normalizedOrigin + "' not found in the dataset.");
-        }
-        if (!dataService.airportExists(normalizedDest)) {
-            return badRequest("UNKNOWN_DESTINATION",
-                    "Airport '" + normalizedDest + "' not found in the dataset.");
+        boolean partial = false;
+        if (itineraries == null) {
+            // Live searches run on the bounded executor; a full queue sheds the request with 503
+            SearchLimits limits = new SearchLimits(budgetMillis, maxExpansions);
+            SearchResult result = admission.run(
+                    () -> snapshot != null
+                            ? searchService.search(snapshot, origins, destinations, searchDate, limits, filters,
+                                    searchView, ranking)
+                            : searchService.search(origins, destinations, searchDate, limits, filters, searchView,
+                                    ranking),
+                    budgetMillis + maxQueueWaitMillis);
+            itineraries = result.itineraries();
+            partial = result.partial();
+
+            // What the search did, and the rest of the wait: queueing, coalescing and hand-off
+            SearchTimings searchTimings = result.timings();
+            phases.add("lookup", searchTimings.lookupNanos());
+            phases.add("dfs", searchTimings.dfsNanos());
+            phases.add("build", searchTimings.buildNanos());
+            phases.add("sort", searchTimings.sortNanos());
+            phases.mark("wait");
         }
 
-        if (normalizedOrigin.equals(normalizedDest)) {
-            return badRequest("SAME_ORIGIN_DESTINATION",
-                    "Origin and destination must be different airports.");
+        // Replays search the current dataset, so time-travel searches are not captured
+        if (queryLog.isEnabled() && snapshot == null) {
+            queryLog.record(new QueryRecord(System.currentTimeMillis(), List.copyOf(origins),
+                    List.copyOf(destinations), searchDate, filtered ? filters : null, searchView,
+                    ranking.equals(SearchRanking.ALL) ? null : ranking, budgetMillis,
+                    (System.nanoTime() - started) / 1000, itineraries.size(), partial, hot));
         }
 
-        LocalDate searchDate;
-        try {
-            searchDate = LocalDate.parse(date.trim());
-        } catch (DateTimeParseException e) {
-            return badRequest("INVALID_DATE",
-                    "Date must be in ISO 8601 format (YYYY-MM-DD). Got: '" + date + "'.");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if (partial || seatFiltered) {
+            // A truncated answer must not be cached or revalidated as the full one, nor
+            // one filtered on seats, which the next hold can change
+            response.cacheControl(CacheControl.noStore());
+        } else {
+            response.eTag(etag).cacheControl(cacheControl);
         }
 
-        List<Itinerary> itineraries = searchService.search(normalizedOrigin, normalizedDest, searchDate);
-
-        return ResponseEntity.ok(new SearchResponse(itineraries, itineraries.size()));
-    }
-
-    private boolean isValidIataCode(String code) {
-        return code != null && code.length() == 3 && code.chars().allMatch(Character::isUpperCase);
+        // Smile and CBOR clients get the regular shape through the message converters;
+        // the normalized shape is a different body, so it is picked here
+        if (accept != null && accept.contains(NormalizedSearchResponse.MEDIA_TYPE)) {
+            return response
+                    .contentType(MediaType.parseMediaType(NormalizedSearchResponse.MEDIA_TYPE))
+                    .body(NormalizedSearchResponse.from(itineraries, partial));
+        }
+        return response.body(new SearchResponse(itineraries, itineraries.size(), partial));
     }
 
-    private ResponseEntity<ErrorResponse> badRequest(String error, String message) {
-        return ResponseEntity.badRequest().body(new ErrorResponse(error, message, 400));
+    // Distinguishes the ETags of the encodings the Accept header can select and of the views
+    private String representation(String accept, SearchView view) {
+        String suffix = view == SearchView.SUMMARY ? "-summary" : "";
+        if (accept == null) {
+            return "json" + suffix;
+        }
+        if (accept.contains(NormalizedSearchResponse.MEDIA_TYPE)) {
+            return "normalized" + suffix;
+        }
+        if (accept.contains("smile")) {
+            return "smile" + suffix;
+        }
+        if (accept.contains("cbor")) {
+            return "cbor" + suffix;
+        }
+        return "json" + suffix;
     }
 }
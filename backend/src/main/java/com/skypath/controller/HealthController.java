@@ -0,0 +1,44 @@
+package com.skypath.controller;
+
+import com.skypath.service.FlightDataService;
+import com.skypath.service.WarmupService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/health")
+public class HealthController {
+
+    private final FlightDataService dataService;
+    private final WarmupService warmup;
+
+    public HealthController(FlightDataService dataService, WarmupService warmup) {
+        this.dataService = dataService;
+        this.warmup = warmup;
+    }
+
+    /**
+     * Readiness probe: 200 once the dataset is loaded and warmup has finished, 503 before.
+     * GET /api/health/ready
+     */
+    @GetMapping("/ready")
+    public ResponseEntity<Map<String, Object>> ready() {
+        boolean dataLoaded = dataService.isLoaded();
+        boolean warmedUp = warmup.isDone();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("ready", dataLoaded && warmedUp);
+        body.put("dataLoaded", dataLoaded);
+        body.put("warmedUp", warmedUp);
+        body.put("datasetVersion", dataService.getNetwork().version());
+
+        return ResponseEntity.status(dataLoaded && warmedUp ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(body);
+    }
+}
@@ -0,0 +1,55 @@
+package com.skypath.controller;
+
+/**
+ * Weak ETags for responses that only change with the dataset version. Weak, because
+ * one tag covers every content-coding of a body (the server may gzip it), and Tomcat
+ * does not compress responses carrying a strong validator.
+ */
+final class HttpCaching {
+
+    private HttpCaching() {
+    }
+
+    // e.g. W/"v7:JFK-LAX@2024-03-15:json"; parts must not contain quotes or spaces
+    static String etag(long datasetVersion, String... parts) {
+        return etag(Long.toString(datasetVersion), parts);
+    }
+
+    // Cluster mode tags with the versions of all shards, e.g. W/"v4.1.2:JFK-LAX@2024-03-15:json"
+    static String etag(String datasetVersion, String... parts) {
+        StringBuilder tag = new StringBuilder("W/\"v").append(datasetVersion);
+        for (String part : parts) {
+            tag.append(':').append(part);
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Whether an If-None-Match header matches the tag. Uses weak comparison as
+     * RFC 9110 requires for If-None-Match: tags match if their opaque parts do,
+     * whether or not either is marked weak.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (opaque(tag).equals(opaque(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+}
@@ -0,0 +1,101 @@
+package com.skypath.controller;
+
+import com.skypath.dto.HoldRequest;
+import com.skypath.dto.HoldResponse;
+import com.skypath.dto.SeatAvailabilityResponse;
+import com.skypath.exception.InventoryException;
+import com.skypath.model.Flight;
+import com.skypath.service.FlightDataService;
+import com.skypath.service.SeatInventory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Seat holds on itineraries: hold the seats on every leg, then confirm (sell) or
+ * release them before the hold expires.
+ */
+@RestController
+@RequestMapping("/api/inventory")
+public class InventoryController {
+
+    private final SeatInventory inventory;
+    private final FlightDataService dataService;
+
+    public InventoryController(SeatInventory inventory, FlightDataService dataService) {
+        this.inventory = inventory;
+        this.dataService = dataService;
+    }
+
+    /**
+     * Seats of a flight.
+     * GET /api/inventory/flights/{flightNumber}
+     */
+    @GetMapping("/flights/{flightNumber}")
+    public SeatAvailabilityResponse availability(@PathVariable String flightNumber) {
+        requireAvailable();
+        Flight flight = flight(flightNumber);
+        int capacity = inventory.capacity(flight);
+        int available = inventory.available(flight);
+        int sold = inventory.sold(flight);
+        return new SeatAvailabilityResponse(flight.flightNumber(), capacity, available,
+                Math.max(0, capacity - available - sold), sold);
+    }
+
+    /**
+     * Holds seats on all the flights or, when one is sold out, on none (409).
+     * POST /api/inventory/holds
+     */
+    @PostMapping("/holds")
+    public ResponseEntity<HoldResponse> hold(@RequestBody HoldRequest request) {
+        requireAvailable();
+        if (request.flightNumbers() == null) {
+            throw new InventoryException("INVALID_HOLD", "flightNumbers is required.", HttpStatus.BAD_REQUEST);
+        }
+        List<Flight> legs = new ArrayList<>();
+        for (String flightNumber : request.flightNumbers()) {
+            legs.add(flight(flightNumber));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(HoldResponse.from(inventory.hold(legs, request.seats())));
+    }
+
+    /**
+     * Sells the held seats.
+     * POST /api/inventory/holds/{holdId}/confirm
+     */
+    @PostMapping("/holds/{holdId}/confirm")
+    public HoldResponse confirm(@PathVariable String holdId) {
+        requireAvailable();
+        return HoldResponse.from(inventory.confirm(holdId));
+    }
+
+    /**
+     * Gives the held seats back.
+     * DELETE /api/inventory/holds/{holdId}
+     */
+    @DeleteMapping("/holds/{holdId}")
+    public HoldResponse release(@PathVariable String holdId) {
+        requireAvailable();
+        return HoldResponse.from(inventory.release(holdId));
+    }
+
+    private Flight flight(String flightNumber) {
+        Flight flight = flightNumber == null ? null : dataService.getFlight(flightNumber.trim().toUpperCase());
+        if (flight == null) {
+            throw new InventoryException("FLIGHT_NOT_FOUND",
+                    "Flight '" + flightNumber + "' not found in the dataset.", HttpStatus.NOT_FOUND);
+        }
+        return flight;
+    }
+
+    private void requireAvailable() {
+        if (!inventory.isAvailable()) {
+            throw new InventoryException("INVENTORY_UNAVAILABLE",
+                    "Seat inventory is not available in cluster mode.", HttpStatus.NOT_IMPLEMENTED);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.skypath.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypath.dto.DatasetVersionsResponse;
+import com.skypath.dto.ScheduleChange;
+import com.skypath.dto.ScheduleChangeResponse;
+import com.skypath.exception.ScheduleChangeException;
+import com.skypath.model.Flight;
+import com.skypath.service.FlightDataService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Applies schedule changes to the live dataset without a reload.
+ * Each request becomes one new dataset version.
+ */
+@RestController
+@RequestMapping("/api/admin/flights")
+public class ScheduleAdminController {
+
+    private static final TypeReference<List<ScheduleChange>> CHANGES = new TypeReference<>() {
+    };
+
+    private final FlightDataService dataService;
+    private final ObjectMapper objectMapper;
+
+    public ScheduleAdminController(FlightDataService dataService, ObjectMapper objectMapper) {
+        this.dataService = dataService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Adds a flight.
+     * POST /api/admin/flights
+     */
+    @PostMapping
+    public ResponseEntity<ScheduleChangeResponse> addFlight(@RequestBody byte[] body) {
+        return apply(List.of(ScheduleChange.add(read(body, objectMapper.constructType(Flight.class)))));
+    }
+
+    /**
+     * Changes times, price or aircraft of a flight (delays, price changes).
+     * PATCH /api/admin/flights/{flightNumber}
+     */
+    @PatchMapping("/{flightNumber}")
+    public ResponseEntity<ScheduleChangeResponse> updateFlight(@PathVariable String flightNumber,
+                                                               @RequestBody byte[] body) {
+        ScheduleChange update = read(body, objectMapper.constructType(ScheduleChange.class));
+        return apply(List.of(new ScheduleChange(ScheduleChange.Type.UPDATE, flightNumber, null,
+                update.departureTime(), update.arrivalTime(), update.price(), update.aircraft())));
+    }
+
+    /**
+     * Cancels a flight.
+     * DELETE /api/admin/flights/{flightNumber}
+     */
+    @DeleteMapping("/{flightNumber}")
+    public ResponseEntity<ScheduleChangeResponse> cancelFlight(@PathVariable String flightNumber) {
+        return apply(List.of(ScheduleChange.cancel(flightNumber)));
+    }
+
+    /**
+     * Applies a batch of changes atomically.
+     * POST /api/admin/flights/changes
+     */
+    @PostMapping("/changes")
+    public ResponseEntity<ScheduleChangeResponse> applyChanges(@RequestBody byte[] body) {
+        return apply(read(body, objectMapper.constructType(CHANGES)));
+    }
+
+    /**
+     * Lists the retained dataset versions that searches can travel back to.
+     * GET /api/admin/flights/versions
+     */
+    @GetMapping("/versions")
+    public DatasetVersionsResponse versions() {
+        List<DatasetVersionsResponse.Version> versions = dataService.getHistory().stream()
+                .map(entry -> new DatasetVersionsResponse.Version(entry.network().version(), entry.createdAt(),
+                        entry.network().flightCount()))
+                .toList();
+        return new DatasetVersionsResponse(dataService.getNetwork().version(), versions,
+                dataService.historyBytes());
+    }
+
+    // Bodies are read here so that malformed JSON or an unknown change type is a rejected change
+    private <T> T read(byte[] body, JavaType type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new ScheduleChangeException("INVALID_CHANGE",
+                    "The change is malformed or contains an unknown value.", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private ResponseEntity<ScheduleChangeResponse> apply(List<ScheduleChange> changes) {
+        long started = System.nanoTime();
+        long version = dataService.applyChanges(changes);
+        long micros = (System.nanoTime() - started) / 1_000;
+        return ResponseEntity.ok(new ScheduleChangeResponse(version, changes.size(), micros));
+    }
+}
@@ -0,0 +1,285 @@
+package com.skypath.controller;
+
+import com.skypath.exception.InvalidSearchException;
+import com.skypath.index.FlightNetwork;
+import com.skypath.service.FlightDataService;
+import com.skypath.service.SearchFilters;
+import com.skypath.service.SearchRanking;
+import com.skypath.service.SearchView;
+import com.skypath.service.TripSort;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Parsing and validation of the query parameters the search endpoints share.
+ * Bad values throw {@link InvalidSearchException}, which is answered with 400.
+ */
+final class SearchParams {
+
+    private SearchParams() {
+    }
+
+    static void require(String value, String name) {
+        if (value == null || value.isBlank()) {
+            throw new InvalidSearchException("MISSING_" + errorName(name),
+                    "The '" + name + "' parameter is required.");
+        }
+    }
+
+    // A comma-separated list of airport or metro codes (e.g. "NYC" or "JFK,EWR"), upper-cased
+    static String[] codes(String param, String name) {
+        return codes(param, ",", name);
+    }
+
+    static String[] codes(String param, String separator, String name) {
+        String[] codes = Arrays.stream(param.split(Pattern.quote(separator)))
+                .map(code -> code.trim().toUpperCase())
+                .toArray(String[]::new);
+        for (String code : codes) {
+            if (!isValidIataCode(code)) {
+                throw new InvalidSearchException("INVALID_" + errorName(name),
+                        capitalize(name) + " must be a 3-letter IATA airport code. Got: '" + param + "'.");
+            }
+        }
+        return codes;
+    }
+
+    // The airports the codes stand for, sorted
+    static Set<String> airports(FlightDataService dataService, String[] codes, String name) {
+        Set<String> airports = new TreeSet<>();
+        for (String code : codes) {
+            List<String> resolved = dataService.resolveAirports(code);
+            if (resolved.isEmpty()) {
+                throw new InvalidSearchException("UNKNOWN_" + errorName(name),
+                        "Airport '" + code + "' not found in the dataset.");
+            }
+            airports.addAll(resolved);
+        }
+        return airports;
+    }
+
+    static void requireDisjoint(Set<String> origins, Set<String> destinations) {
+        if (!Collections.disjoint(origins, destinations)) {
+            throw new InvalidSearchException("SAME_ORIGIN_DESTINATION",
+                    "Origin and destination must be different airports.");
+        }
+    }
+
+    static LocalDate date(String param, String name) {
+        try {
+            return LocalDate.parse(param.trim());
+        } catch (DateTimeParseException e) {
+            throw new InvalidSearchException("INVALID_DATE",
+                    capitalize(name) + " must be in ISO 8601 format (YYYY-MM-DD). Got: '" + param + "'.");
+        }
+    }
+
+    // The client's maxTimeMs capped at maxMillis, or the default when absent
+    static long budgetMillis(String maxTimeMs, long defaultMillis, long maxMillis) {
+        if (maxTimeMs == null || maxTimeMs.isBlank()) {
+            return defaultMillis;
+        }
+        long budgetMillis;
+        try {
+            budgetMillis = Long.parseLong(maxTimeMs.trim());
+        } catch (NumberFormatException e) {
+            budgetMillis = -1;
+        }
+        if (budgetMillis <= 0) {
+            throw new InvalidSearchException("INVALID_MAX_TIME",
+                    "maxTimeMs must be a positive number of milliseconds. Got: '" + maxTimeMs + "'.");
+        }
+        return Math.min(budgetMillis, maxMillis);
+    }
+
+    /**
+     * The retained dataset version a time-travel search runs on: the one numbered
+     * {@code version}, or the one that was current at {@code asOf} (an ISO 8601
+     * instant with offset). Null when neither is given, i.e. search the current one.
+     */
+    static FlightNetwork snapshot(FlightDataService dataService, String version, String asOf) {
+        boolean byVersion = version != null && !version.isBlank();
+        boolean byTime = asOf != null && !asOf.isBlank();
+        if (!byVersion && !byTime) {
+            return null;
+        }
+        if (byVersion && byTime) {
+            throw new InvalidSearchException("CONFLICTING_VERSION",
+                    "Use either 'version' or 'asOf', not both.");
+        }
+        if (!dataService.keepsHistory()) {
+            throw new InvalidSearchException("HISTORY_UNAVAILABLE",
+                    "Earlier dataset versions cannot be searched in cluster mode.");
+        }
+
+        FlightNetwork snapshot;
+        if (byVersion) {
+            long number;
+            try {
+                number = Long.parseLong(version.trim());
+            } catch (NumberFormatException e) {
+                throw new InvalidSearchException("INVALID_VERSION",
+                        "version must be a dataset version number. Got: '" + version + "'.");
+            }
+            snapshot = dataService.getNetwork(number);
+        } else {
+            Instant instant;
+            try {
+                instant = OffsetDateTime.parse(asOf.trim()).toInstant();
+            } catch (DateTimeParseException e) {
+                throw new InvalidSearchException("INVALID_AS_OF",
+                        "asOf must be an ISO 8601 date-time with offset (e.g. 2024-03-14T09:00:00Z). Got: '"
+                                + asOf + "'.");
+            }
+            snapshot = dataService.getNetworkAsOf(instant);
+        }
+        if (snapshot == null) {
+            throw new InvalidSearchException("VERSION_NOT_RETAINED",
+                    "That dataset version is no longer retained; see /api/admin/flights/versions.");
+        }
+        return snapshot;
+    }
+
+    static SearchView view(String view) {
+        if (view == null || view.isBlank() || view.trim().equalsIgnoreCase("full")) {
+            return SearchView.FULL;
+        }
+        if (view.trim().equalsIgnoreCase("summary")) {
+            return SearchView.SUMMARY;
+        }
+        throw new InvalidSearchException("INVALID_VIEW",
+                "view must be 'full' or 'summary'. Got: '" + view + "'.");
+    }
+
+    // The best `limit` itineraries by `sort` (duration, the default, or price), or all of them
+    static SearchRanking ranking(String sort, String limit, int maxLimit) {
+        TripSort order;
+        if (sort == null || sort.isBlank() || sort.trim().equalsIgnoreCase("duration")) {
+            order = TripSort.DURATION;
+        } else if (sort.trim().equalsIgnoreCase("price")) {
+            order = TripSort.PRICE;
+        } else {
+            throw new InvalidSearchException("INVALID_SORT",
+                    "sort must be 'duration' or 'price'. Got: '" + sort + "'.");
+        }
+        if (limit == null || limit.isBlank()) {
+            return order == TripSort.DURATION ? SearchRanking.ALL : new SearchRanking(order, Integer.MAX_VALUE);
+        }
+        int results = nonNegative(limit, "INVALID_LIMIT", "limit");
+        if (results < 1 || results > maxLimit) {
+            throw new InvalidSearchException("INVALID_LIMIT",
+                    "limit must be between 1 and " + maxLimit + ". Got: '" + limit + "'.");
+        }
+        return new SearchRanking(order, results);
+    }
+
+    // Filters are applied inside the search, so restrictive queries expand fewer paths
+    static SearchFilters filters(String airlines, String excludeAirlines, String maxPrice,
+                                 String maxDurationMinutes, String maxStops, String departAfter,
+                                 String departBefore, String arriveAfter, String arriveBefore) {
+        return filters(airlines, excludeAirlines, maxPrice, maxDurationMinutes, maxStops, departAfter,
+                departBefore, arriveAfter, arriveBefore, null);
+    }
+
+    // With seats, only flights with that many seats neither held nor sold are used
+    static SearchFilters filters(String airlines, String excludeAirlines, String maxPrice,
+                                 String maxDurationMinutes, String maxStops, String departAfter,
+                                 String departBefore, String arriveAfter, String arriveBefore, String seats) {
+        int requiredSeats = seats == null || seats.isBlank() ? 0 : nonNegative(seats, "INVALID_SEATS", "seats");
+        SearchFilters filters = new SearchFilters(
+                airlineList(airlines),
+                airlineList(excludeAirlines),
+                maxPrice == null || maxPrice.isBlank()
+                        ? Double.POSITIVE_INFINITY : positiveNumber(maxPrice, "INVALID_MAX_PRICE", "maxPrice"),
+                maxDurationMinutes == null || maxDurationMinutes.isBlank()
+                        ? Long.MAX_VALUE
+                        : (long) positiveNumber(maxDurationMinutes, "INVALID_MAX_DURATION", "maxDurationMinutes"),
+                maxStops == null || maxStops.isBlank()
+                        ? SearchFilters.NONE.maxStops() : nonNegative(maxStops, "INVALID_MAX_STOPS", "maxStops"),
+                timeOfDay(departAfter, "departAfter"),
+                timeOfDay(departBefore, "departBefore"),
+                timeOfDay(arriveAfter, "arriveAfter"),
+                timeOfDay(arriveBefore, "arriveBefore"),
+                requiredSeats);
+        if (isInverted(filters.departAfter(), filters.departBefore())
+                || isInverted(filters.arriveAfter(), filters.arriveBefore())) {
+            throw new InvalidSearchException("INVALID_TIME_WINDOW",
+                    "A time window's 'after' bound must not be later than its 'before' bound.");
+        }
+        return filters;
+    }
+
+    static int nonNegative(String param, String error, String name) {
+        try {
+            int value = Integer.parseInt(param.trim());
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to the error below
+        }
+        throw new InvalidSearchException(error, name + " must be a non-negative integer. Got: '" + param + "'.");
+    }
+
+    private static List<String> airlineList(String param) {
+        if (param == null || param.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(param.split(","))
+                .map(String::trim)
+                .filter(airline -> !airline.isEmpty())
+                .toList();
+    }
+
+    private static double positiveNumber(String param, String error, String name) {
+        double value;
+        try {
+            value = Double.parseDouble(param.trim());
+        } catch (NumberFormatException e) {
+            value = -1;
+        }
+        if (!(value > 0) || Double.isInfinite(value)) {
+            throw new InvalidSearchException(error, name + " must be a positive number. Got: '" + param + "'.");
+        }
+        return value;
+    }
+
+    private static LocalTime timeOfDay(String param, String name) {
+        if (param == null || param.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalTime.parse(param.trim());
+        } catch (DateTimeParseException e) {
+            throw new InvalidSearchException("INVALID_TIME",
+                    name + " must be a local time (HH:mm). Got: '" + param + "'.");
+        }
+    }
+
+    private static boolean isInverted(LocalTime after, LocalTime before) {
+        return after != null && before != null && after.isAfter(before);
+    }
+
+    private static boolean isValidIataCode(String code) {
+        return code != null && code.length() == 3 && code.chars().allMatch(Character::isUpperCase);
+    }
+
+    // "returnDate" -> "RETURN_DATE"
+    private static String errorName(String name) {
+        return name.replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -0,0 +1,67 @@
+package com.skypath.controller;
+
+import com.skypath.exception.InvalidSearchException;
+import com.skypath.service.FlightDataService;
+import com.skypath.service.SearchFilters;
+import com.skypath.service.SubscriptionService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/flights")
+public class SearchSubscriptionController {
+
+    private final SubscriptionService subscriptions;
+    private final FlightDataService dataService;
+
+    public SearchSubscriptionController(SubscriptionService subscriptions, FlightDataService dataService) {
+        this.subscriptions = subscriptions;
+        this.dataService = dataService;
+    }
+
+    /**
+     * Watches a search as server-sent events: a {@code snapshot} with the current
+     * itineraries, then an {@code update} with the itineraries added and removed
+     * whenever a schedule change alters the result. Takes the search's parameters.
+     * GET /api/flights/subscribe
+     */
+    @GetMapping("/subscribe")
+    public SseEmitter subscribe(
+            @RequestParam(required = false) String origin,
+            @RequestParam(required = false) String destination,
+            @RequestParam(required = false) String date,
+            @RequestParam(required = false) String airlines,
+            @RequestParam(required = false) String excludeAirlines,
+            @RequestParam(required = false) String maxPrice,
+            @RequestParam(required = false) String maxDurationMinutes,
+            @RequestParam(required = false) String maxStops,
+            @RequestParam(required = false) String departAfter,
+            @RequestParam(required = false) String departBefore,
+            @RequestParam(required = false) String arriveAfter,
+            @RequestParam(required = false) String arriveBefore
+    ) {
+        if (!subscriptions.isAvailable()) {
+            throw new InvalidSearchException("SUBSCRIPTIONS_UNAVAILABLE",
+                    "Search subscriptions are not available in cluster mode.");
+        }
+        SearchParams.require(origin, "origin");
+        SearchParams.require(destination, "destination");
+        SearchParams.require(date, "date");
+
+        Set<String> origins = SearchParams.airports(dataService, SearchParams.codes(origin, "origin"), "origin");
+        Set<String> destinations = SearchParams.airports(dataService,
+                SearchParams.codes(destination, "destination"), "destination");
+        SearchParams.requireDisjoint(origins, destinations);
+        LocalDate searchDate = SearchParams.date(date, "date");
+        SearchFilters filters = SearchParams.filters(airlines, excludeAirlines, maxPrice, maxDurationMinutes,
+                maxStops, departAfter, departBefore, arriveAfter, arriveBefore);
+
+        return subscriptions.subscribe(origins, destinations, searchDate, filters);
+    }
+}
@@ -0,0 +1,60 @@
+package com.skypath.controller;
+
+/**
+ * Request-scoped phase timer rendered as a Server-Timing header, e.g.
+ * {@code validation;dur=0.08, dfs;dur=12.31, serialize;dur=1.90}. Phases are kept
+ * in order in two small arrays. {@link #mark} closes the phase that has run since
+ * the previous mark, less any phases {@link #add added} in between, so time spent
+ * waiting on work that was timed elsewhere is split out without counting it twice.
+ */
+public final class ServerTiming {
+
+    public static final String HEADER = "Server-Timing";
+    public static final String ATTRIBUTE = "com.skypath.controller.ServerTiming";
+
+    private static final int MAX_PHASES = 16;
+
+    private final String[] names = new String[MAX_PHASES];
+    private final long[] nanos = new long[MAX_PHASES];
+    private int count;
+    private long last = System.nanoTime();
+    private long added;
+
+    public void mark(String phase) {
+        long now = System.nanoTime();
+        record(phase, now - last - added);
+        last = now;
+        added = 0;
+    }
+
+    public void add(String phase, long phaseNanos) {
+        record(phase, phaseNanos);
+        added += phaseNanos;
+    }
+
+    private void record(String phase, long phaseNanos) {
+        if (count < MAX_PHASES) {
+            names[count] = phase;
+            nanos[count] = Math.max(0, phaseNanos);
+            count++;
+        }
+    }
+
+    // Durations are milliseconds with two decimals, formatted without String.format
+    public String header() {
+        StringBuilder header = new StringBuilder(count * 24);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                header.append(", ");
+            }
+            long hundredths = (nanos[i] + 5_000) / 10_000;
+            long fraction = hundredths % 100;
+            header.append(names[i]).append(";dur=").append(hundredths / 100).append('.');
+            if (fraction < 10) {
+                header.append('0');
+            }
+            header.append(fraction);
+        }
+        return header.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.skypath.controller;
+
+import com.skypath.dto.ShardQuery;
+import com.skypath.model.Flight;
+import com.skypath.service.FlightDataService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Internal API used by search coordinators in origin-sharded deployments.
+ */
+@RestController
+@RequestMapping("/internal/shard")
+public class ShardController {
+
+    private final FlightDataService dataService;
+
+    public ShardController(FlightDataService dataService) {
+        this.dataService = dataService;
+    }
+
+    /**
+     * Answers departure-window queries against this shard's flights, one list per query.
+     * POST /internal/shard/flights
+     */
+    @PostMapping("/flights")
+    public List<List<Flight>> flights(@RequestBody List<ShardQuery> queries) {
+        return queries.stream().map(dataService::findFlights).toList();
+    }
+
+    /**
+     * This shard's current dataset version, from which coordinators build cluster-wide ETags.
+     * GET /internal/shard/version
+     */
+    @GetMapping("/version")
+    public long version() {
+        return dataService.getNetwork().version();
+    }
+}
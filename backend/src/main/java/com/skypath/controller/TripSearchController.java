@@ -0,0 +1,205 @@
+package com.skypath.controller;
+
+import com.skypath.dto.TripSearchResponse;
+import com.skypath.exception.InvalidSearchException;
+import com.skypath.service.FlightDataService;
+import com.skypath.service.SearchFilters;
+import com.skypath.service.SearchLimits;
+import com.skypath.service.TripLeg;
+import com.skypath.service.TripResult;
+import com.skypath.service.TripSearchService;
+import com.skypath.service.TripSort;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/trips")
+public class TripSearchController {
+
+    private final TripSearchService tripService;
+    private final FlightDataService dataService;
+
+    // Trips returned when the client sends no limit, and the most it may ask for
+    @Value("${skypath.trips.default-results:20}")
+    private int defaultResults;
+
+    @Value("${skypath.trips.max-results:100}")
+    private int maxResults;
+
+    @Value("${skypath.trips.max-legs:6}")
+    private int maxLegs;
+
+    @Value("${skypath.search.budget.default-millis:2000}")
+    private long defaultBudgetMillis;
+
+    @Value("${skypath.search.budget.max-millis:10000}")
+    private long maxBudgetMillis;
+
+    @Value("${skypath.search.budget.max-expansions:5000000}")
+    private long maxExpansions;
+
+    @Value("${skypath.search.executor.max-queue-wait-millis:1000}")
+    private long maxQueueWaitMillis;
+
+    public TripSearchController(TripSearchService tripService, FlightDataService dataService) {
+        this.tripService = tripService;
+        this.dataService = dataService;
+    }
+
+    /**
+     * The best round trips between two airports (or metros), ranked by total price
+     * or total flight time. Filters apply to both directions.
+     */
+    @GetMapping("/round-trip")
+    public ResponseEntity<TripSearchResponse> roundTrip(
+            @RequestParam(required = false) String origin,
+            @RequestParam(required = false) String destination,
+            @RequestParam(required = false) String departDate,
+            @RequestParam(required = false) String returnDate,
+            @RequestParam(required = false) String minStayMinutes,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String limit,
+            @RequestParam(required = false) String maxTimeMs,
+            @RequestParam(required = false) String airlines,
+            @RequestParam(required = false) String excludeAirlines,
+            @RequestParam(required = false) String maxPrice,
+            @RequestParam(required = false) String maxDurationMinutes,
+            @RequestParam(required = false) String maxStops,
+            @RequestParam(required = false) String departAfter,
+            @RequestParam(required = false) String departBefore,
+            @RequestParam(required = false) String arriveAfter,
+            @RequestParam(required = false) String arriveBefore
+    ) {
+        SearchParams.require(origin, "origin");
+        SearchParams.require(destination, "destination");
+        SearchParams.require(departDate, "departDate");
+        SearchParams.require(returnDate, "returnDate");
+
+        String[] originCodes = SearchParams.codes(origin, "origin");
+        String[] destCodes = SearchParams.codes(destination, "destination");
+        Set<String> origins = SearchParams.airports(dataService, originCodes, "origin");
+        Set<String> destinations = SearchParams.airports(dataService, destCodes, "destination");
+        SearchParams.requireDisjoint(origins, destinations);
+
+        LocalDate outDate = SearchParams.date(departDate, "departDate");
+        LocalDate backDate = SearchParams.date(returnDate, "returnDate");
+        if (backDate.isBefore(outDate)) {
+            throw new InvalidSearchException("INVALID_RETURN_DATE",
+                    "returnDate must not be before departDate.");
+        }
+
+        long minStay = minStay(minStayMinutes);
+        int results = results(limit);
+
+        SearchFilters filters = SearchParams.filters(airlines, excludeAirlines, maxPrice, maxDurationMinutes,
+                maxStops, departAfter, departBefore, arriveAfter, arriveBefore);
+        long budgetMillis = SearchParams.budgetMillis(maxTimeMs, defaultBudgetMillis, maxBudgetMillis);
+
+        // Both directions are searched concurrently; only the best pairs are combined
+        TripResult result = tripService.roundTrip(origins, destinations, outDate, backDate, minStay,
+                new SearchLimits(budgetMillis, maxExpansions), filters, tripSort(sort), results,
+                budgetMillis + maxQueueWaitMillis);
+        return ResponseEntity.ok(new TripSearchResponse(result.trips(), result.trips().size(), result.partial()));
+    }
+
+    /**
+     * The best multi-city (or open-jaw) trips taking the legs in order. Legs are
+     * {@code ORIGIN-DESTINATION@YYYY-MM-DD}, comma-separated, with '/' between the
+     * airports of one side (e.g. {@code JFK-LHR@2024-03-15,LHR-CDG@2024-03-18,CDG-JFK/EWR@2024-03-22}).
+     */
+    @GetMapping("/multi-city")
+    public ResponseEntity<TripSearchResponse> multiCity(
+            @RequestParam(required = false) String legs,
+            @RequestParam(required = false) String minStayMinutes,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String limit,
+            @RequestParam(required = false) String maxTimeMs,
+            @RequestParam(required = false) String airlines,
+            @RequestParam(required = false) String excludeAirlines,
+            @RequestParam(required = false) String maxPrice,
+            @RequestParam(required = false) String maxDurationMinutes,
+            @RequestParam(required = false) String maxStops,
+            @RequestParam(required = false) String departAfter,
+            @RequestParam(required = false) String departBefore,
+            @RequestParam(required = false) String arriveAfter,
+            @RequestParam(required = false) String arriveBefore
+    ) {
+        SearchParams.require(legs, "legs");
+        List<TripLeg> tripLegs = new ArrayList<>();
+        for (String leg : legs.split(",")) {
+            tripLegs.add(tripLeg(leg.trim()));
+        }
+        if (tripLegs.size() < 2 || tripLegs.size() > maxLegs) {
+            throw new InvalidSearchException("INVALID_LEGS",
+                    "A multi-city trip needs between 2 and " + maxLegs + " legs. Got " + tripLegs.size() + ".");
+        }
+        for (int i = 1; i < tripLegs.size(); i++) {
+            if (tripLegs.get(i).date().isBefore(tripLegs.get(i - 1).date())) {
+                throw new InvalidSearchException("INVALID_LEGS", "Leg dates must not go backwards.");
+            }
+        }
+
+        long minStay = minStay(minStayMinutes);
+        int results = results(limit);
+        SearchFilters filters = SearchParams.filters(airlines, excludeAirlines, maxPrice, maxDurationMinutes,
+                maxStops, departAfter, departBefore, arriveAfter, arriveBefore);
+        long budgetMillis = SearchParams.budgetMillis(maxTimeMs, defaultBudgetMillis, maxBudgetMillis);
+
+        // Legs are searched concurrently; only the best combinations are assembled
+        TripResult result = tripService.multiCity(tripLegs, minStay,
+                new SearchLimits(budgetMillis, maxExpansions), filters, tripSort(sort), results,
+                budgetMillis + maxQueueWaitMillis);
+        return ResponseEntity.ok(new TripSearchResponse(result.trips(), result.trips().size(), result.partial()));
+    }
+
+    // "JFK/EWR-LHR@2024-03-15"
+    private TripLeg tripLeg(String leg) {
+        int at = leg.indexOf('@');
+        int dash = leg.indexOf('-');
+        if (dash < 0 || at < dash) {
+            throw new InvalidSearchException("INVALID_LEGS",
+                    "Legs must look like ORIGIN-DESTINATION@YYYY-MM-DD. Got: '" + leg + "'.");
+        }
+        String[] originCodes = SearchParams.codes(leg.substring(0, dash), "/", "origin");
+        String[] destCodes = SearchParams.codes(leg.substring(dash + 1, at), "/", "destination");
+        Set<String> origins = SearchParams.airports(dataService, originCodes, "origin");
+        Set<String> destinations = SearchParams.airports(dataService, destCodes, "destination");
+        SearchParams.requireDisjoint(origins, destinations);
+        return new TripLeg(origins, destinations, SearchParams.date(leg.substring(at + 1), "date"));
+    }
+
+    private long minStay(String minStayMinutes) {
+        return minStayMinutes == null || minStayMinutes.isBlank()
+                ? 0 : SearchParams.nonNegative(minStayMinutes, "INVALID_MIN_STAY", "minStayMinutes");
+    }
+
+    private int results(String limit) {
+        int results = limit == null || limit.isBlank()
+                ? defaultResults : SearchParams.nonNegative(limit, "INVALID_LIMIT", "limit");
+        if (results < 1 || results > maxResults) {
+            throw new InvalidSearchException("INVALID_LIMIT",
+                    "limit must be between 1 and " + maxResults + ". Got: '" + limit + "'.");
+        }
+        return results;
+    }
+
+    private TripSort tripSort(String sort) {
+        if (sort == null || sort.isBlank() || sort.trim().equalsIgnoreCase("price")) {
+            return TripSort.PRICE;
+        }
+        if (sort.trim().equalsIgnoreCase("duration")) {
+            return TripSort.DURATION;
+        }
+        throw new InvalidSearchException("INVALID_SORT",
+                "sort must be 'price' or 'duration'. Got: '" + sort + "'.");
+    }
+}
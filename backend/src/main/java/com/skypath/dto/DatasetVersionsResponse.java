@@ -0,0 +1,20 @@
+package com.skypath.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record DatasetVersionsResponse(
+        long current,
+        // Oldest first; each can be searched with ?version= or an ?asOf= at or after its createdAt
+        List<Version> versions,
+        // Memory of all retained versions, tables shared between versions counted once
+        long retainedBytes
+) {
+
+    public record Version(
+            long version,
+            Instant createdAt,
+            int flights
+    ) {
+    }
+}
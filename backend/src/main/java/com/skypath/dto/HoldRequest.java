@@ -0,0 +1,12 @@
+package com.skypath.dto;
+
+import java.util.List;
+
+/**
+ * Seats to hold on every flight of an itinerary, e.g. the legs of a search result.
+ */
+public record HoldRequest(
+        List<String> flightNumbers,
+        int seats
+) {
+}
@@ -0,0 +1,21 @@
+package com.skypath.dto;
+
+import com.skypath.service.SeatInventory;
+
+import java.time.Instant;
+import java.util.List;
+
+public record HoldResponse(
+        String holdId,
+        List<String> flightNumbers,
+        int seats,
+        // HELD, or CONFIRMED or RELEASED after settling it
+        SeatInventory.Status status,
+        // An unconfirmed hold gives its seats back at this time
+        Instant expiresAt
+) {
+
+    public static HoldResponse from(SeatInventory.Hold hold) {
+        return new HoldResponse(hold.id(), hold.flightNumbers(), hold.seats(), hold.status(), hold.expiresAt());
+    }
+}
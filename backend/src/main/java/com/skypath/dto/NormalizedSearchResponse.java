@@ -0,0 +1,84 @@
+package com.skypath.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.skypath.model.FlightSegment;
+import com.skypath.model.Itinerary;
+import com.skypath.model.Layover;
+
+import java.util.*;
+
+/**
+ * Search response with each airport sent once in a side table; segments and
+ * layovers reference airports by code. Served for
+ * {@code Accept: application/vnd.skypath.normalized+json}.
+ */
+public record NormalizedSearchResponse(
+        Map<String, AirportInfo> airports,
+        List<CompactItinerary> itineraries,
+        int count,
+        boolean partial
+) {
+
+    public static final String MEDIA_TYPE = "application/vnd.skypath.normalized+json";
+
+    public record AirportInfo(String name, String city) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record CompactSegment(
+            String flightNumber,
+            String airline,
+            String origin,
+            String destination,
+            String departureTime,
+            String arrivalTime,
+            long durationMinutes,
+            String aircraft
+    ) {
+    }
+
+    public record CompactLayover(String airport, long durationMinutes) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record CompactItinerary(
+            List<CompactSegment> segments,
+            List<CompactLayover> layovers,
+            long totalDurationMinutes,
+            double totalPrice,
+            int stops
+    ) {
+    }
+
+    public static NormalizedSearchResponse from(List<Itinerary> itineraries, boolean partial) {
+        Map<String, AirportInfo> airports = new TreeMap<>();
+        List<CompactItinerary> compact = new ArrayList<>(itineraries.size());
+
+        for (Itinerary itinerary : itineraries) {
+            List<CompactSegment> segments = new ArrayList<>(itinerary.segments().size());
+            for (FlightSegment s : itinerary.segments()) {
+                // Summary views carry no airport names, so the side table stays empty
+                if (s.originName() != null) {
+                    airports.putIfAbsent(s.originCode(), new AirportInfo(s.originName(), s.originCity()));
+                    airports.putIfAbsent(s.destinationCode(),
+                            new AirportInfo(s.destinationName(), s.destinationCity()));
+                }
+                segments.add(new CompactSegment(s.flightNumber(), s.airline(), s.originCode(), s.destinationCode(),
+                        s.departureTime(), s.arrivalTime(), s.durationMinutes(), s.aircraft()));
+            }
+
+            List<CompactLayover> layovers = null;
+            if (itinerary.layovers() != null) {
+                layovers = new ArrayList<>(itinerary.layovers().size());
+                for (Layover l : itinerary.layovers()) {
+                    layovers.add(new CompactLayover(l.airportCode(), l.durationMinutes()));
+                }
+            }
+
+            compact.add(new CompactItinerary(segments, layovers, itinerary.totalDurationMinutes(),
+                    itinerary.totalPrice(), itinerary.stops()));
+        }
+
+        return new NormalizedSearchResponse(airports, compact, compact.size(), partial);
+    }
+}
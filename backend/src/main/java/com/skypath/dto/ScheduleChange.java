@@ -0,0 +1,32 @@
+package com.skypath.dto;
+
+import com.skypath.model.Flight;
+
+import java.time.LocalDateTime;
+
+/**
+ * One schedule edit. ADD carries a full {@code flight}; UPDATE changes any
+ * non-null field of the flight named by {@code flightNumber}; CANCEL removes it.
+ */
+public record ScheduleChange(
+        Type type,
+        String flightNumber,
+        Flight flight,
+        LocalDateTime departureTime,
+        LocalDateTime arrivalTime,
+        Double price,
+        String aircraft
+) {
+
+    public enum Type {
+        ADD, UPDATE, CANCEL
+    }
+
+    public static ScheduleChange add(Flight flight) {
+        return new ScheduleChange(Type.ADD, flight.flightNumber(), flight, null, null, null, null);
+    }
+
+    public static ScheduleChange cancel(String flightNumber) {
+        return new ScheduleChange(Type.CANCEL, flightNumber, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,8 @@
+package com.skypath.dto;
+
+public record ScheduleChangeResponse(
+        long version,
+        int applied,
+        long durationMicros
+) {
+}
@@ -5,6 +5,8 @@ import java.util.List;
 
 public record SearchResponse(
         List<Itinerary> itineraries,
-        int count
+        int count,
+        // True when the search hit its time or expansion budget before finishing
+        boolean partial
 ) {
 }
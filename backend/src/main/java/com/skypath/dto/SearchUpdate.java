@@ -0,0 +1,19 @@
+package com.skypath.dto;
+
+import com.skypath.model.Itinerary;
+
+import java.util.List;
+
+/**
+ * A subscribed search's result at a dataset version: everything as {@code added} in
+ * the first ({@code snapshot}) event, then the difference to the previous event.
+ * An itinerary whose price or times changed is removed and added again.
+ */
+public record SearchUpdate(
+        long version,
+        List<Itinerary> added,
+        List<Itinerary> removed,
+        // Itineraries in the result after this update
+        int count
+) {
+}
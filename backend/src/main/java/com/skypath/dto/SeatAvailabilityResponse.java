@@ -0,0 +1,11 @@
+package com.skypath.dto;
+
+public record SeatAvailabilityResponse(
+        String flightNumber,
+        int capacity,
+        // Neither held nor sold; what ?seats= on a search compares against
+        int available,
+        int held,
+        int sold
+) {
+}
@@ -0,0 +1,16 @@
+package com.skypath.dto;
+
+import java.util.Set;
+
+/**
+ * Asks a shard for flights leaving {@code origin} with departure in
+ * [{@code departureFrom}, {@code departureTo}) (UTC epoch seconds), optionally
+ * only those landing at one of {@code destinations}.
+ */
+public record ShardQuery(
+        String origin,
+        long departureFrom,
+        long departureTo,
+        Set<String> destinations
+) {
+}
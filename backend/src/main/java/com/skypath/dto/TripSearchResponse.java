@@ -0,0 +1,12 @@
+package com.skypath.dto;
+
+import com.skypath.model.Trip;
+import java.util.List;
+
+public record TripSearchResponse(
+        List<Trip> trips,
+        int count,
+        // True when a leg search hit its budget or ranking stopped at its candidate limit
+        boolean partial
+) {
+}
@@ -3,8 +3,10 @@ package com.skypath.exception;
 import com.skypath.dto.ErrorResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -21,6 +23,46 @@ public class GlobalExceptionHandler {
                 .body(new ErrorResponse("MISSING_PARAMETER", message, 400));
     }
 
+    // Malformed JSON, or a value such as an enum constant that does not exist
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ErrorResponse> handleUnreadableBody(HttpMessageNotReadableException ex) {
+        return ResponseEntity.badRequest()
+                .body(new ErrorResponse("INVALID_REQUEST",
+                        "The request body is malformed or contains an unknown value.", 400));
+    }
+
+    @ExceptionHandler(InvalidSearchException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidSearch(InvalidSearchException ex) {
+        return ResponseEntity.badRequest()
+                .body(new ErrorResponse(ex.getError(), ex.getMessage(), 400));
+    }
+
+    @ExceptionHandler(ScheduleChangeException.class)
+    public ResponseEntity<ErrorResponse> handleScheduleChange(ScheduleChangeException ex) {
+        return ResponseEntity.status(ex.getStatus())
+                .body(new ErrorResponse(ex.getError(), ex.getMessage(), ex.getStatus().value()));
+    }
+
+    @ExceptionHandler(InventoryException.class)
+    public ResponseEntity<ErrorResponse> handleInventory(InventoryException ex) {
+        return ResponseEntity.status(ex.getStatus())
+                .body(new ErrorResponse(ex.getError(), ex.getMessage(), ex.getStatus().value()));
+    }
+
+    @ExceptionHandler(ShardUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleShardUnavailable(ShardUnavailableException ex) {
+        log.warn("Search failed: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new ErrorResponse("SHARD_UNAVAILABLE", ex.getMessage(), 503));
+    }
+
+    @ExceptionHandler(SearchOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleSearchOverloaded(SearchOverloadedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse("SERVER_BUSY", ex.getMessage(), 503));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
         log.error("Unexpected error during request processing", ex);
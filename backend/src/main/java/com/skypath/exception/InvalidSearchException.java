@@ -0,0 +1,18 @@
+package com.skypath.exception;
+
+/**
+ * A search parameter that failed validation; answered with 400 and the error code.
+ */
+public class InvalidSearchException extends RuntimeException {
+
+    private final String error;
+
+    public InvalidSearchException(String error, String message) {
+        super(message);
+        this.error = error;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,26 @@
+package com.skypath.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Rejects a seat hold, confirmation or release; a rejected hold takes no seats.
+ */
+public class InventoryException extends RuntimeException {
+
+    private final String error;
+    private final HttpStatus status;
+
+    public InventoryException(String error, String message, HttpStatus status) {
+        super(message);
+        this.error = error;
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,26 @@
+package com.skypath.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Rejects a schedule change; the whole batch it belongs to is left unapplied.
+ */
+public class ScheduleChangeException extends RuntimeException {
+
+    private final String error;
+    private final HttpStatus status;
+
+    public ScheduleChangeException(String error, String message, HttpStatus status) {
+        super(message);
+        this.error = error;
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,11 @@
+package com.skypath.exception;
+
+/**
+ * The search executor is saturated; the request is shed instead of queued.
+ */
+public class SearchOverloadedException extends RuntimeException {
+
+    public SearchOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.skypath.exception;
+
+/**
+ * A shard needed to answer a search did not respond in time.
+ */
+public class ShardUnavailableException extends RuntimeException {
+
+    public ShardUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
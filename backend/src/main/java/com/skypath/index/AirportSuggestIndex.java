@@ -0,0 +1,139 @@
+package com.skypath.index;
+
+import com.skypath.model.Airport;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Prefix index for airport autocomplete.
+ *
+ * Every airport contributes its code, its full city and name, and each word of
+ * them as lowercase, accent-free terms. The terms live in one sorted array, so
+ * a lookup is a binary search for the first term at or after the prefix and a
+ * scan over the matching run. Matches rank exact code first, then code prefix,
+ * then by flight volume.
+ */
+public final class AirportSuggestIndex {
+
+    public static final AirportSuggestIndex EMPTY = build(List.of(), code -> 0);
+
+    private static final int CODE_EXACT = 0;
+    private static final int CODE_PREFIX = 1;
+    private static final int TEXT_PREFIX = 2;
+
+    private final Airport[] airports;
+    private final int[] volumes;
+    private final String[] terms;
+    // Parallel to terms: airport index, or -1 - index for the airport's code term
+    private final int[] owners;
+
+    private AirportSuggestIndex(Airport[] airports, int[] volumes, String[] terms, int[] owners) {
+        this.airports = airports;
+        this.volumes = volumes;
+        this.terms = terms;
+        this.owners = owners;
+    }
+
+    /**
+     * @param volume flight volume per airport code, used for ranking
+     */
+    public static AirportSuggestIndex build(Collection<Airport> airportList, ToIntFunction<String> volume) {
+        Airport[] airports = airportList.toArray(new Airport[0]);
+        int[] volumes = new int[airports.length];
+
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+        for (int i = 0; i < airports.length; i++) {
+            Airport airport = airports[i];
+            volumes[i] = volume.applyAsInt(airport.code());
+            entries.add(Map.entry(normalize(airport.code()), -1 - i));
+
+            Set<String> text = new LinkedHashSet<>();
+            for (String field : new String[]{airport.city(), airport.name()}) {
+                if (field == null) {
+                    continue;
+                }
+                String normalized = normalize(field);
+                text.add(normalized);
+                text.addAll(Arrays.asList(normalized.split("[^a-z0-9]+")));
+            }
+            text.remove("");
+            for (String term : text) {
+                entries.add(Map.entry(term, i));
+            }
+        }
+        entries.sort(Map.Entry.comparingByKey());
+
+        String[] terms = new String[entries.size()];
+        int[] owners = new int[entries.size()];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = entries.get(i).getKey();
+            owners[i] = entries.get(i).getValue();
+        }
+        return new AirportSuggestIndex(airports, volumes, terms, owners);
+    }
+
+    public int size() {
+        return airports.length;
+    }
+
+    /**
+     * Airports with a code, city, name or word in them starting with the query,
+     * best first, at most {@code limit}.
+     */
+    public List<Airport> suggest(String query, int limit) {
+        String prefix = normalize(query.trim());
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        // Best match kind per airport
+        Map<Integer, Integer> kinds = new HashMap<>();
+        for (int i = lowerBound(prefix); i < terms.length && terms[i].startsWith(prefix); i++) {
+            int owner = owners[i];
+            int airport;
+            int kind;
+            if (owner < 0) {
+                airport = -1 - owner;
+                kind = terms[i].length() == prefix.length() ? CODE_EXACT : CODE_PREFIX;
+            } else {
+                airport = owner;
+                kind = TEXT_PREFIX;
+            }
+            kinds.merge(airport, kind, Math::min);
+        }
+
+        List<Integer> matches = new ArrayList<>(kinds.keySet());
+        matches.sort(Comparator.<Integer>comparingInt(kinds::get)
+                .thenComparingInt(a -> -volumes[a])
+                .thenComparing(a -> airports[a].code()));
+
+        List<Airport> result = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            result.add(airports[matches.get(i)]);
+        }
+        return result;
+    }
+
+    private int lowerBound(String prefix) {
+        int lo = 0;
+        int hi = terms.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (terms[mid].compareTo(prefix) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Lowercase without accents, so a query matches however its accents were typed
+    private static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,136 @@
+package com.skypath.index;
+
+/**
+ * Precomputed flight-to-flight adjacency.
+ *
+ * For every flight, stores the slice of the hub's departure-sorted bucket that
+ * holds its valid onward flights, as three row numbers:
+ * <ul>
+ *   <li>{@code start} - first departure meeting the least minimum connection at the hub for this arrival</li>
+ *   <li>{@code sure} - first departure meeting the greatest one (valid for any flight)</li>
+ *   <li>{@code end} - exclusive end of the maximum layover window</li>
+ * </ul>
+ * Rows in {@code [start, sure)} are valid only if they meet the minimum for their
+ * direction and carrier pair, one {@link ConnectionTable} lookup each; with the
+ * default rules they only exist for domestic arrivals. Search therefore walks int
+ * ranges with no rule matching.
+ */
+public final class ConnectionIndex {
+
+    private static final int START = 0;
+    private static final int SURE = 1;
+    private static final int END = 2;
+    private static final int STRIDE = 3;
+
+    // Indexed by origin airport id, STRIDE ints per row of that origin's bucket
+    private final int[][] windows;
+    private final long entries;
+    private final long buildNanos;
+
+    private ConnectionIndex(int[][] windows, long entries, long buildNanos) {
+        this.windows = windows;
+        this.entries = entries;
+        this.buildNanos = buildNanos;
+    }
+
+    static ConnectionIndex build(FlightBucket[] buckets, ConnectionTable rules) {
+        long started = System.nanoTime();
+        int[][] windows = new int[buckets.length][];
+        long entries = 0;
+
+        for (int airport = 0; airport < buckets.length; airport++) {
+            windows[airport] = computeWindows(buckets, rules, buckets[airport]);
+            entries += buckets[airport].size();
+        }
+
+        return new ConnectionIndex(windows, entries, System.nanoTime() - started);
+    }
+
+    /**
+     * Copy-on-write update after the buckets of {@code touched} airports changed:
+     * their own windows are rebuilt, and flights arriving into them from other
+     * origins get fresh windows because the rows they point into have moved.
+     * Everything else is shared with this index.
+     */
+    ConnectionIndex patch(FlightBucket[] buckets, ConnectionTable rules, int[] touched, int[][] inboundOrigins) {
+        long started = System.nanoTime();
+        int[][] patched = windows.clone();
+        boolean[] isTouched = new boolean[buckets.length];
+        for (int airport : touched) {
+            isTouched[airport] = true;
+            patched[airport] = computeWindows(buckets, rules, buckets[airport]);
+        }
+
+        for (int airport : touched) {
+            for (int origin : inboundOrigins[airport]) {
+                if (isTouched[origin] || patched[origin] != windows[origin]) {
+                    continue;
+                }
+                FlightBucket bucket = buckets[origin];
+                int[] rows = patched[origin].clone();
+                for (int row = 0; row < bucket.size(); row++) {
+                    if (isTouched[bucket.destination(row)]) {
+                        computeWindow(buckets, rules, bucket, row, rows);
+                    }
+                }
+                patched[origin] = rows;
+            }
+        }
+
+        long entries = 0;
+        for (FlightBucket bucket : buckets) {
+            entries += bucket.size();
+        }
+        return new ConnectionIndex(patched, entries, System.nanoTime() - started);
+    }
+
+    static int[] computeWindows(FlightBucket[] buckets, ConnectionTable rules, FlightBucket bucket) {
+        int[] rows = new int[bucket.size() * STRIDE];
+        for (int row = 0; row < bucket.size(); row++) {
+            computeWindow(buckets, rules, bucket, row, rows);
+        }
+        return rows;
+    }
+
+    private static void computeWindow(FlightBucket[] buckets, ConnectionTable rules, FlightBucket bucket, int row,
+                                      int[] rows) {
+        int hubId = bucket.destination(row);
+        FlightBucket hub = buckets[hubId];
+        long arrival = bucket.arrival(row);
+        boolean domestic = bucket.isDomestic(row);
+        int base = row * STRIDE;
+        rows[base + START] = hub.firstDepartureAtOrAfter(arrival + rules.earliestSeconds(hubId, domestic));
+        rows[base + SURE] = hub.firstDepartureAtOrAfter(arrival + rules.latestSeconds(hubId, domestic));
+        rows[base + END] = hub.firstDepartureAtOrAfter(
+                ConnectionRules.latestDepartureExclusive(arrival));
+    }
+
+    public int start(int airport, int row) {
+        return windows[airport][row * STRIDE + START];
+    }
+
+    public int sure(int airport, int row) {
+        return windows[airport][row * STRIDE + SURE];
+    }
+
+    public int end(int airport, int row) {
+        return windows[airport][row * STRIDE + END];
+    }
+
+    public long entries() {
+        return entries;
+    }
+
+    // Windows of one origin's flights; shared between versions while that origin is untouched
+    int[] windows(int airport) {
+        return windows[airport];
+    }
+
+    public long memoryBytes() {
+        return entries * STRIDE * Integer.BYTES + (long) windows.length * 16L;
+    }
+
+    public long buildNanos() {
+        return buildNanos;
+    }
+}
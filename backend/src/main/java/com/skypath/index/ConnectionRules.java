@@ -0,0 +1,134 @@
+package com.skypath.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Layover rules applied when chaining two flights at a hub: minimum connection
+ * times (MCT) and one maximum layover.
+ *
+ * A rule gives the minimum time from landing at an airport to taking off again,
+ * for a direction (whether the arriving and departing flights are each domestic,
+ * i.e. stay within one country) and a carrier pair (both flights on one airline,
+ * or interline). Airport, direction and carrier pair may each be left open. When
+ * several rules match a connection the most specific wins: an airport outranks a
+ * direction, which outranks a carrier pair; of two rules with the same keys, the
+ * later one. The defaults, 45 minutes domestic-to-domestic and 90 otherwise, only
+ * apply where no configured rule does.
+ *
+ * Rules are only matched when a network is compiled; searches look connections
+ * up in the resulting {@link ConnectionTable}.
+ */
+public final class ConnectionRules {
+
+    public static final int MIN_LAYOVER_DOMESTIC_MINUTES = 45;
+    public static final int MIN_LAYOVER_INTERNATIONAL_MINUTES = 90;
+    public static final int MAX_LAYOVER_MINUTES = 360;
+
+    /** Arriving then departing flight, each Domestic or International. */
+    public enum Direction {
+        DD, DI, ID, II;
+
+        public static Direction of(boolean arrivingDomestic, boolean departingDomestic) {
+            return values()[(arrivingDomestic ? 0 : 2) + (departingDomestic ? 0 : 1)];
+        }
+    }
+
+    /** Both flights on one airline, or on two. */
+    public enum Carriers { ONLINE, INTERLINE }
+
+    /**
+     * Minimum connection at {@code airport} for the direction and carrier pair;
+     * a null key matches any.
+     */
+    public record Rule(String airport, Direction direction, Carriers carriers, int minutes) {
+
+        public Rule {
+            if (minutes < 0 || minutes > MAX_LAYOVER_MINUTES) {
+                throw new IllegalArgumentException(
+                        "Minimum connection must be between 0 and " + MAX_LAYOVER_MINUTES + " minutes.");
+            }
+        }
+
+        /**
+         * Parses AIRPORT:DIRECTION:CARRIERS:MINUTES, with * for any key, e.g.
+         * {@code ORD:ID:*:120} or {@code *:*:INTERLINE:60}.
+         */
+        public static Rule parse(String spec) {
+            String[] parts = spec.trim().split(":");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Expected AIRPORT:DIRECTION:CARRIERS:MINUTES, got '" + spec + "'.");
+            }
+            try {
+                String airport = any(parts[0]) ? null : parts[0].trim().toUpperCase(Locale.ROOT);
+                Direction direction = any(parts[1]) ? null
+                        : Direction.valueOf(parts[1].trim().toUpperCase(Locale.ROOT));
+                Carriers carriers = any(parts[2]) ? null
+                        : Carriers.valueOf(parts[2].trim().toUpperCase(Locale.ROOT));
+                return new Rule(airport, direction, carriers, Integer.parseInt(parts[3].trim()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid connection rule '" + spec + "': " + e.getMessage(), e);
+            }
+        }
+
+        private static boolean any(String key) {
+            return key.isBlank() || key.trim().equals("*");
+        }
+
+        // Higher wins: an airport outranks a direction, which outranks a carrier pair
+        int specificity() {
+            return (airport != null ? 4 : 0) + (direction != null ? 2 : 0) + (carriers != null ? 1 : 0);
+        }
+    }
+
+    public static final ConnectionRules DEFAULT = of(List.of());
+
+    // Defaults, then configured rules least specific first; later entries override
+    private final List<Rule> rules;
+
+    private ConnectionRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    public static ConnectionRules of(List<Rule> configured) {
+        List<Rule> ordered = new ArrayList<>(configured);
+        // Stable, so rules with the same keys keep their order and the later one wins
+        ordered.sort(Comparator.comparingInt(Rule::specificity));
+        List<Rule> rules = new ArrayList<>();
+        rules.add(new Rule(null, null, null, MIN_LAYOVER_INTERNATIONAL_MINUTES));
+        rules.add(new Rule(null, Direction.DD, null, MIN_LAYOVER_DOMESTIC_MINUTES));
+        rules.addAll(ordered);
+        return new ConnectionRules(List.copyOf(rules));
+    }
+
+    // In precedence order, lowest first
+    public List<Rule> rules() {
+        return rules;
+    }
+
+    // Number of configured rules, the two defaults excluded
+    public int configuredCount() {
+        return rules.size() - 2;
+    }
+
+    /**
+     * The least minimum connection any rule allows at the airport; a lower bound for
+     * fetching the departures that could follow an arrival there.
+     */
+    public int minMinutes(String airport) {
+        int min = Integer.MAX_VALUE;
+        for (Rule rule : rules) {
+            if (rule.airport() == null || rule.airport().equals(airport)) {
+                min = Math.min(min, rule.minutes());
+            }
+        }
+        return min;
+    }
+
+    // Exclusive bound: layovers are compared in whole minutes, so 360m59s still counts as 360
+    public static long latestDepartureExclusive(long arrival) {
+        return arrival + (MAX_LAYOVER_MINUTES + 1) * 60L;
+    }
+}
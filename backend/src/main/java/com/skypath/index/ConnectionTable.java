@@ -0,0 +1,114 @@
+package com.skypath.index;
+
+import com.skypath.index.ConnectionRules.Carriers;
+import com.skypath.index.ConnectionRules.Direction;
+import com.skypath.index.ConnectionRules.Rule;
+import com.skypath.model.Airport;
+
+import java.util.Map;
+
+/**
+ * {@link ConnectionRules} compiled against a network's airport ids: the minimum
+ * connection of every (airport, direction, carrier pair) in one flat array, so
+ * checking a connection is an index computation and a load, with no rule matching.
+ *
+ * Per airport and arriving direction it also keeps the least and the greatest of
+ * those minimums, which bound the connection windows (see {@link ConnectionIndex}).
+ * Airports are fixed for a network's lifetime, so patched versions share the table.
+ */
+public final class ConnectionTable {
+
+    private static final int CARRIERS = Carriers.values().length;
+    private static final int CELLS = Direction.values().length * CARRIERS;
+
+    // [airport][direction][carriers], in seconds
+    private final int[] minSeconds;
+    // [airport][arriving domestic ? 0 : 1], over every departing direction and carrier pair
+    private final int[] earliestSeconds;
+    private final int[] latestSeconds;
+
+    private ConnectionTable(int[] minSeconds, int[] earliestSeconds, int[] latestSeconds) {
+        this.minSeconds = minSeconds;
+        this.earliestSeconds = earliestSeconds;
+        this.latestSeconds = latestSeconds;
+    }
+
+    // Paints every rule over the cells it matches, least specific first; rules for unknown airports are skipped
+    static ConnectionTable compile(ConnectionRules rules, Airport[] airports, Map<String, Integer> ids) {
+        int[] minSeconds = new int[airports.length * CELLS];
+        for (Rule rule : rules.rules()) {
+            int from = 0;
+            int to = airports.length;
+            if (rule.airport() != null) {
+                Integer id = ids.get(rule.airport());
+                if (id == null) {
+                    continue;
+                }
+                from = id;
+                to = id + 1;
+            }
+            for (int airport = from; airport < to; airport++) {
+                for (Direction direction : Direction.values()) {
+                    if (rule.direction() != null && rule.direction() != direction) {
+                        continue;
+                    }
+                    for (Carriers carriers : Carriers.values()) {
+                        if (rule.carriers() == null || rule.carriers() == carriers) {
+                            minSeconds[cell(airport, direction, carriers)] = rule.minutes() * 60;
+                        }
+                    }
+                }
+            }
+        }
+
+        int[] earliest = new int[airports.length * 2];
+        int[] latest = new int[airports.length * 2];
+        for (int airport = 0; airport < airports.length; airport++) {
+            for (int arriving = 0; arriving < 2; arriving++) {
+                int least = Integer.MAX_VALUE;
+                int most = 0;
+                for (int departing = 0; departing < 2; departing++) {
+                    Direction direction = Direction.of(arriving == 0, departing == 0);
+                    for (Carriers carriers : Carriers.values()) {
+                        int seconds = minSeconds[cell(airport, direction, carriers)];
+                        least = Math.min(least, seconds);
+                        most = Math.max(most, seconds);
+                    }
+                }
+                earliest[airport * 2 + arriving] = least;
+                latest[airport * 2 + arriving] = most;
+            }
+        }
+        return new ConnectionTable(minSeconds, earliest, latest);
+    }
+
+    private static int cell(int airport, Direction direction, Carriers carriers) {
+        return airport * CELLS + direction.ordinal() * CARRIERS + carriers.ordinal();
+    }
+
+    // Minimum connection at the airport between flights of this direction and carrier pair
+    public int minSeconds(int airport, boolean arrivingDomestic, boolean departingDomestic, boolean online) {
+        return minSeconds[airport * CELLS
+                + ((arrivingDomestic ? 0 : 2) + (departingDomestic ? 0 : 1)) * CARRIERS
+                + (online ? 0 : 1)];
+    }
+
+    // Least minimum connection after arriving at the airport, whatever flight follows
+    public int earliestSeconds(int airport, boolean arrivingDomestic) {
+        return earliestSeconds[airport * 2 + (arrivingDomestic ? 0 : 1)];
+    }
+
+    // Greatest minimum connection after arriving at the airport: any flight this late is valid
+    public int latestSeconds(int airport, boolean arrivingDomestic) {
+        return latestSeconds[airport * 2 + (arrivingDomestic ? 0 : 1)];
+    }
+
+    // Least minimum connection of any kind at the airport
+    public int minSeconds(int airport) {
+        return Math.min(earliestSeconds[airport * 2], earliestSeconds[airport * 2 + 1]);
+    }
+
+    public long memoryBytes() {
+        return (long) (minSeconds.length + earliestSeconds.length + latestSeconds.length) * Integer.BYTES;
+    }
+}
@@ -0,0 +1,184 @@
+package com.skypath.index;
+
+import com.skypath.model.Flight;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * All flights leaving one airport, sorted by departure instant.
+ *
+ * Times are stored as UTC epoch seconds so layover math is plain subtraction,
+ * and because every row shares the origin's timezone, any local-date range is
+ * a contiguous slice of the bucket.
+ */
+public final class FlightBucket {
+
+    static final FlightBucket EMPTY = new FlightBucket(
+            new Flight[0], new long[0], new long[0], new int[0], new boolean[0]);
+
+    private final Flight[] flights;
+    private final long[] departures;
+    private final long[] arrivals;
+    private final int[] destinations;
+    private final boolean[] domestic;
+    // Airlines, interned so that comparing two is a reference check
+    private final String[] carriers;
+    private final int[] destinationAirports;
+    // Shortest flight and lowest fare to each of destinationAirports, for LowerBounds
+    private final long[] routeMinSeconds;
+    private final double[] routeMinFares;
+    private final List<Flight> view;
+
+    FlightBucket(Flight[] flights, long[] departures, long[] arrivals,
+                 int[] destinations, boolean[] domestic) {
+        this.flights = flights;
+        this.departures = departures;
+        this.arrivals = arrivals;
+        this.destinations = destinations;
+        this.domestic = domestic;
+        this.carriers = new String[flights.length];
+        for (int row = 0; row < flights.length; row++) {
+            String airline = flights[row].airline();
+            carriers[row] = airline == null ? "" : airline.intern();
+        }
+        this.destinationAirports = Arrays.stream(destinations).distinct().sorted().toArray();
+        this.routeMinSeconds = new long[destinationAirports.length];
+        this.routeMinFares = new double[destinationAirports.length];
+        Arrays.fill(routeMinSeconds, Long.MAX_VALUE);
+        Arrays.fill(routeMinFares, Double.POSITIVE_INFINITY);
+        for (int row = 0; row < flights.length; row++) {
+            int route = Arrays.binarySearch(destinationAirports, destinations[row]);
+            routeMinSeconds[route] = Math.min(routeMinSeconds[route], arrivals[row] - departures[row]);
+            routeMinFares[route] = Math.min(routeMinFares[route], flights[row].price());
+        }
+        this.view = Collections.unmodifiableList(Arrays.asList(flights));
+    }
+
+    // Copy of this bucket with the given row removed
+    FlightBucket without(int row) {
+        return new FlightBucket(
+                remove(flights, row, new Flight[flights.length - 1]),
+                remove(departures, row, new long[departures.length - 1]),
+                remove(arrivals, row, new long[arrivals.length - 1]),
+                remove(destinations, row, new int[destinations.length - 1]),
+                remove(domestic, row, new boolean[domestic.length - 1]));
+    }
+
+    // Copy of this bucket with a flight inserted at its departure position
+    FlightBucket with(Flight flight, long departure, long arrival, int destination, boolean isDomestic) {
+        int row = firstDepartureAtOrAfter(departure + 1);
+        Flight[] newFlights = insert(flights, row, new Flight[flights.length + 1]);
+        long[] newDepartures = insert(departures, row, new long[departures.length + 1]);
+        long[] newArrivals = insert(arrivals, row, new long[arrivals.length + 1]);
+        int[] newDestinations = insert(destinations, row, new int[destinations.length + 1]);
+        boolean[] newDomestic = insert(domestic, row, new boolean[domestic.length + 1]);
+        // Fill the row before constructing: the constructor derives carriers and route minima from it
+        newFlights[row] = flight;
+        newDepartures[row] = departure;
+        newArrivals[row] = arrival;
+        newDestinations[row] = destination;
+        newDomestic[row] = isDomestic;
+        return new FlightBucket(newFlights, newDepartures, newArrivals, newDestinations, newDomestic);
+    }
+
+    private static <T> T remove(Object source, int row, T target) {
+        int length = Array.getLength(source);
+        System.arraycopy(source, 0, target, 0, row);
+        System.arraycopy(source, row + 1, target, row, length - row - 1);
+        return target;
+    }
+
+    private static <T> T insert(Object source, int row, T target) {
+        int length = Array.getLength(source);
+        System.arraycopy(source, 0, target, 0, row);
+        System.arraycopy(source, row, target, row + 1, length - row);
+        return target;
+    }
+
+    public int size() {
+        return flights.length;
+    }
+
+    public Flight flight(int row) {
+        return flights[row];
+    }
+
+    public long departure(int row) {
+        return departures[row];
+    }
+
+    public long arrival(int row) {
+        return arrivals[row];
+    }
+
+    public int destination(int row) {
+        return destinations[row];
+    }
+
+    // True if the flight's origin and destination are in the same country
+    public boolean isDomestic(int row) {
+        return domestic[row];
+    }
+
+    // True if the flight at row and the one at otherRow of other are on the same airline
+    public boolean sameCarrier(int row, FlightBucket other, int otherRow) {
+        return carriers[row] == other.carriers[otherRow];
+    }
+
+    // Row holding the flight with this number departing at the given instant, or -1
+    public int rowOf(String flightNumber, long departure) {
+        for (int row = firstDepartureAtOrAfter(departure); row < departures.length
+                && departures[row] == departure; row++) {
+            if (flights[row].flightNumber().equals(flightNumber)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    // Distinct airport ids served from this bucket, ascending
+    public int[] destinationAirports() {
+        return destinationAirports;
+    }
+
+    // Shortest flight time to destinationAirports()[route], in seconds
+    public long routeMinSeconds(int route) {
+        return routeMinSeconds[route];
+    }
+
+    // Lowest fare to destinationAirports()[route]
+    public double routeMinFare(int route) {
+        return routeMinFares[route];
+    }
+
+    public List<Flight> flights() {
+        return view;
+    }
+
+    public List<Flight> flights(int fromRow, int toRow) {
+        return view.subList(fromRow, toRow);
+    }
+
+    // First row departing at or after the given instant (size() if none)
+    public int firstDepartureAtOrAfter(long epochSecond) {
+        int lo = 0;
+        int hi = departures.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (departures[mid] < epochSecond) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    long memoryBytes() {
+        // two reference columns + two long columns + int column + boolean column, plus the per-route minima
+        return flights.length * (8L + 8L + 8L + 8L + 4L + 1L) + destinationAirports.length * (4L + 8L + 8L);
+    }
+}
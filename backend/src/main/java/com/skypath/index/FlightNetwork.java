@@ -0,0 +1,436 @@
+package com.skypath.index;
+
+import com.skypath.model.Airport;
+import com.skypath.model.Flight;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Immutable, search-ready snapshot of a flight dataset.
+ *
+ * Airports get dense int ids (in dataset order) and each origin's flights live
+ * in a {@link FlightBucket}. Layover rules are compiled into a
+ * {@link ConnectionTable} over the airport ids. The optional
+ * {@link ConnectionIndex} caches the onward-flight window of every flight;
+ * without it the window is found by binary search over the hub's bucket.
+ */
+public final class FlightNetwork {
+
+    // Cached LowerBounds per network: each holds a few arrays of airportCount() entries
+    private static final int MAX_LOWER_BOUNDS = 64;
+
+    public static final FlightNetwork EMPTY = new FlightNetwork(
+            0, new Airport[0], new ZoneId[0], Collections.emptyMap(), new FlightBucket[0], new int[0][],
+            ConnectionTable.compile(ConnectionRules.DEFAULT, new Airport[0], Collections.emptyMap()), null);
+
+    private final long version;
+    private final Airport[] airports;
+    private final ZoneId[] zones;
+    private final Map<String, Integer> airportIds;
+    private final FlightBucket[] buckets;
+    // For each airport, the origins with at least one flight into it (may include stale entries)
+    private final int[][] inboundOrigins;
+    private final ConnectionTable connectionTable;
+    private final ConnectionIndex connections;
+    // Per destination set and leg limit, computed on first use and least recently used
+    // first out; not carried over to later versions
+    private final Map<String, LowerBounds> lowerBounds = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LowerBounds> eldest) {
+            return size() > MAX_LOWER_BOUNDS;
+        }
+    };
+
+    private FlightNetwork(long version, Airport[] airports, ZoneId[] zones, Map<String, Integer> airportIds,
+                          FlightBucket[] buckets, int[][] inboundOrigins, ConnectionTable connectionTable,
+                          ConnectionIndex connections) {
+        this.version = version;
+        this.airports = airports;
+        this.zones = zones;
+        this.airportIds = airportIds;
+        this.buckets = buckets;
+        this.inboundOrigins = inboundOrigins;
+        this.connectionTable = connectionTable;
+        this.connections = connections;
+    }
+
+    /**
+     * Compiles a dataset under the default layover rules.
+     */
+    public static FlightNetwork compile(long version, Collection<Airport> airports, Collection<Flight> flights,
+                                        boolean indexConnections) {
+        return compile(version, airports, flights, ConnectionRules.DEFAULT, indexConnections);
+    }
+
+    /**
+     * Compiles a dataset. Flights referencing unknown airports are dropped, and so
+     * are layover rules for them.
+     */
+    public static FlightNetwork compile(long version, Collection<Airport> airports, Collection<Flight> flights,
+                                        ConnectionRules rules, boolean indexConnections) {
+        Airport[] airportTable = airports.toArray(new Airport[0]);
+        ZoneId[] zones = new ZoneId[airportTable.length];
+        Map<String, Integer> ids = new HashMap<>();
+        for (int id = 0; id < airportTable.length; id++) {
+            zones[id] = ZoneId.of(airportTable[id].timezone());
+            ids.put(airportTable[id].code(), id);
+        }
+
+        List<List<Flight>> byOrigin = new ArrayList<>(airportTable.length);
+        for (int id = 0; id < airportTable.length; id++) {
+            byOrigin.add(new ArrayList<>());
+        }
+        for (Flight f : flights) {
+            Integer origin = ids.get(f.origin());
+            if (origin != null && ids.containsKey(f.destination())) {
+                byOrigin.get(origin).add(f);
+            }
+        }
+
+        FlightBucket[] buckets = new FlightBucket[airportTable.length];
+        for (int id = 0; id < airportTable.length; id++) {
+            buckets[id] = buildBucket(byOrigin.get(id), airportTable, zones, ids);
+        }
+
+        ConnectionTable table = ConnectionTable.compile(rules, airportTable, ids);
+        ConnectionIndex connections = indexConnections ? ConnectionIndex.build(buckets, table) : null;
+        return new FlightNetwork(version, airportTable, zones, Collections.unmodifiableMap(ids), buckets,
+                computeInboundOrigins(buckets), table, connections);
+    }
+
+    /**
+     * Returns a new version with the given flights removed and added. Only the
+     * touched origin buckets are copied; every other bucket, and the connection
+     * windows of flights that cannot reach a touched bucket, are shared with this
+     * network. Removed flights must be present; both lists must only reference
+     * known airports.
+     */
+    public FlightNetwork withChanges(long version, List<Flight> removed, List<Flight> added) {
+        FlightBucket[] patched = buckets.clone();
+        int[][] inbound = inboundOrigins.clone();
+        Set<Integer> touched = new LinkedHashSet<>();
+
+        for (Flight f : removed) {
+            int origin = requireAirport(f.origin());
+            long departure = f.departureTime().atZone(zones[origin]).toEpochSecond();
+            int row = patched[origin].rowOf(f.flightNumber(), departure);
+            if (row < 0) {
+                throw new IllegalArgumentException("Flight " + f.flightNumber() + " is not in the network.");
+            }
+            patched[origin] = patched[origin].without(row);
+            touched.add(origin);
+        }
+
+        for (Flight f : added) {
+            int origin = requireAirport(f.origin());
+            int destination = requireAirport(f.destination());
+            patched[origin] = patched[origin].with(f,
+                    f.departureTime().atZone(zones[origin]).toEpochSecond(),
+                    f.arrivalTime().atZone(zones[destination]).toEpochSecond(),
+                    destination,
+                    airports[origin].country().equals(airports[destination].country()));
+            if (Arrays.stream(inbound[destination]).noneMatch(o -> o == origin)) {
+                int[] origins = Arrays.copyOf(inbound[destination], inbound[destination].length + 1);
+                origins[origins.length - 1] = origin;
+                inbound[destination] = origins;
+            }
+            touched.add(origin);
+        }
+
+        int[] touchedIds = touched.stream().mapToInt(Integer::intValue).toArray();
+        ConnectionIndex patchedConnections = connections == null
+                ? null
+                : connections.patch(patched, connectionTable, touchedIds, inbound);
+        return new FlightNetwork(version, airports, zones, airportIds, patched, inbound, connectionTable,
+                patchedConnections);
+    }
+
+    private int requireAirport(String code) {
+        int id = airportId(code);
+        if (id < 0) {
+            throw new IllegalArgumentException("Airport '" + code + "' is not in the network.");
+        }
+        return id;
+    }
+
+    private static int[][] computeInboundOrigins(FlightBucket[] buckets) {
+        List<List<Integer>> inbound = new ArrayList<>(buckets.length);
+        for (int id = 0; id < buckets.length; id++) {
+            inbound.add(new ArrayList<>());
+        }
+        for (int origin = 0; origin < buckets.length; origin++) {
+            for (int destination : buckets[origin].destinationAirports()) {
+                inbound.get(destination).add(origin);
+            }
+        }
+        int[][] table = new int[buckets.length][];
+        for (int id = 0; id < buckets.length; id++) {
+            table[id] = inbound.get(id).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return table;
+    }
+
+    /**
+     * Assembles a network from already fetched per-origin flights; the entry for
+     * {@code origin} is taken as the first legs.
+     */
+    public static FlightNetwork assemble(String origin, Map<String, List<Flight>> flightsByOrigin,
+                                         Function<String, Airport> airportLookup, ConnectionRules rules) {
+        Map<String, Airport> airports = new LinkedHashMap<>();
+        List<Flight> flights = new ArrayList<>();
+        for (List<Flight> departures : flightsByOrigin.values()) {
+            for (Flight f : departures) {
+                airports.computeIfAbsent(f.origin(), airportLookup);
+                airports.computeIfAbsent(f.destination(), airportLookup);
+                flights.add(f);
+            }
+        }
+        airports.computeIfAbsent(origin, airportLookup);
+
+        return compile(0, airports.values(), flights, rules, false);
+    }
+
+    private static FlightBucket buildBucket(List<Flight> flights, Airport[] airports,
+                                            ZoneId[] zones, Map<String, Integer> ids) {
+        if (flights.isEmpty()) {
+            return FlightBucket.EMPTY;
+        }
+
+        int n = flights.size();
+        Flight[] sorted = new Flight[n];
+        long[] departures = new long[n];
+        Integer[] order = new Integer[n];
+        long[] unsortedDepartures = new long[n];
+        for (int i = 0; i < n; i++) {
+            Flight f = flights.get(i);
+            unsortedDepartures[i] = f.departureTime().atZone(zones[ids.get(f.origin())]).toEpochSecond();
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> unsortedDepartures[i]));
+
+        long[] arrivals = new long[n];
+        int[] destinations = new int[n];
+        boolean[] domestic = new boolean[n];
+        for (int row = 0; row < n; row++) {
+            Flight f = flights.get(order[row]);
+            int origin = ids.get(f.origin());
+            int destination = ids.get(f.destination());
+            sorted[row] = f;
+            departures[row] = unsortedDepartures[order[row]];
+            arrivals[row] = f.arrivalTime().atZone(zones[destination]).toEpochSecond();
+            destinations[row] = destination;
+            domestic[row] = airports[origin].country().equals(airports[destination].country());
+        }
+
+        return new FlightBucket(sorted, departures, arrivals, destinations, domestic);
+    }
+
+    // Increases every time the dataset changes; 0 for networks not built from a loaded dataset
+    public long version() {
+        return version;
+    }
+
+    public int airportCount() {
+        return airports.length;
+    }
+
+    // Dense id for an IATA code, or -1 if unknown
+    public int airportId(String code) {
+        Integer id = airportIds.get(code);
+        return id == null ? -1 : id;
+    }
+
+    public Airport airport(int id) {
+        return airports[id];
+    }
+
+    public ZoneId zone(int id) {
+        return zones[id];
+    }
+
+    public FlightBucket bucket(int airport) {
+        return buckets[airport];
+    }
+
+    public int flightCount() {
+        int count = 0;
+        for (FlightBucket bucket : buckets) {
+            count += bucket.size();
+        }
+        return count;
+    }
+
+    // Row range [from, to) of flights leaving the airport on the given local date, packed into a long
+    public long departuresOn(int airport, LocalDate date) {
+        FlightBucket bucket = buckets[airport];
+        int from = bucket.firstDepartureAtOrAfter(date.atStartOfDay(zones[airport]).toEpochSecond());
+        int to = bucket.firstDepartureAtOrAfter(date.plusDays(1).atStartOfDay(zones[airport]).toEpochSecond());
+        return range(from, to);
+    }
+
+    public static long range(int from, int to) {
+        return ((long) from << 32) | to;
+    }
+
+    public static int rangeFrom(long range) {
+        return (int) (range >>> 32);
+    }
+
+    public static int rangeTo(long range) {
+        return (int) range;
+    }
+
+    public int[] inboundOrigins(int airport) {
+        return inboundOrigins[airport];
+    }
+
+    /**
+     * Whether a flight {@code from -> to} could be a leg of some itinerary
+     * {@code origin -> destination} with at most {@code maxLegs} legs, judged on
+     * the airport graph alone. Times are ignored, so this over-approximates.
+     */
+    public boolean couldRoute(String origin, String destination, String from, String to, int maxLegs) {
+        int o = airportId(origin);
+        int d = airportId(destination);
+        int a = airportId(from);
+        int b = airportId(to);
+        if (o < 0 || d < 0 || a < 0 || b < 0) {
+            return false;
+        }
+        for (int before = 0; before < maxLegs; before++) {
+            if (reachableWithin(o, a, before) && reachableWithin(b, d, maxLegs - 1 - before)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean reachableWithin(int from, int to, int legs) {
+        if (from == to) {
+            return true;
+        }
+        if (legs == 0) {
+            return false;
+        }
+        for (int next : buckets[from].destinationAirports()) {
+            if (reachableWithin(next, to, legs - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bounds on the rest of a trip of at most {@code maxLegs} legs to the nearest of
+     * the destination airports; see {@link LowerBounds}. Tables for single destinations
+     * and for whole destination sets are cached per version, recently used ones first.
+     */
+    public LowerBounds lowerBounds(int[] destinations, int maxLegs) {
+        int[] sorted = destinations.clone();
+        Arrays.sort(sorted);
+        String key = maxLegs + ":" + Arrays.toString(sorted);
+        LowerBounds bounds = cachedBounds(key);
+        if (bounds != null) {
+            return bounds;
+        }
+        for (int destination : sorted) {
+            String singleKey = maxLegs + ":[" + destination + "]";
+            LowerBounds single = sorted.length > 1 ? cachedBounds(singleKey) : null;
+            if (single == null) {
+                single = LowerBounds.compute(this, destination, maxLegs);
+                cacheBounds(singleKey, single);
+            }
+            bounds = bounds == null ? single : LowerBounds.min(bounds, single);
+        }
+        if (sorted.length > 1) {
+            cacheBounds(key, bounds);
+        }
+        return bounds;
+    }
+
+    // Computed outside the lock, so two searches may both build a missing table; the later one is kept
+    private LowerBounds cachedBounds(String key) {
+        synchronized (lowerBounds) {
+            return lowerBounds.get(key);
+        }
+    }
+
+    private void cacheBounds(String key, LowerBounds bounds) {
+        synchronized (lowerBounds) {
+            lowerBounds.put(key, bounds);
+        }
+    }
+
+    public ConnectionTable connectionTable() {
+        return connectionTable;
+    }
+
+    public ConnectionIndex connections() {
+        return connections;
+    }
+
+    // --- Onward-flight window for the flight at (airport, row); see ConnectionIndex ---
+
+    public int windowStart(int airport, int row) {
+        if (connections != null) {
+            return connections.start(airport, row);
+        }
+        FlightBucket bucket = buckets[airport];
+        int hub = bucket.destination(row);
+        return buckets[hub].firstDepartureAtOrAfter(
+                bucket.arrival(row) + connectionTable.earliestSeconds(hub, bucket.isDomestic(row)));
+    }
+
+    public int windowSure(int airport, int row) {
+        if (connections != null) {
+            return connections.sure(airport, row);
+        }
+        FlightBucket bucket = buckets[airport];
+        int hub = bucket.destination(row);
+        return buckets[hub].firstDepartureAtOrAfter(
+                bucket.arrival(row) + connectionTable.latestSeconds(hub, bucket.isDomestic(row)));
+    }
+
+    public int windowEnd(int airport, int row) {
+        if (connections != null) {
+            return connections.end(airport, row);
+        }
+        FlightBucket bucket = buckets[airport];
+        return buckets[bucket.destination(row)].firstDepartureAtOrAfter(
+                ConnectionRules.latestDepartureExclusive(bucket.arrival(row)));
+    }
+
+    public long memoryBytes() {
+        long bytes = 0;
+        for (FlightBucket bucket : buckets) {
+            bytes += bucket.memoryBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Bytes of the per-origin tables (buckets and connection windows) and of the
+     * connection rule table not already in {@code seen}, which collects them by
+     * identity. Summed over the versions of one history, this counts each table
+     * shared between versions once.
+     */
+    public long unsharedBytes(Set<Object> seen) {
+        // This version's own reference tables: buckets, inbound origins and connection windows
+        long bytes = (long) buckets.length * 3 * Long.BYTES;
+        if (seen.add(connectionTable)) {
+            bytes += connectionTable.memoryBytes();
+        }
+        for (int airport = 0; airport < buckets.length; airport++) {
+            if (seen.add(buckets[airport])) {
+                bytes += buckets[airport].memoryBytes();
+            }
+            if (connections != null && seen.add(connections.windows(airport))) {
+                bytes += (long) connections.windows(airport).length * Integer.BYTES;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,102 @@
+package com.skypath.index;
+
+import java.util.Arrays;
+
+/**
+ * Admissible bounds on the rest of a trip to a destination: for every airport and
+ * number of legs, the least flying time (with the shortest connection each hub
+ * allows) and the lowest fare of any route there within that many legs. Built from the
+ * per-route minima of the buckets, ignoring departure times, so the real remainder
+ * of a path is never below them; a ranked search cuts a partial path as soon as
+ * its cost so far plus the bound cannot beat the results it already has.
+ *
+ * Computed per destination set on first use and kept by the {@link FlightNetwork}
+ * version it was built from (see {@link FlightNetwork#lowerBounds(int[], int)}).
+ */
+public final class LowerBounds {
+
+    // Stands for unreachable; small enough that adding a few flight times cannot overflow
+    public static final long UNREACHABLE = Long.MAX_VALUE / 4;
+
+    // [legs][airport]
+    private final long[][] seconds;
+    private final double[][] fares;
+    private final ConnectionTable connections;
+
+    private LowerBounds(long[][] seconds, double[][] fares, ConnectionTable connections) {
+        this.seconds = seconds;
+        this.fares = fares;
+        this.connections = connections;
+    }
+
+    // Relaxes every route once per leg count up to maxLegs, backwards from the destination
+    static LowerBounds compute(FlightNetwork network, int destination, int maxLegs) {
+        int airports = network.airportCount();
+        ConnectionTable connections = network.connectionTable();
+        long[][] seconds = new long[maxLegs + 1][airports];
+        double[][] fares = new double[maxLegs + 1][airports];
+        Arrays.fill(seconds[0], UNREACHABLE);
+        Arrays.fill(fares[0], Double.POSITIVE_INFINITY);
+        seconds[0][destination] = 0;
+        fares[0][destination] = 0;
+
+        for (int legs = 1; legs <= maxLegs; legs++) {
+            long[] time = seconds[legs];
+            double[] fare = fares[legs];
+            long[] rest = seconds[legs - 1];
+            double[] restFare = fares[legs - 1];
+            System.arraycopy(rest, 0, time, 0, airports);
+            System.arraycopy(restFare, 0, fare, 0, airports);
+            for (int airport = 0; airport < airports; airport++) {
+                if (airport == destination) {
+                    continue;
+                }
+                FlightBucket bucket = network.bucket(airport);
+                int[] routes = bucket.destinationAirports();
+                for (int route = 0; route < routes.length; route++) {
+                    int next = routes[route];
+                    if (rest[next] >= UNREACHABLE) {
+                        continue;
+                    }
+                    long connection = next == destination ? 0 : connections.minSeconds(next);
+                    time[airport] = Math.min(time[airport], bucket.routeMinSeconds(route) + connection + rest[next]);
+                    fare[airport] = Math.min(fare[airport], bucket.routeMinFare(route) + restFare[next]);
+                }
+            }
+        }
+        return new LowerBounds(seconds, fares, connections);
+    }
+
+    // Element-wise minimum: the bounds to whichever destination is nearer
+    static LowerBounds min(LowerBounds a, LowerBounds b) {
+        long[][] seconds = new long[a.seconds.length][];
+        double[][] fares = new double[a.fares.length][];
+        for (int legs = 0; legs < seconds.length; legs++) {
+            seconds[legs] = new long[a.seconds[legs].length];
+            fares[legs] = new double[a.fares[legs].length];
+            for (int airport = 0; airport < seconds[legs].length; airport++) {
+                seconds[legs][airport] = Math.min(a.seconds[legs][airport], b.seconds[legs][airport]);
+                fares[legs][airport] = Math.min(a.fares[legs][airport], b.fares[legs][airport]);
+            }
+        }
+        return new LowerBounds(seconds, fares, a.connections);
+    }
+
+    /**
+     * Least time from departing {@code airport} to landing at the destination in at
+     * most {@code legs} legs, connections included; {@link #UNREACHABLE} if none.
+     */
+    public long remainingSeconds(int airport, int legs) {
+        return seconds[Math.min(legs, seconds.length - 1)][airport];
+    }
+
+    // Lowest total fare from the airport to the destination in at most legs legs; infinite if none
+    public double remainingFare(int airport, int legs) {
+        return fares[Math.min(legs, fares.length - 1)][airport];
+    }
+
+    // Shortest the airport allows between landing and the next departure
+    public long minConnectionSeconds(int airport) {
+        return connections.minSeconds(airport);
+    }
+}
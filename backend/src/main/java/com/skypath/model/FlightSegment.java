@@ -1,5 +1,9 @@
 package com.skypath.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Fields left out of a summary view are null and not serialized
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record FlightSegment(
         String flightNumber,
         String airline,
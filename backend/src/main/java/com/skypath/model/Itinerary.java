@@ -1,7 +1,11 @@
 package com.skypath.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
+// Fields left out of a summary view are null and not serialized
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record Itinerary(
         List<FlightSegment> segments,
         List<Layover> layovers,
@@ -0,0 +1,11 @@
+package com.skypath.model;
+
+import java.util.List;
+
+public record Trip(
+        List<Itinerary> legs,
+        // Sum over the legs; time spent at the destination between legs is not counted
+        long totalDurationMinutes,
+        double totalPrice
+) {
+}
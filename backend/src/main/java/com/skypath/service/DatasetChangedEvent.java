@@ -0,0 +1,25 @@
+package com.skypath.service;
+
+import com.skypath.model.Flight;
+
+import java.util.List;
+
+/**
+ * Published by {@link FlightDataService} whenever a new dataset version becomes current.
+ * For incremental changes, {@code changedFlights} holds both the old and the new image
+ * of every flight that was added, updated or cancelled.
+ */
+public record DatasetChangedEvent(
+        long version,
+        boolean fullReload,
+        List<Flight> changedFlights
+) {
+
+    public static DatasetChangedEvent reloaded(long version) {
+        return new DatasetChangedEvent(version, true, List.of());
+    }
+
+    public static DatasetChangedEvent incremental(long version, List<Flight> changedFlights) {
+        return new DatasetChangedEvent(version, false, changedFlights);
+    }
+}
@@ -0,0 +1,82 @@
+package com.skypath.service;
+
+import com.skypath.index.FlightNetwork;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The dataset versions kept for time-travel searches, oldest first. Schedule changes
+ * produce each version with {@link FlightNetwork#withChanges}, which shares every
+ * origin bucket and connection window the change did not touch, so the history costs
+ * the changed tables plus one small reference table per version. The newest version
+ * is always kept; older ones go once there are more than {@code maxVersions} or they
+ * were superseded more than {@code maxAge} ago.
+ *
+ * Readers see an immutable list; {@link #add} is called under the data service's lock.
+ */
+public final class DatasetHistory {
+
+    public record Entry(FlightNetwork network, Instant createdAt) {
+    }
+
+    private final int maxVersions;
+    private final Duration maxAge;
+    private volatile List<Entry> entries = List.of();
+
+    DatasetHistory(int maxVersions, Duration maxAge) {
+        this.maxVersions = Math.max(1, maxVersions);
+        this.maxAge = maxAge;
+    }
+
+    void add(FlightNetwork network, Instant now) {
+        List<Entry> next = new ArrayList<>(entries);
+        next.add(new Entry(network, now));
+        int drop = Math.max(0, next.size() - maxVersions);
+        // A version is still needed while its successor is younger than maxAge
+        while (drop < next.size() - 1 && next.get(drop + 1).createdAt().isBefore(now.minus(maxAge))) {
+            drop++;
+        }
+        entries = List.copyOf(next.subList(drop, next.size()));
+    }
+
+    List<Entry> entries() {
+        return entries;
+    }
+
+    // The retained network with this version, or null
+    FlightNetwork version(long version) {
+        for (Entry entry : entries) {
+            if (entry.network().version() == version) {
+                return entry.network();
+            }
+        }
+        return null;
+    }
+
+    // The network that was current at the instant, or null if that is older than the history
+    FlightNetwork asOf(Instant instant) {
+        List<Entry> current = entries;
+        for (int i = current.size() - 1; i >= 0; i--) {
+            if (!current.get(i).createdAt().isAfter(instant)) {
+                return current.get(i).network();
+            }
+        }
+        return null;
+    }
+
+    // Memory held by all retained versions, counting shared tables once
+    long retainedBytes() {
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bytes = 0;
+        for (Entry entry : entries) {
+            bytes += entry.network().unsharedBytes(seen);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,31 @@
+package com.skypath.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One phase of building a dataset version: parsing flights.json, compiling the
+ * network, patching it with schedule changes, or rebuilding the suggest index.
+ */
+@Name("com.skypath.DatasetLoad")
+@Label("Dataset Load")
+@Category({"SkyPath", "Dataset"})
+@Description("A phase of loading or changing the flight dataset")
+@StackTrace(false)
+final class DatasetLoadEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Dataset Version")
+    long version;
+
+    @Label("Airports")
+    int airports;
+
+    @Label("Flights")
+    int flights;
+}
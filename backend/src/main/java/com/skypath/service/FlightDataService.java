@@ -1,6 +1,15 @@
 package com.skypath.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypath.cluster.ShardRouter;
+import com.skypath.dto.ScheduleChange;
+import com.skypath.dto.ShardQuery;
+import com.skypath.exception.ScheduleChangeException;
+import com.skypath.index.AirportSuggestIndex;
+import com.skypath.index.ConnectionIndex;
+import com.skypath.index.ConnectionRules;
+import com.skypath.index.FlightBucket;
+import com.skypath.index.FlightNetwork;
 import com.skypath.model.Airport;
 import com.skypath.model.Flight;
 import com.skypath.model.FlightDataset;
@@ -8,14 +17,21 @@ import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,21 +41,58 @@ public class FlightDataService {
 
     private final ResourceLoader resourceLoader;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher events;
+    private final ShardRouter shardRouter;
 
     @Value("${skypath.data.path:classpath:flights.json}")
     private String dataPath;
 
+    // Datasets above this size skip the connection index (memory grows with flights); 0 disables it
+    @Value("${skypath.index.connections.max-flights:2000000}")
+    private int connectionIndexMaxFlights;
+
+    // Metro codes, e.g. NYC:JFK/LGA/EWR, accepted wherever an airport code is
+    @Value("${skypath.metros:}")
+    private String[] metroSpecs;
+
+    // Minimum connection times, AIRPORT:DIRECTION:CARRIERS:MINUTES; see ConnectionRules
+    @Value("${skypath.connections.rules:}")
+    private String[] connectionRuleSpecs;
+
+    // Dataset versions kept for searches with version= or asOf=; the current one always is
+    @Value("${skypath.history.max-versions:1000}")
+    private int historyMaxVersions;
+
+    @Value("${skypath.history.max-age-minutes:1440}")
+    private long historyMaxAgeMinutes;
+
     private Map<String, Airport> airportMap = Collections.emptyMap();
+    private Map<String, List<String>> metros = Collections.emptyMap();
+    private volatile ConnectionRules connectionRules = ConnectionRules.DEFAULT;
 
-    private Map<String, List<Flight>> flightsByOrigin = Collections.emptyMap();
+    private volatile FlightNetwork network = FlightNetwork.EMPTY;
 
-    public FlightDataService(ResourceLoader resourceLoader, ObjectMapper objectMapper) {
+    private DatasetHistory history;
+
+    // Rebuilt with every dataset version, since ranking follows flight volume
+    private volatile AirportSuggestIndex suggestIndex = AirportSuggestIndex.EMPTY;
+
+    // Current flight per flight number; only written under this service's lock
+    private final Map<String, Flight> flightsByNumber = new ConcurrentHashMap<>();
+
+    public FlightDataService(ResourceLoader resourceLoader, ObjectMapper objectMapper,
+                             ApplicationEventPublisher events, ShardRouter shardRouter) {
         this.resourceLoader = resourceLoader;
         this.objectMapper = objectMapper;
+        this.events = events;
+        this.shardRouter = shardRouter;
     }
 
     @PostConstruct
-    public void loadData() {
+    public synchronized void loadData() {
+        if (history == null) {
+            history = new DatasetHistory(historyMaxVersions, Duration.ofMinutes(historyMaxAgeMinutes));
+        }
         Resource resource = resourceLoader.getResource(dataPath);
         if (!resource.exists()) {
             log.warn("flights.json not found at '{}'. Starting with empty dataset.", dataPath);
@@ -47,38 +100,361 @@ public class FlightDataService {
         }
 
         try (InputStream is = resource.getInputStream()) {
+            DatasetLoadEvent parse = new DatasetLoadEvent();
+            parse.begin();
             FlightDataset dataset = objectMapper.readValue(is, FlightDataset.class);
+            commit(parse, "parse", network.version() + 1, dataset.airports().size(), dataset.flights().size());
 
             airportMap = dataset.airports().stream()
                     .collect(Collectors.toMap(Airport::code, a -> a));
+            metros = parseMetros();
+            connectionRules = parseConnectionRules();
+
+            // In cluster mode every node keeps all airports but only the departures it owns
+            List<Flight> flights = dataset.flights().stream()
+                    .filter(f -> shardRouter.isLocal(f.origin()))
+                    .toList();
 
-            flightsByOrigin = dataset.flights().stream()
-                    .collect(Collectors.groupingBy(Flight::origin));
+            boolean indexConnections = flights.size() <= connectionIndexMaxFlights;
+            DatasetLoadEvent compile = new DatasetLoadEvent();
+            compile.begin();
+            network = FlightNetwork.compile(network.version() + 1,
+                    dataset.airports(), flights, connectionRules, indexConnections);
+            commit(compile, "compile", network.version(), network.airportCount(), network.flightCount());
+            history.add(network, Instant.now());
+            flightsByNumber.clear();
+            flights.forEach(f -> flightsByNumber.put(f.flightNumber(), f));
+            rebuildSuggestIndex();
 
-            log.info("Loaded {} airports and {} flights.", airportMap.size(), dataset.flights().size());
+            log.info("Loaded {} airports and {} flights (dataset version {}).",
+                    airportMap.size(), flights.size(), network.version());
+            if (shardRouter.isEnabled()) {
+                log.info("Shard {} of {}: kept {} of {} flights.", shardRouter.self(),
+                        shardRouter.shardCount(), flights.size(), dataset.flights().size());
+            }
+            logConnectionIndex(flights.size());
+            if (connectionRules.configuredCount() > 0) {
+                log.info("Compiled {} minimum connection rules.", connectionRules.configuredCount());
+            }
+            events.publishEvent(DatasetChangedEvent.reloaded(network.version()));
         } catch (IOException e) {
             log.error("Failed to load flights.json from '{}': {}", dataPath, e.getMessage(), e);
         }
     }
 
+    /**
+     * Applies a batch of schedule changes as one new dataset version, patching
+     * only the origin buckets the changes touch. The batch is validated up front
+     * and applied all-or-nothing.
+     *
+     * @return the new dataset version
+     */
+    public synchronized long applyChanges(List<ScheduleChange> changes) {
+        // Flight number -> flight after the batch (null = cancelled), in change order
+        Map<String, Flight> staged = new LinkedHashMap<>();
+        for (ScheduleChange change : changes) {
+            if (change.type() == null) {
+                throw invalidChange("Every change needs a type (ADD, UPDATE or CANCEL).");
+            }
+            String number = change.type() == ScheduleChange.Type.ADD && change.flight() != null
+                    ? change.flight().flightNumber()
+                    : change.flightNumber();
+            if (number == null || number.isBlank()) {
+                throw invalidChange("Every change needs a flight number.");
+            }
+            Flight existing = staged.containsKey(number) ? staged.get(number) : flightsByNumber.get(number);
+
+            switch (change.type()) {
+                case ADD -> {
+                    if (existing != null) {
+                        throw new ScheduleChangeException("DUPLICATE_FLIGHT",
+                                "Flight '" + number + "' already exists.", HttpStatus.CONFLICT);
+                    }
+                    staged.put(number, validated(change.flight()));
+                }
+                case UPDATE -> staged.put(number, validated(merge(requireFlight(number, existing), change)));
+                case CANCEL -> {
+                    requireFlight(number, existing);
+                    staged.put(number, null);
+                }
+            }
+        }
+
+        List<Flight> removed = new ArrayList<>();
+        List<Flight> added = new ArrayList<>();
+        staged.forEach((number, flight) -> {
+            Flight previous = flightsByNumber.get(number);
+            if (previous != null) {
+                removed.add(previous);
+            }
+            if (flight != null) {
+                added.add(flight);
+            }
+        });
+
+        FlightNetwork current = network;
+        DatasetLoadEvent patch = new DatasetLoadEvent();
+        patch.begin();
+        network = current.withChanges(current.version() + 1, removed, added);
+        commit(patch, "patch", network.version(), network.airportCount(), network.flightCount());
+        history.add(network, Instant.now());
+        // The suggest index only ranks airports by departure count, so it waits for the next full reload
+        staged.forEach((number, flight) -> {
+            if (flight == null) {
+                flightsByNumber.remove(number);
+            } else {
+                flightsByNumber.put(number, flight);
+            }
+        });
+
+        List<Flight> changed = new ArrayList<>(removed);
+        changed.addAll(added);
+        log.info("Applied {} schedule changes (dataset version {}).", changes.size(), network.version());
+        events.publishEvent(DatasetChangedEvent.incremental(network.version(), changed));
+        return network.version();
+    }
+
+    private Flight requireFlight(String number, Flight flight) {
+        if (flight == null) {
+            throw new ScheduleChangeException("UNKNOWN_FLIGHT",
+                    "Flight '" + number + "' not found in the dataset.", HttpStatus.NOT_FOUND);
+        }
+        return flight;
+    }
+
+    private Flight merge(Flight flight, ScheduleChange change) {
+        return new Flight(
+                flight.flightNumber(),
+                flight.airline(),
+                flight.origin(),
+                flight.destination(),
+                change.departureTime() != null ? change.departureTime() : flight.departureTime(),
+                change.arrivalTime() != null ? change.arrivalTime() : flight.arrivalTime(),
+                change.price() != null ? change.price() : flight.price(),
+                change.aircraft() != null ? change.aircraft() : flight.aircraft()
+        );
+    }
+
+    private Flight validated(Flight flight) {
+        if (flight == null || flight.flightNumber() == null || flight.origin() == null
+                || flight.destination() == null || flight.departureTime() == null || flight.arrivalTime() == null) {
+            throw invalidChange("Flights need flightNumber, origin, destination, departureTime and arrivalTime.");
+        }
+        if (!airportExists(flight.origin()) || !airportExists(flight.destination())) {
+            throw invalidChange("Flight '" + flight.flightNumber() + "' references an unknown airport.");
+        }
+        if (flight.origin().equals(flight.destination())) {
+            throw invalidChange("Flight '" + flight.flightNumber() + "' must connect two different airports.");
+        }
+        // Times are local to each end, so compare them as instants
+        ZonedDateTime departure = flight.departureTime()
+                .atZone(ZoneId.of(airportMap.get(flight.origin()).timezone()));
+        ZonedDateTime arrival = flight.arrivalTime()
+                .atZone(ZoneId.of(airportMap.get(flight.destination()).timezone()));
+        if (!arrival.isAfter(departure)) {
+            throw invalidChange("Flight '" + flight.flightNumber() + "' must arrive after it departs.");
+        }
+        if (flight.price() < 0) {
+            throw invalidChange("Flight '" + flight.flightNumber() + "' cannot have a negative price.");
+        }
+        if (!shardRouter.isLocal(flight.origin())) {
+            throw new ScheduleChangeException("WRONG_SHARD", "Flights from '" + flight.origin()
+                    + "' are owned by shard " + shardRouter.owner(flight.origin()) + ".", HttpStatus.CONFLICT);
+        }
+        return flight;
+    }
+
+    private ScheduleChangeException invalidChange(String message) {
+        return new ScheduleChangeException("INVALID_CHANGE", message, HttpStatus.BAD_REQUEST);
+    }
+
+    // Configured layover rules; malformed ones are logged and skipped
+    private ConnectionRules parseConnectionRules() {
+        List<ConnectionRules.Rule> rules = new ArrayList<>();
+        if (connectionRuleSpecs != null) {
+            for (String spec : connectionRuleSpecs) {
+                if (spec.isBlank()) {
+                    continue;
+                }
+                try {
+                    rules.add(ConnectionRules.Rule.parse(spec));
+                } catch (IllegalArgumentException e) {
+                    log.warn("Ignoring connection rule: {}", e.getMessage());
+                }
+            }
+        }
+        return ConnectionRules.of(rules);
+    }
+
+    // Metro code -> its airports present in the dataset; airport codes win over metro codes
+    private Map<String, List<String>> parseMetros() {
+        Map<String, List<String>> parsed = new HashMap<>();
+        if (metroSpecs == null) {
+            return parsed;
+        }
+        for (String spec : metroSpecs) {
+            String[] parts = spec.trim().split(":");
+            if (parts.length != 2 || airportMap.containsKey(parts[0].trim())) {
+                if (!spec.isBlank()) {
+                    log.warn("Ignoring metro definition '{}'.", spec);
+                }
+                continue;
+            }
+            List<String> airports = Arrays.stream(parts[1].split("/"))
+                    .map(String::trim)
+                    .filter(airportMap::containsKey)
+                    .toList();
+            if (!airports.isEmpty()) {
+                parsed.put(parts[0].trim(), airports);
+            }
+        }
+        return parsed;
+    }
+
+    private void rebuildSuggestIndex() {
+        DatasetLoadEvent event = new DatasetLoadEvent();
+        event.begin();
+        FlightNetwork current = network;
+        suggestIndex = AirportSuggestIndex.build(airportMap.values(),
+                code -> {
+                    int airport = current.airportId(code);
+                    return airport < 0 ? 0 : current.bucket(airport).size();
+                });
+        commit(event, "suggest-index", current.version(), current.airportCount(), current.flightCount());
+    }
+
+    private static void commit(DatasetLoadEvent event, String phase, long version, int airports, int flights) {
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.version = version;
+            event.airports = airports;
+            event.flights = flights;
+            event.commit();
+        }
+    }
+
+    private void logConnectionIndex(int flightCount) {
+        ConnectionIndex connections = network.connections();
+        if (connections == null) {
+            log.info("Connection index disabled for {} flights (max-flights={}).",
+                    flightCount, connectionIndexMaxFlights);
+            return;
+        }
+        log.info("Connection index: {} flights, {} KB (network tables {} KB), built in {} ms.",
+                connections.entries(), connections.memoryBytes() / 1024,
+                network.memoryBytes() / 1024, connections.buildNanos() / 1_000_000);
+    }
+
     public Airport getAirport(String code) {
         return airportMap.get(code);
     }
 
+    /**
+     * Airports whose code, city or name starts with the query, ranked by flight volume.
+     */
+    public List<Airport> suggestAirports(String query, int limit) {
+        return suggestIndex.suggest(query, limit);
+    }
+
+    /**
+     * Airports an airport or metro code stands for; empty if the code is unknown.
+     */
+    public List<String> resolveAirports(String code) {
+        if (airportExists(code)) {
+            return List.of(code);
+        }
+        return metros.getOrDefault(code, List.of());
+    }
+
+    // Null when no flight has that number
+    public Flight getFlight(String flightNumber) {
+        return flightsByNumber.get(flightNumber);
+    }
+
     public boolean airportExists(String code) {
         return airportMap.containsKey(code);
     }
 
-    // Filters by local departure date
+    // Filters by local departure date (a contiguous slice of the departure-sorted bucket)
     public List<Flight> getFlightsByOriginAndDate(String origin, LocalDate date) {
-        return flightsByOrigin.getOrDefault(origin, Collections.emptyList()).stream()
-                .filter(f -> f.departureTime().toLocalDate().equals(date))
-                .collect(Collectors.toList());
+        FlightNetwork current = network;
+        int id = current.airportId(origin);
+        if (id < 0) {
+            return Collections.emptyList();
+        }
+        long range = current.departuresOn(id, date);
+        return current.bucket(id).flights(FlightNetwork.rangeFrom(range), FlightNetwork.rangeTo(range));
     }
 
     // Returns all flights from origin; layover time constraints handle temporal filtering
     public List<Flight> getFlightsByOrigin(String origin) {
-        return flightsByOrigin.getOrDefault(origin, Collections.emptyList());
+        FlightNetwork current = network;
+        int id = current.airportId(origin);
+        return id < 0 ? Collections.emptyList() : current.bucket(id).flights();
+    }
+
+    /**
+     * Flights from the query's origin departing inside its epoch-second window,
+     * optionally only those to its destinations. Answers shard queries.
+     */
+    public List<Flight> findFlights(ShardQuery query) {
+        FlightNetwork current = network;
+        int airport = current.airportId(query.origin());
+        if (airport < 0) {
+            return List.of();
+        }
+        FlightBucket bucket = current.bucket(airport);
+        List<Flight> flights = bucket.flights(bucket.firstDepartureAtOrAfter(query.departureFrom()),
+                bucket.firstDepartureAtOrAfter(query.departureTo()));
+        if (query.destinations() == null) {
+            return flights;
+        }
+        return flights.stream()
+                .filter(f -> query.destinations().contains(f.destination()))
+                .toList();
+    }
+
+    // True once a dataset has been loaded successfully
+    public boolean isLoaded() {
+        return network.version() > 0;
+    }
+
+    // Compiled, search-ready view of the current dataset
+    public FlightNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * Whether earlier dataset versions can be searched. Not in cluster mode, where a
+     * node's history only holds its own shard of each version.
+     */
+    public boolean keepsHistory() {
+        return !shardRouter.isEnabled();
+    }
+
+    // The retained network with this version, or null if it was never created or has been dropped
+    public FlightNetwork getNetwork(long version) {
+        return history == null ? null : history.version(version);
+    }
+
+    // The retained network that was current at the instant, or null if the history starts later
+    public FlightNetwork getNetworkAsOf(Instant instant) {
+        return history == null ? null : history.asOf(instant);
+    }
+
+    // Retained versions with the instant each became current, oldest first
+    public List<DatasetHistory.Entry> getHistory() {
+        return history == null ? List.of() : history.entries();
+    }
+
+    // Memory of all retained versions, tables shared between versions counted once
+    public long historyBytes() {
+        return history == null ? 0 : history.retainedBytes();
+    }
+
+    // Layover rules the current network was compiled with
+    public ConnectionRules getConnectionRules() {
+        return connectionRules;
     }
 
     public Collection<Airport> getAllAirports() {
@@ -1,12 +1,20 @@
 package com.skypath.service;
 
+import com.skypath.cluster.ShardedNetworkGatherer;
+import com.skypath.index.ConnectionTable;
+import com.skypath.index.FlightBucket;
+import com.skypath.index.FlightNetwork;
+import com.skypath.index.LowerBounds;
 import com.skypath.model.*;
+import jdk.jfr.EventType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -17,159 +25,573 @@ public class FlightSearchService {
 
     private static final Logger log = LoggerFactory.getLogger(FlightSearchService.class);
 
-    private static final int MAX_STOPS = 2;
-    private static final int MIN_LAYOVER_DOMESTIC_MINUTES = 45;
-    private static final int MIN_LAYOVER_INTERNATIONAL_MINUTES = 90;
-    private static final int MAX_LAYOVER_MINUTES = 360;
+    static final int MAX_STOPS = 2;
+    static final int MAX_LEGS = MAX_STOPS + 1;
 
     private final FlightDataService dataService;
+    private final ShardedNetworkGatherer cluster;
+    private final SeatInventory inventory;
+    private final SingleFlight<SearchKey, SearchResult> inFlight = new SingleFlight<>();
+
+    // Fares are summed in floating point, so ranking by price allows for rounding
+    private static final double PRICE_SLACK = 0.005;
+
+    private static final EventType HUB_EXPANSION = EventType.getEventType(HubExpansionEvent.class);
+
+    // Airport sets in sorted order; searches coalesce only with searches of the same snapshot
+    // under the same budget, filters, view and ranking
+    private record SearchKey(long version, List<String> origins, List<String> destinations, LocalDate date,
+                             SearchLimits limits, SearchFilters filters, SearchView view, SearchRanking ranking) {
+    }
 
     public FlightSearchService(FlightDataService dataService) {
+        this(dataService, null, null);
+    }
+
+    @Autowired
+    public FlightSearchService(FlightDataService dataService, ShardedNetworkGatherer cluster,
+                               SeatInventory inventory) {
         this.dataService = dataService;
+        this.cluster = cluster;
+        this.inventory = inventory;
     }
 
+    /**
+     * All itineraries from origin to destination departing on the date, shortest
+     * first, without a budget.
+     */
     public List<Itinerary> search(String origin, String destination, LocalDate date) {
-        List<Itinerary> results = new ArrayList<>();
-        Set<String> visited = new HashSet<>();
-        visited.add(origin);
+        return search(origin, destination, date, SearchLimits.UNLIMITED).itineraries();
+    }
 
-        List<Flight> firstLegFlights = dataService.getFlightsByOriginAndDate(origin, date);
-        log.debug("Found {} first-leg flights from {} on {}", firstLegFlights.size(), origin, date);
+    /**
+     * Searches within the given budget; the result is partial if it ran out.
+     */
+    public SearchResult search(String origin, String destination, LocalDate date, SearchLimits limits) {
+        return search(List.of(origin), List.of(destination), date, limits);
+    }
 
-        for (Flight f1 : firstLegFlights) {
-            List<Flight> path = new ArrayList<>();
-            path.add(f1);
+    /**
+     * Searches from any of the origin airports to any of the destination airports
+     * (e.g. a metro area) in one traversal: every origin's first legs are seeded
+     * together and reaching any destination ends a path. Identical concurrent
+     * searches share one computation and its (unmodifiable) result.
+     */
+    public SearchResult search(Collection<String> origins, Collection<String> destinations, LocalDate date,
+                               SearchLimits limits) {
+        return search(origins, destinations, date, limits, SearchFilters.NONE);
+    }
 
-            if (f1.destination().equals(destination)) {
-                results.add(buildItinerary(path));
-            } else {
-                visited.add(f1.destination());
-                findConnections(path, destination, visited, results, 1);
-                visited.remove(f1.destination());
-            }
-        }
+    /**
+     * Searches with filters applied during expansion: a partial path is dropped as
+     * soon as it breaks a cap or uses an excluded carrier, and departure windows
+     * narrow the first-leg range instead of being checked per result.
+     */
+    public SearchResult search(Collection<String> origins, Collection<String> destinations, LocalDate date,
+                               SearchLimits limits, SearchFilters filters) {
+        return search(origins, destinations, date, limits, filters, SearchView.FULL);
+    }
 
-        results.sort(Comparator.comparingLong(Itinerary::totalDurationMinutes));
-        log.debug("Found {} total itineraries from {} to {} on {}", results.size(), origin, destination, date);
-        return results;
+    /**
+     * Searches building only the fields of the given view for each itinerary.
+     */
+    public SearchResult search(Collection<String> origins, Collection<String> destinations, LocalDate date,
+                               SearchLimits limits, SearchFilters filters, SearchView view) {
+        return search(snapshot(), origins, destinations, date, limits, filters, view, SearchRanking.ALL);
     }
 
-    private void findConnections(List<Flight> path, String dest,
-                                 Set<String> visited, List<Itinerary> results, int depth) {
-        if (depth > MAX_STOPS) {
-            return;
+    /**
+     * Searches for the best {@code ranking.limit()} itineraries only. First legs are
+     * tried in order of their lower bound, so good results come early, and partial
+     * paths that cannot make the top K on their {@link LowerBounds} are not expanded.
+     */
+    public SearchResult search(Collection<String> origins, Collection<String> destinations, LocalDate date,
+                               SearchLimits limits, SearchFilters filters, SearchView view,
+                               SearchRanking ranking) {
+        return search(snapshot(), origins, destinations, date, limits, filters, view, ranking);
+    }
+
+    // The network searches run on; null in cluster mode, where one is gathered per origin
+    FlightNetwork snapshot() {
+        return cluster != null && cluster.isEnabled() ? null : dataService.getNetwork();
+    }
+
+    /**
+     * Searches the given snapshot: the legs of one trip share a version this way, and
+     * time-travel searches pass a retained earlier version (see
+     * {@link FlightDataService#getNetwork(long)}).
+     */
+    public SearchResult search(FlightNetwork network, Collection<String> origins, Collection<String> destinations,
+                        LocalDate date, SearchLimits limits, SearchFilters filters, SearchView view) {
+        return search(network, origins, destinations, date, limits, filters, view, SearchRanking.ALL);
+    }
+
+    public SearchResult search(FlightNetwork network, Collection<String> origins, Collection<String> destinations,
+                               LocalDate date, SearchLimits limits, SearchFilters filters, SearchView view,
+                               SearchRanking ranking) {
+        SearchKey key = new SearchKey(network == null ? -1 : network.version(),
+                origins.stream().sorted().distinct().toList(),
+                destinations.stream().sorted().distinct().toList(), date, limits, filters, view, ranking);
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        boolean[] computed = new boolean[1];
+        SearchResult shared = inFlight.run(key, () -> {
+            computed[0] = true;
+            SearchResult result = compute(network, key.origins(), key.destinations(), date, limits, filters, view,
+                    ranking);
+            return new SearchResult(Collections.unmodifiableList(result.itineraries()), result.partial(),
+                    result.timings());
+        });
+        if (event.shouldCommit()) {
+            event.origins = String.join(",", key.origins());
+            event.destinations = String.join(",", key.destinations());
+            event.date = date.toString();
+            event.results = shared.itineraries().size();
+            event.expansions = shared.timings().expansions();
+            event.partial = shared.partial();
+            event.coalesced = !computed[0];
+            event.commit();
         }
+        return shared;
+    }
 
-        Flight previousFlight = path.get(path.size() - 1);
-        String currentAirport = previousFlight.destination();
+    // Searches answered by a concurrent identical search
+    long coalescedCount() {
+        return inFlight.sharedCount();
+    }
 
-        List<Flight> candidates = dataService.getFlightsByOrigin(currentAirport);
+    private SearchResult compute(FlightNetwork network, List<String> origins, List<String> destinations,
+                                 LocalDate date, SearchLimits limits, SearchFilters filters, SearchView view,
+                                 SearchRanking ranking) {
+        if (network == null) {
+            // Gathered networks hold one origin's first legs, so each origin is searched on its own
+            List<SearchResult> perOrigin = new ArrayList<>();
+            for (String origin : origins) {
+                long start = System.nanoTime();
+                FlightNetwork gathered = cluster.gather(origin, new HashSet<>(destinations), date,
+                        filters.maxStops());
+                long assembly = System.nanoTime() - start;
+                SearchResult result = searchFirstLegs(gathered, origin, destinations, date, limits, filters, view,
+                        ranking);
+                perOrigin.add(new SearchResult(result.itineraries(), result.partial(),
+                        result.timings().plus(new SearchTimings(assembly, 0, 0, 0, 0))));
+            }
+            return merge(perOrigin, ranking);
+        }
 
-        for (Flight candidate : candidates) {
-            if (!isValidConnection(previousFlight, candidate)) {
+        long start = System.nanoTime();
+        int[] originIds = new int[origins.size()];
+        int[] firstRows = new int[origins.size()];
+        int[] lastRows = new int[origins.size()];
+        int seeds = 0;
+        for (String origin : origins) {
+            int originId = network.airportId(origin);
+            if (originId < 0) {
                 continue;
             }
+            long range = departureWindow(network, originId, network.departuresOn(originId, date), date, filters);
+            originIds[seeds] = originId;
+            firstRows[seeds] = FlightNetwork.rangeFrom(range);
+            lastRows[seeds] = FlightNetwork.rangeTo(range);
+            log.debug("Found {} first-leg flights from {} on {}", lastRows[seeds] - firstRows[seeds], origin, date);
+            seeds++;
+        }
+        long lookup = System.nanoTime() - start;
+
+        SearchResult result = search(network, Arrays.copyOf(originIds, seeds), firstRows, lastRows,
+                airportIds(network, destinations), limits, filters, view, ranking);
+        result = new SearchResult(result.itineraries(), result.partial(),
+                result.timings().plus(new SearchTimings(lookup, 0, 0, 0, 0)));
+        log.debug("Found {} total itineraries from {} to {} on {}{}", result.itineraries().size(),
+                origins, destinations, date, result.partial() ? " (partial)" : "");
+        return result;
+    }
 
-            if (visited.contains(candidate.destination()) && !candidate.destination().equals(dest)) {
-                continue;
+    private SearchResult searchFirstLegs(FlightNetwork network, String origin, List<String> destinations,
+                                         LocalDate date, SearchLimits limits, SearchFilters filters,
+                                         SearchView view, SearchRanking ranking) {
+        int originId = network.airportId(origin);
+        if (originId < 0) {
+            return new SearchResult(new ArrayList<>(), false);
+        }
+        long range = departureWindow(network, originId,
+                FlightNetwork.range(0, network.bucket(originId).size()), date, filters);
+        return search(network, new int[]{originId},
+                new int[]{FlightNetwork.rangeFrom(range)}, new int[]{FlightNetwork.rangeTo(range)},
+                airportIds(network, destinations), limits, filters, view, ranking);
+    }
+
+    // Narrows a range of first-leg rows to the departure window; rows are sorted by
+    // departure instant, so the window is two binary searches
+    private static long departureWindow(FlightNetwork network, int originId, long range, LocalDate date,
+                                        SearchFilters filters) {
+        if (filters.departAfter() == null && filters.departBefore() == null) {
+            return range;
+        }
+        FlightBucket bucket = network.bucket(originId);
+        ZoneId zone = network.zone(originId);
+        int from = FlightNetwork.rangeFrom(range);
+        int to = FlightNetwork.rangeTo(range);
+        if (filters.departAfter() != null) {
+            long after = date.atTime(filters.departAfter()).atZone(zone).toEpochSecond();
+            from = Math.max(from, bucket.firstDepartureAtOrAfter(after));
+        }
+        if (filters.departBefore() != null) {
+            long before = date.atTime(filters.departBefore()).atZone(zone).toEpochSecond();
+            to = Math.min(to, bucket.firstDepartureAtOrAfter(before + 1));
+        }
+        return FlightNetwork.range(from, Math.max(from, to));
+    }
+
+    private static int[] airportIds(FlightNetwork network, List<String> codes) {
+        return codes.stream()
+                .mapToInt(network::airportId)
+                .filter(id -> id >= 0)
+                .toArray();
+    }
+
+    private static SearchResult merge(List<SearchResult> results, SearchRanking ranking) {
+        if (results.size() == 1) {
+            return results.get(0);
+        }
+        List<Itinerary> itineraries = new ArrayList<>();
+        boolean partial = false;
+        SearchTimings timings = SearchTimings.NONE;
+        for (SearchResult result : results) {
+            itineraries.addAll(result.itineraries());
+            partial |= result.partial();
+            timings = timings.plus(result.timings());
+        }
+        long start = System.nanoTime();
+        itineraries.sort(ranking.comparator());
+        truncate(itineraries, ranking);
+        long sort = System.nanoTime() - start;
+        return new SearchResult(itineraries, partial, timings.plus(new SearchTimings(0, 0, 0, sort, 0)));
+    }
+
+    // Seeds the DFS with rows [firstRows[i], lastRows[i]) of each origin's bucket;
+    // a path ends at the first destination it reaches
+    private SearchResult search(FlightNetwork network, int[] originIds, int[] firstRows, int[] lastRows,
+                                int[] destIds, SearchLimits limits, SearchFilters filters, SearchView view,
+                                SearchRanking ranking) {
+        List<Itinerary> results = new ArrayList<>();
+        if (originIds.length == 0 || destIds.length == 0) {
+            return new SearchResult(results, false);
+        }
+
+        SearchScratch scratch = SearchScratch.acquire(network.airportCount());
+        scratch.startBudget(limits);
+        scratch.summary = view == SearchView.SUMMARY;
+        scratch.buildNanos = 0;
+        long start = System.nanoTime();
+        scratch.startRanking(ranking, ranking.isTopK() ? network.lowerBounds(destIds, MAX_LEGS) : null);
+        scratch.markDestinations(destIds);
+        try {
+            if (scratch.bounds != null) {
+                searchBestFirst(network, scratch, results, originIds, firstRows, lastRows, filters);
+            } else {
+                for (int i = 0; i < originIds.length && !scratch.isExhausted(); i++) {
+                    int originId = originIds[i];
+                    scratch.visit(originId);
+                    try {
+                        for (int row = firstRows[i]; row < lastRows[i] && !scratch.spend(); row++) {
+                            expandFirstLeg(network, scratch, results, originId, row, filters);
+                        }
+                    } finally {
+                        scratch.leave(originId);
+                    }
+                }
             }
+        } finally {
+            scratch.release();
+        }
 
-            path.add(candidate);
+        // Building happens inside the walk, so its time is taken out of the DFS time
+        long walked = System.nanoTime();
+        results.sort(ranking.comparator());
+        truncate(results, ranking);
+        long sorted = System.nanoTime();
+        return new SearchResult(results, scratch.isExhausted(),
+                new SearchTimings(0, walked - start - scratch.buildNanos, scratch.buildNanos, sorted - walked,
+                        scratch.expansions()));
+    }
 
-            if (candidate.destination().equals(dest)) {
-                results.add(buildItinerary(new ArrayList<>(path)));
-            } else if (depth < MAX_STOPS) {
-                visited.add(candidate.destination());
-                findConnections(path, dest, visited, results, depth + 1);
-                visited.remove(candidate.destination());
+    // Tries first legs in order of their lower bound across all origins, and stops at the
+    // first one whose bound is above the K-th best cost found, since all later ones are too
+    private void searchBestFirst(FlightNetwork network, SearchScratch scratch, List<Itinerary> results,
+                                 int[] originIds, int[] firstRows, int[] lastRows, SearchFilters filters) {
+        int seeds = 0;
+        for (int i = 0; i < originIds.length; i++) {
+            seeds += lastRows[i] - firstRows[i];
+        }
+        int[] seedOrigins = new int[seeds];
+        int[] seedRows = new int[seeds];
+        // Bound in whole minutes or cents in the high half, seed index in the low half
+        long[] order = new long[seeds];
+        int seed = 0;
+        for (int i = 0; i < originIds.length; i++) {
+            FlightBucket bucket = network.bucket(originIds[i]);
+            for (int row = firstRows[i]; row < lastRows[i]; row++, seed++) {
+                seedOrigins[seed] = originIds[i];
+                seedRows[seed] = row;
+                scratch.firstDeparture = bucket.departure(row);
+                scratch.pathPrices[0] = bucket.flight(row).price();
+                double bound = lowerBound(scratch, bucket.destination(row), bucket.arrival(row), 1,
+                        filters.maxStops() + 1);
+                long key = scratch.rankByPrice ? (long) Math.floor(bound * 100) : (long) bound;
+                order[seed] = (Math.min(key, Integer.MAX_VALUE) << 32) | seed;
             }
+        }
+        Arrays.sort(order);
 
-            path.remove(path.size() - 1);
+        for (long entry : order) {
+            double bound = (entry >>> 32) == Integer.MAX_VALUE ? Double.POSITIVE_INFINITY
+                    : scratch.rankByPrice ? (entry >>> 32) / 100.0 : entry >>> 32;
+            if (bound > scratch.threshold() || scratch.spend()) {
+                return;
+            }
+            int originId = seedOrigins[(int) entry];
+            scratch.visit(originId);
+            try {
+                expandFirstLeg(network, scratch, results, originId, seedRows[(int) entry], filters);
+            } finally {
+                scratch.leave(originId);
+            }
         }
     }
 
-    private boolean isValidConnection(Flight arriving, Flight departing) {
-        long layoverMinutes = calculateLayoverMinutes(arriving, departing);
+    private void expandFirstLeg(FlightNetwork network, SearchScratch scratch, List<Itinerary> results,
+                                int originId, int row, SearchFilters filters) {
+        FlightBucket originBucket = network.bucket(originId);
+        scratch.pathAirports[0] = originId;
+        scratch.pathRows[0] = row;
+        scratch.firstDeparture = originBucket.departure(row);
+        scratch.latestArrival = latestArrival(scratch.firstDeparture, filters);
+        int hub = originBucket.destination(row);
+        if (originBucket.arrival(row) > scratch.latestArrival
+                || !admits(originBucket.flight(row), 0, scratch, filters)
+                || !canRank(scratch, hub, originBucket.arrival(row), 1, filters)) {
+            return;
+        }
 
-        if (layoverMinutes < 0) {
-            return false;
+        if (scratch.isDestination(hub)) {
+            addIfArrivalAllowed(network, scratch, results, 1, filters);
+        } else if (!scratch.isVisited(hub) && filters.maxStops() > 0) {
+            scratch.visit(hub);
+            findConnections(network, scratch, results, 1, filters);
+            scratch.leave(hub);
         }
+    }
 
-        int minLayover = isDomesticConnection(arriving, departing)
-                ? MIN_LAYOVER_DOMESTIC_MINUTES
-                : MIN_LAYOVER_INTERNATIONAL_MINUTES;
+    // Extends the path in scratch (depth legs so far) through the onward window of its
+    // last flight; the window already enforces the layover rules except in its head,
+    // where each departure is checked against the minimum connection for its direction
+    // and carrier pair. Filters prune each candidate before it is expanded. Stops
+    // early once the budget is spent.
+    private void findConnections(FlightNetwork network, SearchScratch scratch, List<Itinerary> results,
+                                 int depth, SearchFilters filters) {
+        if (depth > filters.maxStops()) {
+            return;
+        }
 
-        if (layoverMinutes < minLayover) {
-            return false;
+        int airport = scratch.pathAirports[depth - 1];
+        int row = scratch.pathRows[depth - 1];
+        FlightBucket arriving = network.bucket(airport);
+        int hub = arriving.destination(row);
+        long arrival = arriving.arrival(row);
+        boolean domesticArrival = arriving.isDomestic(row);
+        FlightBucket candidates = network.bucket(hub);
+        ConnectionTable rules = network.connectionTable();
+
+        int start = network.windowStart(airport, row);
+        int sure = network.windowSure(airport, row);
+        int end = network.windowEnd(airport, row);
+        if (scratch.latestArrival != Long.MAX_VALUE) {
+            // Flights departing after the latest allowed arrival cannot fit the duration cap
+            end = Math.min(end, candidates.firstDepartureAtOrAfter(scratch.latestArrival + 1));
         }
 
-        return layoverMinutes <= MAX_LAYOVER_MINUTES;
-    }
+        if (start >= end) {
+            return;
+        }
 
-    // Convert local airport times to UTC via each airport's timezone before computing duration
-    private long calculateLayoverMinutes(Flight arriving, Flight departing) {
-        Airport arrivalAirport = dataService.getAirport(arriving.destination());
-        Airport departureAirport = dataService.getAirport(departing.origin());
+        // Only allocated while JFR records it, and only committed above its threshold
+        HubExpansionEvent event = HUB_EXPANSION.isEnabled() ? new HubExpansionEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        long expandedBefore = scratch.expansions();
 
-        ZoneId arrivalTZ = ZoneId.of(arrivalAirport.timezone());
-        ZoneId departureTZ = ZoneId.of(departureAirport.timezone());
+        for (int next = start; next < end && !scratch.isExhausted(); next++) {
+            if (next < sure && candidates.departure(next) - arrival < rules.minSeconds(hub, domesticArrival,
+                    candidates.isDomestic(next), arriving.sameCarrier(row, candidates, next))) {
+                continue;
+            }
+            int nextDest = candidates.destination(next);
+            if (candidates.arrival(next) > scratch.latestArrival
+                    || !admits(candidates.flight(next), depth, scratch, filters)
+                    || !canRank(scratch, nextDest, candidates.arrival(next), depth + 1, filters)) {
+                continue;
+            }
+
+            boolean arrived = scratch.isDestination(nextDest);
+            if (!arrived && scratch.isVisited(nextDest)) {
+                continue;
+            }
+
+            scratch.pathAirports[depth] = hub;
+            scratch.pathRows[depth] = next;
 
-        ZonedDateTime arrivalTime = arriving.arrivalTime().atZone(arrivalTZ);
-        ZonedDateTime departureTime = departing.departureTime().atZone(departureTZ);
+            if (arrived) {
+                addIfArrivalAllowed(network, scratch, results, depth + 1, filters);
+            } else if (depth < filters.maxStops() && !scratch.spend()) {
+                scratch.visit(nextDest);
+                findConnections(network, scratch, results, depth + 1, filters);
+                scratch.leave(nextDest);
+            }
+        }
 
-        return Duration.between(arrivalTime, departureTime).toMinutes();
+        if (event != null && event.shouldCommit()) {
+            event.hub = network.airport(hub).code();
+            event.depth = depth;
+            event.window = Math.max(0, end - start);
+            event.expansions = scratch.expansions() - expandedBefore;
+            event.commit();
+        }
     }
 
-    // Connection is domestic only if BOTH flights are within the same country
-    private boolean isDomesticConnection(Flight arriving, Flight departing) {
-        String arrivingOriginCountry = dataService.getAirport(arriving.origin()).country();
-        String arrivingDestCountry = dataService.getAirport(arriving.destination()).country();
-        String departingOriginCountry = dataService.getAirport(departing.origin()).country();
-        String departingDestCountry = dataService.getAirport(departing.destination()).country();
+    private static long latestArrival(long firstDeparture, SearchFilters filters) {
+        long maxMinutes = filters.maxDurationMinutes();
+        if (maxMinutes >= (Long.MAX_VALUE - firstDeparture) / 60) {
+            return Long.MAX_VALUE;
+        }
+        return firstDeparture + maxMinutes * 60;
+    }
+
+    private static void truncate(List<Itinerary> itineraries, SearchRanking ranking) {
+        if (itineraries.size() > ranking.limit()) {
+            itineraries.subList(ranking.limit(), itineraries.size()).clear();
+        }
+    }
 
-        boolean arrivingIsDomestic = arrivingOriginCountry.equals(arrivingDestCountry);
-        boolean departingIsDomestic = departingOriginCountry.equals(departingDestCountry);
+    /**
+     * Least cost (minutes or fare) of any itinerary extending the path in scratch,
+     * whose latest leg, its {@code legs}-th, lands at {@code airport} at {@code arrival}:
+     * exact at a destination, otherwise the cost so far plus the {@link LowerBounds}
+     * of the rest within the remaining legs. Infinite if the rest is unreachable.
+     */
+    private static double lowerBound(SearchScratch scratch, int airport, long arrival, int legs, int maxLegs) {
+        boolean arrived = scratch.isDestination(airport);
+        if (!arrived && legs >= maxLegs) {
+            return Double.POSITIVE_INFINITY;
+        }
+        LowerBounds bounds = scratch.bounds;
+        if (scratch.rankByPrice) {
+            double rest = arrived ? 0 : bounds.remainingFare(airport, maxLegs - legs);
+            return scratch.pathPrices[legs - 1] + rest;
+        }
+        long rest = arrived ? 0 : bounds.remainingSeconds(airport, maxLegs - legs);
+        if (rest >= LowerBounds.UNREACHABLE) {
+            return Double.POSITIVE_INFINITY;
+        }
+        long connection = arrived ? 0 : bounds.minConnectionSeconds(airport);
+        // Durations are reported in whole minutes, rounded down
+        return (arrival + connection + rest - scratch.firstDeparture) / 60;
+    }
 
-        return arrivingIsDomestic && departingIsDomestic;
+    // In a ranked search, whether the path can still make the top K
+    private static boolean canRank(SearchScratch scratch, int airport, long arrival, int legs,
+                                   SearchFilters filters) {
+        if (scratch.bounds == null) {
+            return true;
+        }
+        double bound = lowerBound(scratch, airport, arrival, legs, filters.maxStops() + 1);
+        double threshold = scratch.threshold();
+        return bound != Double.POSITIVE_INFINITY
+                && bound <= (scratch.rankByPrice ? threshold + PRICE_SLACK : threshold);
     }
 
-    private Itinerary buildItinerary(List<Flight> flights) {
-        List<FlightSegment> segments = new ArrayList<>();
-        List<Layover> layovers = new ArrayList<>();
-        double totalPrice = 0.0;
+    // Carrier, seat and price checks for the flight taking leg index `leg`; records the running price
+    private boolean admits(Flight flight, int leg, SearchScratch scratch, SearchFilters filters) {
+        if (filters.restrictsAirlines() && !filters.allowsCarrier(flight)) {
+            return false;
+        }
+        if (filters.requiresSeats() && inventory != null && !inventory.hasSeats(flight, filters.seats())) {
+            return false;
+        }
+        if (filters.restrictsPrice() || scratch.rankByPrice) {
+            double price = (leg == 0 ? 0.0 : scratch.pathPrices[leg - 1]) + flight.price();
+            if (price > filters.maxPrice()) {
+                return false;
+            }
+            scratch.pathPrices[leg] = price;
+        }
+        return true;
+    }
+
+    private void addIfArrivalAllowed(FlightNetwork network, SearchScratch scratch, List<Itinerary> results,
+                                     int legs, SearchFilters filters) {
+        if (filters.restrictsArrival()) {
+            int lastAirport = scratch.pathAirports[legs - 1];
+            int lastRow = scratch.pathRows[legs - 1];
+            FlightBucket bucket = network.bucket(lastAirport);
+            LocalTime arrival = LocalTime.ofInstant(Instant.ofEpochSecond(bucket.arrival(lastRow)),
+                    network.zone(bucket.destination(lastRow)));
+            if (!filters.allowsArrival(arrival)) {
+                return;
+            }
+        }
+        if (scratch.bounds != null) {
+            // canRank let the last leg through, so the result is within the top K so far
+            FlightBucket last = network.bucket(scratch.pathAirports[legs - 1]);
+            scratch.offerCost(scratch.rankByPrice ? scratch.pathPrices[legs - 1]
+                    : (last.arrival(scratch.pathRows[legs - 1]) - scratch.firstDeparture) / 60);
+        }
+        long start = System.nanoTime();
+        results.add(buildItinerary(network, scratch, legs));
+        scratch.buildNanos += System.nanoTime() - start;
+    }
 
-        for (int i = 0; i < flights.size(); i++) {
-            Flight f = flights.get(i);
-            Airport origin = dataService.getAirport(f.origin());
-            Airport dest = dataService.getAirport(f.destination());
+    // In a summary view airport names, aircraft and layovers are skipped and left null
+    private Itinerary buildItinerary(FlightNetwork network, SearchScratch scratch, int legs) {
+        boolean summary = scratch.summary;
+        List<FlightSegment> segments = new ArrayList<>(legs);
+        List<Layover> layovers = summary ? null : new ArrayList<>(legs - 1);
+        double totalPrice = 0.0;
 
-            ZoneId originTZ = ZoneId.of(origin.timezone());
-            ZoneId destTZ = ZoneId.of(dest.timezone());
+        for (int i = 0; i < legs; i++) {
+            int originId = scratch.pathAirports[i];
+            int row = scratch.pathRows[i];
+            FlightBucket bucket = network.bucket(originId);
+            Flight f = bucket.flight(row);
+            int destId = bucket.destination(row);
+            Airport origin = summary ? null : network.airport(originId);
+            Airport dest = summary ? null : network.airport(destId);
 
-            ZonedDateTime departure = f.departureTime().atZone(originTZ);
-            ZonedDateTime arrival = f.arrivalTime().atZone(destTZ);
-            long segmentDuration = Duration.between(departure, arrival).toMinutes();
+            ZonedDateTime departure = f.departureTime().atZone(network.zone(originId));
+            ZonedDateTime arrival = f.arrivalTime().atZone(network.zone(destId));
+            long segmentDuration = (bucket.arrival(row) - bucket.departure(row)) / 60;
 
             segments.add(new FlightSegment(
                     f.flightNumber(),
                     f.airline(),
                     f.origin(),
-                    origin.name(),
-                    origin.city(),
+                    summary ? null : origin.name(),
+                    summary ? null : origin.city(),
                     f.destination(),
-                    dest.name(),
-                    dest.city(),
+                    summary ? null : dest.name(),
+                    summary ? null : dest.city(),
                     departure.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME),
                     arrival.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME),
                     segmentDuration,
-                    f.aircraft()
+                    summary ? null : f.aircraft()
             ));
 
             totalPrice += f.price();
 
-            if (i < flights.size() - 1) {
-                Flight nextFlight = flights.get(i + 1);
-                long layoverMinutes = calculateLayoverMinutes(f, nextFlight);
+            if (!summary && i < legs - 1) {
+                long nextDeparture = network.bucket(destId).departure(scratch.pathRows[i + 1]);
+                long layoverMinutes = (nextDeparture - bucket.arrival(row)) / 60;
 
                 layovers.add(new Layover(
                         f.destination(),
@@ -180,23 +602,16 @@ public class FlightSearchService {
             }
         }
 
-        Flight first = flights.get(0);
-        Flight last = flights.get(flights.size() - 1);
-        Airport firstOrigin = dataService.getAirport(first.origin());
-        Airport lastDest = dataService.getAirport(last.destination());
-
-        ZonedDateTime firstDeparture = first.departureTime()
-                .atZone(ZoneId.of(firstOrigin.timezone()));
-        ZonedDateTime lastArrival = last.arrivalTime()
-                .atZone(ZoneId.of(lastDest.timezone()));
-        long totalDuration = Duration.between(firstDeparture, lastArrival).toMinutes();
+        long firstDeparture = network.bucket(scratch.pathAirports[0]).departure(scratch.pathRows[0]);
+        long lastArrival = network.bucket(scratch.pathAirports[legs - 1]).arrival(scratch.pathRows[legs - 1]);
+        long totalDuration = (lastArrival - firstDeparture) / 60;
 
         return new Itinerary(
                 segments,
                 layovers,
                 totalDuration,
                 Math.round(totalPrice * 100.0) / 100.0, // avoid floating point artifacts
-                flights.size() - 1
+                legs - 1
         );
     }
 }
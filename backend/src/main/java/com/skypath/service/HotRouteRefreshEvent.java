@@ -0,0 +1,27 @@
+package com.skypath.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One rebuild of the materialized hot-route table.
+ */
+@Name("com.skypath.HotRouteRefresh")
+@Label("Hot Route Refresh")
+@Category({"SkyPath", "Cache"})
+@Description("A rebuild of the materialized hot-route table")
+@StackTrace(false)
+final class HotRouteRefreshEvent extends jdk.jfr.Event {
+
+    @Label("Routes")
+    int routes;
+
+    @Label("Recomputed")
+    int recomputed;
+
+    @Label("Dataset Version")
+    long version;
+}
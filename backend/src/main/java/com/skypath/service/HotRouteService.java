@@ -0,0 +1,213 @@
+package com.skypath.service;
+
+import com.skypath.cluster.ShardRouter;
+import com.skypath.index.FlightNetwork;
+import com.skypath.model.Flight;
+import com.skypath.model.Itinerary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Materialized, fully sorted itinerary lists for hot routes.
+ *
+ * Routes are either pinned in configuration or promoted automatically once
+ * they see enough requests per detection period. A single background thread
+ * recomputes the table after every dataset version change (only the routes an
+ * incremental change can touch); until the refresh lands, the previous
+ * version's lists keep being served, so a hot route never falls through to a
+ * live search after a reload. Each list carries the dataset version it was
+ * computed on, which lists a refresh reuses keep. Not available in cluster mode,
+ * where a node only hears about the changes to its own shard.
+ */
+@Service
+public class HotRouteService {
+
+    private static final Logger log = LoggerFactory.getLogger(HotRouteService.class);
+
+    /** A materialized list and the dataset version it was searched on. */
+    public record HotRoute(long version, List<Itinerary> itineraries) {
+    }
+
+    private final FlightSearchService searchService;
+    private final FlightDataService dataService;
+    private final ShardRouter shardRouter;
+
+    @Value("${skypath.hot-routes.pinned:}")
+    private String[] pinnedRoutes;
+
+    @Value("${skypath.hot-routes.auto.max-routes:50}")
+    private int maxAutoRoutes;
+
+    @Value("${skypath.hot-routes.auto.min-requests:20}")
+    private int minRequests;
+
+    @Value("${skypath.hot-routes.auto.period-seconds:60}")
+    private long periodSeconds;
+
+    private final Set<RouteKey> pinned = new LinkedHashSet<>();
+    private final Map<RouteKey, LongAdder> demand = new ConcurrentHashMap<>();
+    // Routes without requests in the last period; refresh thread only
+    private final Set<RouteKey> idle = new HashSet<>();
+
+    // Replaced wholesale by the refresh thread; readers never see a partially built table
+    private volatile Map<RouteKey, HotRoute> table = Collections.emptyMap();
+
+    private ScheduledExecutorService executor;
+
+    public HotRouteService(FlightSearchService searchService, FlightDataService dataService,
+                           ShardRouter shardRouter) {
+        this.searchService = searchService;
+        this.dataService = dataService;
+        this.shardRouter = shardRouter;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isAvailable()) {
+            return;
+        }
+        for (String spec : pinnedRoutes) {
+            if (!spec.isBlank()) {
+                pinned.add(RouteKey.parse(spec));
+            }
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hot-route-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        // The initial load happened before listeners were registered, so materialize it here
+        executor.execute(() -> refresh(Set.of(), key -> true));
+        executor.scheduleWithFixedDelay(this::promoteHotRoutes, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isAvailable() {
+        return !shardRouter.isEnabled();
+    }
+
+    @EventListener
+    public void onDatasetChanged(DatasetChangedEvent event) {
+        if (executor == null) {
+            return;
+        }
+        executor.execute(() -> refresh(table.keySet(),
+                event.fullReload() ? key -> true : key -> isAffected(key, event.changedFlights())));
+    }
+
+    // Whether any changed flight could be a leg of an itinerary for this route
+    private boolean isAffected(RouteKey key, List<Flight> changedFlights) {
+        FlightNetwork network = dataService.getNetwork();
+        for (Flight f : changedFlights) {
+            if (network.couldRoute(key.origin(), key.destination(), f.origin(), f.destination(),
+                    FlightSearchService.MAX_LEGS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the materialized itineraries for a route with the version they were
+     * searched on, or null if the route is not hot. Every lookup counts towards
+     * automatic promotion.
+     */
+    public HotRoute lookup(String origin, String destination, LocalDate date) {
+        RouteKey key = new RouteKey(origin, destination, date);
+        demand.computeIfAbsent(key, k -> new LongAdder()).increment();
+        return table.get(key);
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    // Runs on the refresh thread: keeps this period's hottest routes, dropping ones that cooled off
+    private void promoteHotRoutes() {
+        List<Map.Entry<RouteKey, Long>> candidates = new ArrayList<>();
+        demand.forEach((key, count) -> {
+            long requests = count.sumThenReset();
+            if (requests > 0) {
+                idle.remove(key);
+                if (requests >= minRequests) {
+                    candidates.add(Map.entry(key, requests));
+                }
+            } else if (!idle.add(key)) {
+                // Idle for two periods: forget the counter unless a request arrived since the reset.
+                // A lookup still holding it may count one request after removal, on a cold route.
+                demand.computeIfPresent(key, (k, c) -> c.sum() == 0 ? null : c);
+                idle.remove(key);
+            }
+        });
+        candidates.sort(Map.Entry.<RouteKey, Long>comparingByValue().reversed());
+
+        Set<RouteKey> hot = new LinkedHashSet<>();
+        for (int i = 0; i < candidates.size() && i < maxAutoRoutes; i++) {
+            hot.add(candidates.get(i).getKey());
+        }
+        refresh(hot, key -> false);
+    }
+
+    // Rebuilds the table for pinned + given routes, recomputing stale or missing ones
+    private void refresh(Set<RouteKey> routes, Predicate<RouteKey> stale) {
+        HotRouteRefreshEvent event = new HotRouteRefreshEvent();
+        event.begin();
+        try {
+            // Searched and tagged with one snapshot, so a list never claims a version it was not built on
+            FlightNetwork network = searchService.snapshot();
+            long version = network.version();
+            Map<RouteKey, HotRoute> current = table;
+
+            Set<RouteKey> wanted = new LinkedHashSet<>(pinned);
+            wanted.addAll(routes);
+
+            Map<RouteKey, HotRoute> next = new HashMap<>();
+            int computed = 0;
+            for (RouteKey key : wanted) {
+                HotRoute route = stale.test(key) ? null : current.get(key);
+                if (route == null) {
+                    route = new HotRoute(version, List.copyOf(searchService.search(network, List.of(key.origin()),
+                            List.of(key.destination()), key.date(), SearchLimits.UNLIMITED, SearchFilters.NONE,
+                            SearchView.FULL).itineraries()));
+                    computed++;
+                }
+                next.put(key, route);
+            }
+
+            table = Collections.unmodifiableMap(next);
+            if (computed > 0) {
+                log.info("Materialized {} hot routes ({} recomputed) for dataset version {}.",
+                        next.size(), computed, version);
+            }
+            if (event.shouldCommit()) {
+                event.routes = next.size();
+                event.recomputed = computed;
+                event.version = version;
+                event.commit();
+            }
+        } catch (RuntimeException e) {
+            log.error("Hot route refresh failed", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.skypath.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Expanding the connections at one hub of a path, including everything below it.
+ * Only slow expansions pass the threshold, which shows the hubs whose onward
+ * windows dominate a slow search.
+ */
+@Name("com.skypath.HubExpansion")
+@Label("Hub Expansion")
+@Category({"SkyPath", "Search"})
+@Description("Connections explored at one hub of a search path")
+@StackTrace(false)
+@Threshold("1 ms")
+final class HubExpansionEvent extends jdk.jfr.Event {
+
+    @Label("Hub")
+    String hub;
+
+    @Label("Depth")
+    @Description("Legs on the path before the hub's connections")
+    int depth;
+
+    @Label("Window")
+    @Description("Onward flights in the connection window")
+    int window;
+
+    @Label("Nodes Expanded")
+    long expansions;
+}
@@ -0,0 +1,146 @@
+package com.skypath.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Opt-in log of the searches served, for replaying production traffic locally
+ * (see {@code ./gradlew replayQueries}). Request threads only drop a
+ * {@link QueryRecord} into a lock-free ring buffer; a single background thread
+ * turns the records into JSON lines in a rolling file. Searches at or above the
+ * slow threshold are also written, sampled, to a separate slow-query file. When
+ * the buffer is full, records are dropped and counted rather than slowing requests.
+ */
+@Service
+public class QueryLog {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryLog.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path path;
+    private final Path slowPath;
+    private final long slowThresholdMicros;
+    private final double slowSampleRate;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final RingBuffer<QueryRecord> buffer;
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public QueryLog(ObjectMapper objectMapper,
+                    @Value("${skypath.query-log.enabled:false}") boolean enabled,
+                    @Value("${skypath.query-log.path:logs/queries.jsonl}") String path,
+                    @Value("${skypath.query-log.slow-path:logs/slow-queries.jsonl}") String slowPath,
+                    @Value("${skypath.query-log.slow-threshold-millis:250}") long slowThresholdMillis,
+                    @Value("${skypath.query-log.slow-sample-rate:1.0}") double slowSampleRate,
+                    @Value("${skypath.query-log.buffer-capacity:8192}") int bufferCapacity,
+                    @Value("${skypath.query-log.max-file-bytes:104857600}") long maxFileBytes,
+                    @Value("${skypath.query-log.max-files:5}") int maxFiles) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.path = Path.of(path);
+        this.slowPath = Path.of(slowPath);
+        this.slowThresholdMicros = slowThresholdMillis * 1000;
+        this.slowSampleRate = slowSampleRate;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.buffer = enabled ? new RingBuffer<>(bufferCapacity) : null;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        RollingFile queries = new RollingFile(path, maxFileBytes, maxFiles);
+        RollingFile slowQueries = new RollingFile(slowPath, maxFileBytes, maxFiles);
+        running = true;
+        writer = new Thread(() -> drain(queries, slowQueries), "query-log");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Query log enabled: {} (slow queries >= {} ms: {}).",
+                path, slowThresholdMicros / 1000, slowPath);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer != null) {
+            running = false;
+            LockSupport.unpark(writer);
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a record for the writer thread; never blocks. No-op when the log is disabled.
+     */
+    public void record(QueryRecord record) {
+        if (enabled && !buffer.offer(record)) {
+            dropped.increment();
+        }
+    }
+
+    // Records lost to a full buffer
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    // Runs on the writer thread until stopped, then writes what is left
+    private void drain(RollingFile queries, RollingFile slowQueries) {
+        try (queries; slowQueries) {
+            while (running) {
+                if (writeAvailable(queries, slowQueries) == 0) {
+                    queries.flush();
+                    slowQueries.flush();
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+            writeAvailable(queries, slowQueries);
+        } catch (IOException e) {
+            log.error("Query log stopped: {}", e.getMessage(), e);
+        }
+    }
+
+    private int writeAvailable(RollingFile queries, RollingFile slowQueries) throws IOException {
+        int written = 0;
+        QueryRecord record;
+        while ((record = buffer.poll()) != null) {
+            String line;
+            try {
+                line = objectMapper.writeValueAsString(record);
+            } catch (JsonProcessingException e) {
+                log.warn("Skipping unserializable query record: {}", e.getMessage());
+                continue;
+            }
+            queries.write(line);
+            if (record.latencyMicros() >= slowThresholdMicros
+                    && (slowSampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < slowSampleRate)) {
+                slowQueries.write(line);
+            }
+            written++;
+        }
+        return written;
+    }
+}
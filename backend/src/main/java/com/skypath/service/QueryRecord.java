@@ -0,0 +1,34 @@
+package com.skypath.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One search as the query log captures it: the normalized request (resolved airports,
+ * date, filters or null when unfiltered, view, ranking or null when all results were
+ * asked for, and budget) with its latency up to
+ * serialization and its result. {@code hot} is set when the hot-route table answered.
+ */
+public record QueryRecord(
+        long timestamp,
+        List<String> origins,
+        List<String> destinations,
+        LocalDate date,
+        SearchFilters filters,
+        SearchView view,
+        SearchRanking ranking,
+        long budgetMillis,
+        long latencyMicros,
+        int results,
+        boolean partial,
+        boolean hot
+) {
+
+    public SearchFilters filtersOrNone() {
+        return filters != null ? filters : SearchFilters.NONE;
+    }
+
+    public SearchRanking rankingOrAll() {
+        return ranking != null ? ranking : SearchRanking.ALL;
+    }
+}
@@ -0,0 +1,56 @@
+package com.skypath.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and one consumer. Producers claim a
+ * sequence number with a CAS on {@code head} and publish into its slot; the consumer
+ * takes slots in sequence order and frees them by advancing {@code tail}. A full
+ * buffer rejects instead of blocking, so request threads never wait on the consumer.
+ */
+final class RingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    // Written by the consumer only
+    private volatile long tail;
+
+    // Capacity is rounded up to a power of two
+    RingBuffer(int capacity) {
+        int size = 1 << (32 - Integer.numberOfLeadingZeros(Math.max(1, capacity - 1)));
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    // False when the buffer is full
+    boolean offer(T item) {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail >= slots.length()) {
+                return false;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+        slots.lazySet((int) sequence & mask, item);
+        return true;
+    }
+
+    // Null when empty, or when the next producer has claimed its slot but not yet published
+    T poll() {
+        long next = tail;
+        int slot = (int) next & mask;
+        T item = slots.get(slot);
+        if (item == null) {
+            return null;
+        }
+        slots.lazySet(slot, null);
+        tail = next + 1;
+        return item;
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,78 @@
+package com.skypath.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends lines to a file, rolling it to {@code name.1}, {@code name.2}, ... once it
+ * passes {@code maxBytes}; the oldest of {@code maxFiles} is dropped. Not thread-safe.
+ */
+final class RollingFile implements AutoCloseable {
+
+    private final Path path;
+    private final long maxBytes;
+    private final int maxFiles;
+    private BufferedWriter writer;
+    private long bytes;
+
+    RollingFile(Path path, long maxBytes, int maxFiles) throws IOException {
+        this.path = path;
+        this.maxBytes = maxBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        open();
+    }
+
+    private void open() throws IOException {
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        bytes = Files.size(path);
+    }
+
+    // Lines are JSON, so ASCII apart from airline names; the length is close enough for rolling
+    void write(String line) throws IOException {
+        if (bytes > 0 && bytes + line.length() + 1 > maxBytes) {
+            roll();
+        }
+        writer.write(line);
+        writer.newLine();
+        bytes += line.length() + 1;
+    }
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void roll() throws IOException {
+        writer.close();
+        Files.deleteIfExists(rolled(maxFiles - 1));
+        for (int i = maxFiles - 2; i >= 1; i--) {
+            if (Files.exists(rolled(i))) {
+                Files.move(rolled(i), rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 1) {
+            Files.move(path, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(path);
+        }
+        open();
+    }
+
+    private Path rolled(int index) {
+        return path.resolveSibling(path.getFileName() + "." + index);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,31 @@
+package com.skypath.service;
+
+import java.time.LocalDate;
+
+/**
+ * A normalized (origin, destination, date) search.
+ */
+public record RouteKey(
+        String origin,
+        String destination,
+        LocalDate date
+) {
+
+    // Parses ORIGIN-DESTINATION@YYYY-MM-DD, as used in configuration
+    public static RouteKey parse(String spec) {
+        String trimmed = spec.trim().toUpperCase();
+        int dash = trimmed.indexOf('-');
+        int at = trimmed.indexOf('@');
+        if (dash < 0 || at < dash) {
+            throw new IllegalArgumentException(
+                    "Route must look like ORIGIN-DESTINATION@YYYY-MM-DD. Got: '" + spec + "'.");
+        }
+        return new RouteKey(trimmed.substring(0, dash), trimmed.substring(dash + 1, at),
+                LocalDate.parse(trimmed.substring(at + 1)));
+    }
+
+    @Override
+    public String toString() {
+        return origin + "-" + destination + "@" + date;
+    }
+}
@@ -0,0 +1,133 @@
+package com.skypath.service;
+
+import com.skypath.exception.SearchOverloadedException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded executor for live searches. A fixed pool with a short queue keeps
+ * the number of concurrent DFS runs at the core count; when the queue is full,
+ * or a search does not finish in time, the request fails fast with
+ * {@link SearchOverloadedException} instead of piling up on Tomcat threads.
+ *
+ * A search that times out while queued is dequeued and never runs. One that has
+ * started is cancelled too, but the DFS does not check for interruption: it keeps
+ * its worker until its own search budget ({@link SearchLimits}) runs out.
+ */
+@Component
+public class SearchAdmission {
+
+    private final ThreadPoolExecutor executor;
+
+    public SearchAdmission(@Value("${skypath.search.executor.threads:0}") int threads,
+                           @Value("${skypath.search.executor.queue-capacity:64}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "search-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs the search on the pool and waits up to {@code maxWaitMillis} for it.
+     */
+    public <T> T run(Supplier<T> search, long maxWaitMillis) {
+        FutureTask<T> future = new FutureTask<>(search::get);
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            throw new SearchOverloadedException("Too many searches in progress. Please retry shortly.");
+        }
+
+        try {
+            return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw timedOut(List.of(future));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new SearchOverloadedException("Interrupted while waiting for the search.");
+        }
+    }
+
+    /**
+     * Runs several searches on the pool at once and waits up to {@code maxWaitMillis}
+     * for all of them; results come back in the order of the suppliers. If any is
+     * rejected or fails, the others are cancelled.
+     */
+    public <T> List<T> runAll(List<Supplier<T>> searches, long maxWaitMillis) {
+        List<FutureTask<T>> futures = new ArrayList<>(searches.size());
+        try {
+            for (Supplier<T> search : searches) {
+                FutureTask<T> future = new FutureTask<>(search::get);
+                executor.execute(future);
+                futures.add(future);
+            }
+        } catch (RejectedExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new SearchOverloadedException("Too many searches in progress. Please retry shortly.");
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } catch (TimeoutException e) {
+            throw timedOut(futures);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SearchOverloadedException("Interrupted while waiting for the search.");
+        } finally {
+            if (results.size() < futures.size()) {
+                futures.forEach(f -> f.cancel(true));
+            }
+        }
+    }
+
+    // Dequeues the searches that have not started and cancels the rest; the message says which kept the caller
+    private SearchOverloadedException timedOut(List<? extends FutureTask<?>> futures) {
+        boolean queued = false;
+        for (FutureTask<?> future : futures) {
+            // Only succeeds for a search no worker has taken yet
+            queued |= executor.remove(future);
+            future.cancel(true);
+        }
+        return new SearchOverloadedException(queued
+                ? "The search could not be scheduled in time. Please retry shortly."
+                : "The search did not finish in time. Please retry shortly.");
+    }
+
+    public int queued() {
+        return executor.getQueue().size();
+    }
+}
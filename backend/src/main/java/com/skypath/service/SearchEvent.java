@@ -0,0 +1,44 @@
+package com.skypath.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One {@link FlightSearchService} search, from the coalescing lookup to the sorted
+ * result. Followers of a coalesced search are recorded too, with the result they shared.
+ */
+@Name("com.skypath.Search")
+@Label("Flight Search")
+@Category({"SkyPath", "Search"})
+@Description("A flight search with its route, result size and expansion count")
+@StackTrace(false)
+@Threshold("10 ms")
+final class SearchEvent extends jdk.jfr.Event {
+
+    @Label("Origins")
+    String origins;
+
+    @Label("Destinations")
+    String destinations;
+
+    @Label("Date")
+    String date;
+
+    @Label("Results")
+    int results;
+
+    @Label("Nodes Expanded")
+    long expansions;
+
+    @Label("Partial")
+    @Description("The search ran out of budget")
+    boolean partial;
+
+    @Label("Coalesced")
+    @Description("The result came from a concurrent identical search")
+    boolean coalesced;
+}
@@ -0,0 +1,76 @@
+package com.skypath.service;
+
+import com.skypath.model.Flight;
+
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Restrictions evaluated while the search expands paths rather than on its
+ * results. Airlines are matched by two-letter carrier code (the flight number
+ * prefix) or by airline name, ignoring case; empty lists and null bounds mean
+ * unrestricted. Departure times are local at the origin on the search date,
+ * arrival times are local at the destination, both inclusive. A positive
+ * {@code seats} keeps only flights with that many seats left (see {@link SeatInventory}).
+ */
+public record SearchFilters(
+        List<String> airlines,
+        List<String> excludedAirlines,
+        double maxPrice,
+        long maxDurationMinutes,
+        int maxStops,
+        LocalTime departAfter,
+        LocalTime departBefore,
+        LocalTime arriveAfter,
+        LocalTime arriveBefore,
+        int seats
+) {
+
+    public static final SearchFilters NONE = new SearchFilters(List.of(), List.of(),
+            Double.POSITIVE_INFINITY, Long.MAX_VALUE, FlightSearchService.MAX_STOPS, null, null, null, null, 0);
+
+    public SearchFilters {
+        airlines = List.copyOf(airlines);
+        excludedAirlines = List.copyOf(excludedAirlines);
+        maxStops = Math.min(maxStops, FlightSearchService.MAX_STOPS);
+    }
+
+    boolean restrictsAirlines() {
+        return !airlines.isEmpty() || !excludedAirlines.isEmpty();
+    }
+
+    boolean restrictsPrice() {
+        return maxPrice != Double.POSITIVE_INFINITY;
+    }
+
+    boolean requiresSeats() {
+        return seats > 0;
+    }
+
+    boolean restrictsArrival() {
+        return arriveAfter != null || arriveBefore != null;
+    }
+
+    boolean allowsCarrier(Flight flight) {
+        if (!airlines.isEmpty() && !matchesAny(airlines, flight)) {
+            return false;
+        }
+        return excludedAirlines.isEmpty() || !matchesAny(excludedAirlines, flight);
+    }
+
+    boolean allowsArrival(LocalTime arrival) {
+        return (arriveAfter == null || !arrival.isBefore(arriveAfter))
+                && (arriveBefore == null || !arrival.isAfter(arriveBefore));
+    }
+
+    private static boolean matchesAny(List<String> airlines, Flight flight) {
+        for (String airline : airlines) {
+            boolean carrierCode = airline.length() == 2
+                    && flight.flightNumber().regionMatches(true, 0, airline, 0, 2);
+            if (carrierCode || flight.airline().equalsIgnoreCase(airline)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
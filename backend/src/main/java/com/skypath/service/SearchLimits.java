@@ -0,0 +1,11 @@
+package com.skypath.service;
+
+/**
+ * Budget for one search: wall-clock time from the moment it starts and the
+ * number of DFS node expansions. When either runs out the search stops and
+ * returns what it has found, flagged as partial.
+ */
+public record SearchLimits(long timeoutMillis, long maxExpansions) {
+
+    public static final SearchLimits UNLIMITED = new SearchLimits(Long.MAX_VALUE, Long.MAX_VALUE);
+}
@@ -0,0 +1,28 @@
+package com.skypath.service;
+
+import com.skypath.model.Itinerary;
+
+import java.util.Comparator;
+
+/**
+ * Which itineraries a search returns: the {@code limit} best by {@code sort}, or
+ * all of them ({@link Integer#MAX_VALUE}). With a limit, the search keeps the best
+ * costs found so far and drops a partial path once its cost plus the
+ * {@link com.skypath.index.LowerBounds} of the rest cannot beat the last of them.
+ */
+public record SearchRanking(TripSort sort, int limit) {
+
+    public static final SearchRanking ALL = new SearchRanking(TripSort.DURATION, Integer.MAX_VALUE);
+
+    boolean isTopK() {
+        return limit < Integer.MAX_VALUE;
+    }
+
+    // Price ties go to the shorter itinerary
+    Comparator<Itinerary> comparator() {
+        Comparator<Itinerary> byDuration = Comparator.comparingLong(Itinerary::totalDurationMinutes);
+        return sort == TripSort.PRICE
+                ? Comparator.comparingDouble(Itinerary::totalPrice).thenComparing(byDuration)
+                : byDuration;
+    }
+}
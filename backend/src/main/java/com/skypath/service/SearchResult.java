@@ -0,0 +1,16 @@
+package com.skypath.service;
+
+import com.skypath.model.Itinerary;
+
+import java.util.List;
+
+/**
+ * Itineraries found by a search, shortest first. {@code partial} is set when
+ * the search ran out of budget before exploring every connection.
+ */
+public record SearchResult(List<Itinerary> itineraries, boolean partial, SearchTimings timings) {
+
+    public SearchResult(List<Itinerary> itineraries, boolean partial) {
+        this(itineraries, partial, SearchTimings.NONE);
+    }
+}
@@ -0,0 +1,164 @@
+package com.skypath.service;
+
+import com.skypath.index.LowerBounds;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread working state for one search: bitsets of visited and destination
+ * airport ids, the current path as (origin airport, bucket row) pairs with its running
+ * price, the remaining budget and, in a ranked search, the best costs found so far.
+ * Reused across searches so expanding a node allocates nothing.
+ */
+final class SearchScratch {
+
+    private static final ThreadLocal<SearchScratch> CURRENT = ThreadLocal.withInitial(SearchScratch::new);
+
+    final int[] pathAirports;
+    final int[] pathRows;
+    final double[] pathPrices;
+    // Latest arrival the duration cap allows for the current first leg
+    long latestArrival;
+    // Build itineraries in the summary view
+    boolean summary;
+    // Time spent in buildItinerary during the current search
+    long buildNanos;
+    // Departure of the current first leg
+    long firstDeparture;
+    // Set in ranked (top-K) searches only
+    LowerBounds bounds;
+    boolean rankByPrice;
+    // Max-heap of the best costs so far, at most topK of them
+    private double[] best = new double[16];
+    private int bestCount;
+    private int topK;
+    private long[] visited = new long[1];
+    private long[] destinations = new long[1];
+
+    private long expansions;
+    private long maxExpansions;
+    private long deadline;
+    private boolean timed;
+    private boolean exhausted;
+
+    private SearchScratch() {
+        this.pathAirports = new int[FlightSearchService.MAX_LEGS];
+        this.pathRows = new int[FlightSearchService.MAX_LEGS];
+        this.pathPrices = new double[FlightSearchService.MAX_LEGS];
+    }
+
+    // Scratch for the calling thread, sized for the given number of airports. The
+    // bitsets are cleared here, so bits a failed search left behind do not leak into this one.
+    static SearchScratch acquire(int airportCount) {
+        SearchScratch scratch = CURRENT.get();
+        int words = (airportCount + 63) >>> 6;
+        if (scratch.visited.length < words) {
+            scratch.visited = new long[words];
+            scratch.destinations = new long[words];
+        } else {
+            Arrays.fill(scratch.visited, 0, words, 0L);
+            Arrays.fill(scratch.destinations, 0, words, 0L);
+        }
+        return scratch;
+    }
+
+    // Ends the search: drops its lower bounds, so an idle thread does not pin an old network's tables
+    void release() {
+        bounds = null;
+    }
+
+    void startBudget(SearchLimits limits) {
+        expansions = 0;
+        maxExpansions = limits.maxExpansions();
+        timed = limits.timeoutMillis() < Long.MAX_VALUE / 1_000_000;
+        deadline = timed ? System.nanoTime() + limits.timeoutMillis() * 1_000_000 : 0;
+        exhausted = false;
+    }
+
+    // Counts one node expansion; true once the budget is spent. The clock is
+    // only read every 64 expansions to keep the check off the profile.
+    boolean spend() {
+        if (exhausted) {
+            return true;
+        }
+        expansions++;
+        if (expansions > maxExpansions
+                || (timed && (expansions & 63) == 0 && System.nanoTime() - deadline > 0)) {
+            exhausted = true;
+        }
+        return exhausted;
+    }
+
+    void startRanking(SearchRanking ranking, LowerBounds lowerBounds) {
+        bounds = lowerBounds;
+        rankByPrice = ranking.sort() == TripSort.PRICE;
+        topK = ranking.limit();
+        bestCount = 0;
+    }
+
+    // Cost a result must not exceed to make the top K; infinite until K were found
+    double threshold() {
+        return bestCount < topK ? Double.POSITIVE_INFINITY : best[0];
+    }
+
+    void offerCost(double cost) {
+        if (bestCount < topK) {
+            if (bestCount == best.length) {
+                best = Arrays.copyOf(best, bestCount * 2);
+            }
+            int i = bestCount++;
+            while (i > 0 && best[(i - 1) >>> 1] < cost) {
+                best[i] = best[(i - 1) >>> 1];
+                i = (i - 1) >>> 1;
+            }
+            best[i] = cost;
+        } else if (cost < best[0]) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= bestCount) {
+                    break;
+                }
+                if (child + 1 < bestCount && best[child + 1] > best[child]) {
+                    child++;
+                }
+                if (best[child] <= cost) {
+                    break;
+                }
+                best[i] = best[child];
+                i = child;
+            }
+            best[i] = cost;
+        }
+    }
+
+    long expansions() {
+        return expansions;
+    }
+
+    boolean isExhausted() {
+        return exhausted;
+    }
+
+    void markDestinations(int[] airports) {
+        for (int airport : airports) {
+            destinations[airport >>> 6] |= 1L << airport;
+        }
+    }
+
+    boolean isDestination(int airport) {
+        return (destinations[airport >>> 6] & (1L << airport)) != 0;
+    }
+
+    boolean isVisited(int airport) {
+        return (visited[airport >>> 6] & (1L << airport)) != 0;
+    }
+
+    void visit(int airport) {
+        visited[airport >>> 6] |= 1L << airport;
+    }
+
+    void leave(int airport) {
+        visited[airport >>> 6] &= ~(1L << airport);
+    }
+}
@@ -0,0 +1,21 @@
+package com.skypath.service;
+
+/**
+ * Where a search spent its time, in nanoseconds: finding (or, in cluster mode,
+ * gathering) the first legs, walking connections, building the
+ * itineraries it found, and sorting them; plus how many nodes the walk expanded.
+ * Coalesced searches report the timings of the computation they shared.
+ */
+public record SearchTimings(long lookupNanos, long dfsNanos, long buildNanos, long sortNanos, long expansions) {
+
+    public static final SearchTimings NONE = new SearchTimings(0, 0, 0, 0, 0);
+
+    public long totalNanos() {
+        return lookupNanos + dfsNanos + buildNanos + sortNanos;
+    }
+
+    SearchTimings plus(SearchTimings other) {
+        return new SearchTimings(lookupNanos + other.lookupNanos, dfsNanos + other.dfsNanos,
+                buildNanos + other.buildNanos, sortNanos + other.sortNanos, expansions + other.expansions);
+    }
+}
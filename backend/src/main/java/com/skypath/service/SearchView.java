@@ -0,0 +1,37 @@
+package com.skypath.service;
+
+import com.skypath.model.FlightSegment;
+import com.skypath.model.Itinerary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How much of each itinerary a search builds. SUMMARY keeps what a result list
+ * shows (airport codes, times, durations, price, stops and airlines); airport
+ * names and cities, aircraft and layovers are never looked up or built and stay
+ * null, which leaves them out of the JSON.
+ */
+public enum SearchView {
+    FULL,
+    SUMMARY;
+
+    // Trims itineraries that were built in full, e.g. hot-route table entries, to this view
+    public List<Itinerary> project(List<Itinerary> itineraries) {
+        if (this == FULL) {
+            return itineraries;
+        }
+        List<Itinerary> projected = new ArrayList<>(itineraries.size());
+        for (Itinerary itinerary : itineraries) {
+            List<FlightSegment> segments = new ArrayList<>(itinerary.segments().size());
+            for (FlightSegment s : itinerary.segments()) {
+                segments.add(new FlightSegment(s.flightNumber(), s.airline(), s.originCode(), null, null,
+                        s.destinationCode(), null, null, s.departureTime(), s.arrivalTime(),
+                        s.durationMinutes(), null));
+            }
+            projected.add(new Itinerary(segments, null, itinerary.totalDurationMinutes(),
+                    itinerary.totalPrice(), itinerary.stops()));
+        }
+        return projected;
+    }
+}
@@ -0,0 +1,87 @@
+package com.skypath.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Seats left on one flight. A hold takes its seats with a single fetch-and-add
+ * rather than a compare-and-set loop, so a burst of holds on the same flight
+ * costs one atomic instruction each instead of retrying against each other; a
+ * hold that overshoots puts its seats back and fails. Sold-out flights are refused
+ * on a plain read, without writing to the counter's cache line.
+ *
+ * While an overshoot is being put back, the count is briefly lower than it should
+ * be, so a request racing for the very last seats may be refused that a moment
+ * later would have succeeded. The count never goes below zero for a hold that
+ * succeeded, so flights are never oversold.
+ *
+ * The count is padded to a cache line of its own (superclass fields are laid out
+ * first), so counters of different flights don't invalidate each other.
+ */
+final class SeatCounter extends SeatCounterRhsPadding {
+
+    private static final VarHandle AVAILABLE;
+
+    static {
+        try {
+            AVAILABLE = MethodHandles.lookup().findVarHandle(SeatCounterValue.class, "available", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int capacity;
+    private final LongAdder sold = new LongAdder();
+
+    SeatCounter(int capacity) {
+        this.capacity = capacity;
+        AVAILABLE.setRelease(this, capacity);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    // Neither held nor sold
+    int available() {
+        return (int) AVAILABLE.getVolatile(this);
+    }
+
+    int sold() {
+        return (int) sold.sum();
+    }
+
+    boolean tryTake(int seats) {
+        if (available() < seats) {
+            return false;
+        }
+        int before = (int) AVAILABLE.getAndAdd(this, -seats);
+        if (before >= seats) {
+            return true;
+        }
+        AVAILABLE.getAndAdd(this, seats);
+        return false;
+    }
+
+    void giveBack(int seats) {
+        AVAILABLE.getAndAdd(this, seats);
+    }
+
+    // Held seats that were paid for; they stay taken
+    void sell(int seats) {
+        sold.add(seats);
+    }
+}
+
+abstract class SeatCounterLhsPadding {
+    long p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class SeatCounterValue extends SeatCounterLhsPadding {
+    volatile int available;
+}
+
+abstract class SeatCounterRhsPadding extends SeatCounterValue {
+    long p11, p12, p13, p14, p15, p16, p17;
+}
@@ -0,0 +1,287 @@
+package com.skypath.service;
+
+import com.skypath.cluster.ShardRouter;
+import com.skypath.exception.InventoryException;
+import com.skypath.model.Flight;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Per-flight seat inventory with holds that are confirmed (sold) or released.
+ *
+ * Each flight's seats are a {@link SeatCounter} taken with one atomic add, with no
+ * lock shared between flights or holds, so flash sales with thousands of holds a
+ * second on a few flights don't queue behind each other. A hold on several legs is
+ * all-or-nothing: legs are taken in order and the ones already taken are given back
+ * when a later one is sold out. A hold is settled exactly once, by whichever of
+ * confirm, release or expiry wins a compare-and-set on its status.
+ *
+ * Unconfirmed holds expire after the hold time; expiries sit in a
+ * {@link TimerWheel} driven by one thread, so scheduling one costs a queue append.
+ * Capacity comes from the aircraft type when a flight's counter is first needed;
+ * a later aircraft change doesn't resize it. Counts live in this node's memory and
+ * are not available in cluster mode, where nodes would each count their own.
+ */
+@Service
+public class SeatInventory {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatInventory.class);
+
+    private static final int WHEEL_SLOTS = 512;
+
+    public enum Status { HELD, CONFIRMED, RELEASED, EXPIRED }
+
+    /**
+     * Seats held on every leg of an itinerary until it is confirmed, released or expires.
+     */
+    public static final class Hold {
+        private final String id;
+        private final List<String> flightNumbers;
+        private final SeatCounter[] counters;
+        private final int seats;
+        private final Instant expiresAt;
+        private final long deadlineNanos;
+        private final AtomicReference<Status> status = new AtomicReference<>(Status.HELD);
+
+        private Hold(String id, List<String> flightNumbers, SeatCounter[] counters, int seats, Instant expiresAt,
+                     long deadlineNanos) {
+            this.id = id;
+            this.flightNumbers = flightNumbers;
+            this.counters = counters;
+            this.seats = seats;
+            this.expiresAt = expiresAt;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public List<String> flightNumbers() {
+            return flightNumbers;
+        }
+
+        public int seats() {
+            return seats;
+        }
+
+        public Instant expiresAt() {
+            return expiresAt;
+        }
+
+        public Status status() {
+            return status.get();
+        }
+
+        // True for the one caller that moves the hold out of HELD
+        private boolean settle(Status to) {
+            return status.compareAndSet(Status.HELD, to);
+        }
+    }
+
+    private final ShardRouter shardRouter;
+    private final Map<String, Integer> capacities = new HashMap<>();
+    private final int defaultCapacity;
+    private final long holdNanos;
+    private final int maxSeatsPerHold;
+    private final long tickMillis;
+
+    private final Map<String, SeatCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+    private final TimerWheel<Hold> expiries;
+    private ScheduledExecutorService executor;
+
+    public SeatInventory(ShardRouter shardRouter,
+                         @Value("${skypath.inventory.capacity:A319:144,A320:180,A321:220,A350:325,A380:555,B737:172,B777:396,B787:296}")
+                         String[] capacity,
+                         @Value("${skypath.inventory.default-capacity:180}") int defaultCapacity,
+                         @Value("${skypath.inventory.hold-seconds:600}") long holdSeconds,
+                         @Value("${skypath.inventory.max-seats-per-hold:9}") int maxSeatsPerHold,
+                         @Value("${skypath.inventory.expiry-tick-millis:100}") long tickMillis) {
+        this.shardRouter = shardRouter;
+        // AIRCRAFT:SEATS
+        for (String spec : capacity) {
+            int colon = spec.indexOf(':');
+            if (colon > 0) {
+                capacities.put(spec.substring(0, colon).trim(), Integer.parseInt(spec.substring(colon + 1).trim()));
+            }
+        }
+        this.defaultCapacity = defaultCapacity;
+        this.holdNanos = TimeUnit.SECONDS.toNanos(holdSeconds);
+        this.maxSeatsPerHold = maxSeatsPerHold;
+        this.tickMillis = tickMillis;
+        this.expiries = new TimerWheel<>(WHEEL_SLOTS, TimeUnit.MILLISECONDS.toNanos(tickMillis), System.nanoTime());
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seat-hold-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleAtFixedRate(this::expireDue, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public boolean isAvailable() {
+        return !shardRouter.isEnabled();
+    }
+
+    /**
+     * Holds the seats on every leg, or on none: throws SOLD_OUT (409) naming the
+     * first leg without enough seats left.
+     */
+    public Hold hold(List<Flight> legs, int seats) {
+        if (seats < 1 || seats > maxSeatsPerHold) {
+            throw new InventoryException("INVALID_SEATS",
+                    "seats must be between 1 and " + maxSeatsPerHold + ". Got: " + seats + ".",
+                    HttpStatus.BAD_REQUEST);
+        }
+        List<String> flightNumbers = legs.stream().map(Flight::flightNumber).toList();
+        if (flightNumbers.isEmpty() || new HashSet<>(flightNumbers).size() < flightNumbers.size()) {
+            throw new InventoryException("INVALID_HOLD", "A hold needs one or more distinct flights.",
+                    HttpStatus.BAD_REQUEST);
+        }
+
+        SeatCounter[] taken = new SeatCounter[legs.size()];
+        for (int i = 0; i < taken.length; i++) {
+            SeatCounter counter = counter(legs.get(i));
+            if (!counter.tryTake(seats)) {
+                for (int j = 0; j < i; j++) {
+                    taken[j].giveBack(seats);
+                }
+                throw new InventoryException("SOLD_OUT",
+                        "Flight " + flightNumbers.get(i) + " has fewer than " + seats + " seats left.",
+                        HttpStatus.CONFLICT);
+            }
+            taken[i] = counter;
+        }
+
+        long deadline = System.nanoTime() + holdNanos;
+        Hold hold = new Hold(newId(), flightNumbers, taken, seats, Instant.now().plusNanos(holdNanos), deadline);
+        holds.put(hold.id, hold);
+        expiries.schedule(hold, deadline);
+        return hold;
+    }
+
+    /**
+     * Sells the held seats. Throws HOLD_NOT_FOUND (404) once the hold has expired or
+     * was settled, even if its expiry has not been processed yet.
+     */
+    public Hold confirm(String holdId) {
+        Hold hold = holds.get(holdId);
+        if (hold != null && System.nanoTime() - hold.deadlineNanos >= 0) {
+            expire(hold);
+        }
+        if (hold == null || !hold.settle(Status.CONFIRMED)) {
+            throw holdNotFound(holdId);
+        }
+        for (SeatCounter counter : hold.counters) {
+            counter.sell(hold.seats);
+        }
+        holds.remove(holdId, hold);
+        return hold;
+    }
+
+    /**
+     * Gives the held seats back.
+     */
+    public Hold release(String holdId) {
+        Hold hold = holds.get(holdId);
+        if (hold == null || !hold.settle(Status.RELEASED)) {
+            throw holdNotFound(holdId);
+        }
+        for (SeatCounter counter : hold.counters) {
+            counter.giveBack(hold.seats);
+        }
+        holds.remove(holdId, hold);
+        return hold;
+    }
+
+    /**
+     * Whether the flight has at least this many seats neither held nor sold. A map
+     * lookup and a volatile read, cheap enough for every leg a search expands.
+     */
+    public boolean hasSeats(Flight flight, int seats) {
+        SeatCounter counter = counters.get(flight.flightNumber());
+        return (counter != null ? counter.available() : capacity(flight)) >= seats;
+    }
+
+    public int capacity(Flight flight) {
+        SeatCounter counter = counters.get(flight.flightNumber());
+        return counter != null ? counter.capacity() : capacities.getOrDefault(flight.aircraft(), defaultCapacity);
+    }
+
+    public int available(Flight flight) {
+        SeatCounter counter = counters.get(flight.flightNumber());
+        return counter != null ? counter.available() : capacity(flight);
+    }
+
+    public int sold(Flight flight) {
+        SeatCounter counter = counters.get(flight.flightNumber());
+        return counter != null ? counter.sold() : 0;
+    }
+
+    public int activeHolds() {
+        return holds.size();
+    }
+
+    // Runs on the expiry thread
+    void expireDue() {
+        try {
+            expiries.advance(System.nanoTime(), this::expire);
+        } catch (RuntimeException e) {
+            log.error("Expiring seat holds failed", e);
+        }
+    }
+
+    // Confirmed and released holds are still in the wheel; for them this is a no-op
+    private void expire(Hold hold) {
+        if (hold.settle(Status.EXPIRED)) {
+            for (SeatCounter counter : hold.counters) {
+                counter.giveBack(hold.seats);
+            }
+        }
+        holds.remove(hold.id, hold);
+    }
+
+    private SeatCounter counter(Flight flight) {
+        SeatCounter counter = counters.get(flight.flightNumber());
+        if (counter != null) {
+            return counter;
+        }
+        return counters.computeIfAbsent(flight.flightNumber(),
+                number -> new SeatCounter(capacities.getOrDefault(flight.aircraft(), defaultCapacity)));
+    }
+
+    // Hold ids identify holds, they don't authorize; ThreadLocalRandom keeps id generation uncontended
+    private static String newId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+
+    private static InventoryException holdNotFound(String holdId) {
+        return new InventoryException("HOLD_NOT_FOUND",
+                "Hold '" + holdId + "' does not exist, has expired or was already confirmed or released.",
+                HttpStatus.NOT_FOUND);
+    }
+}
@@ -0,0 +1,104 @@
+package com.skypath.service;
+
+import com.skypath.index.FlightNetwork;
+import com.skypath.model.Flight;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the watched searches a changed flight can be a leg of, without looking at
+ * the others. With at most three legs, a flight {@code a -> b} is a leg of an
+ * itinerary from O to D only if {@code a} is in O, {@code b} is in D, or it is the
+ * middle leg, i.e. {@code a} is a first stop (one leg out of O) and {@code b} a last
+ * stop (one leg into D). Watches are indexed under each of the four roles.
+ *
+ * First and last stops come from the airport graph when a watch is added and grow
+ * with every change applied afterwards; they are never shrunk, so a stale entry
+ * only costs a needless recomputation. A new route becomes a first or last stop in
+ * the same batch that touches O or D, and that batch recomputes the watch anyway.
+ * Not thread-safe.
+ */
+final class SubscriptionIndex<W> {
+
+    private final Map<String, Set<W>> byOrigin = new HashMap<>();
+    private final Map<String, Set<W>> byDestination = new HashMap<>();
+    private final Map<String, Set<W>> byFirstStop = new HashMap<>();
+    private final Map<String, Set<W>> byLastStop = new HashMap<>();
+
+    void add(W watch, Collection<String> origins, Collection<String> destinations, FlightNetwork network) {
+        for (String origin : origins) {
+            put(byOrigin, origin, watch);
+            int id = network.airportId(origin);
+            if (id >= 0) {
+                for (int stop : network.bucket(id).destinationAirports()) {
+                    put(byFirstStop, network.airport(stop).code(), watch);
+                }
+            }
+        }
+        for (String destination : destinations) {
+            put(byDestination, destination, watch);
+            int id = network.airportId(destination);
+            if (id >= 0) {
+                for (int stop : network.inboundOrigins(id)) {
+                    put(byLastStop, network.airport(stop).code(), watch);
+                }
+            }
+        }
+    }
+
+    void remove(W watch, Collection<String> origins, Collection<String> destinations) {
+        for (String origin : origins) {
+            remove(byOrigin, origin, watch);
+        }
+        for (String destination : destinations) {
+            remove(byDestination, destination, watch);
+        }
+        // Stops are not tracked per watch, so removal scans the stop indexes
+        byFirstStop.values().forEach(watches -> watches.remove(watch));
+        byFirstStop.values().removeIf(Set::isEmpty);
+        byLastStop.values().forEach(watches -> watches.remove(watch));
+        byLastStop.values().removeIf(Set::isEmpty);
+    }
+
+    /**
+     * Watches any of the flights could be a leg of, before or after the change
+     * (the flights hold both images), and records the routes they add as stops.
+     */
+    Set<W> affected(Collection<Flight> flights) {
+        Set<W> affected = new LinkedHashSet<>();
+        for (Flight f : flights) {
+            affected.addAll(byOrigin.getOrDefault(f.origin(), Set.of()));
+            affected.addAll(byDestination.getOrDefault(f.destination(), Set.of()));
+            Set<W> lastStops = byLastStop.getOrDefault(f.destination(), Set.of());
+            for (W watch : byFirstStop.getOrDefault(f.origin(), Set.of())) {
+                if (lastStops.contains(watch)) {
+                    affected.add(watch);
+                }
+            }
+        }
+        for (Flight f : flights) {
+            for (W watch : byOrigin.getOrDefault(f.origin(), Set.of())) {
+                put(byFirstStop, f.destination(), watch);
+            }
+            for (W watch : byDestination.getOrDefault(f.destination(), Set.of())) {
+                put(byLastStop, f.origin(), watch);
+            }
+        }
+        return affected;
+    }
+
+    private static <W> void put(Map<String, Set<W>> index, String airport, W watch) {
+        index.computeIfAbsent(airport, a -> new LinkedHashSet<>()).add(watch);
+    }
+
+    private static <W> void remove(Map<String, Set<W>> index, String airport, W watch) {
+        Set<W> watches = index.get(airport);
+        if (watches != null && watches.remove(watch) && watches.isEmpty()) {
+            index.remove(airport);
+        }
+    }
+}
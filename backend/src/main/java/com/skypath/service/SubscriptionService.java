@@ -0,0 +1,238 @@
+package com.skypath.service;
+
+import com.skypath.cluster.ShardRouter;
+import com.skypath.dto.SearchUpdate;
+import com.skypath.exception.SearchOverloadedException;
+import com.skypath.model.Flight;
+import com.skypath.model.Itinerary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent updates for saved searches, instead of clients polling the search.
+ *
+ * Subscribers to the same search share one watch, which holds the last result. On
+ * every schedule change, a {@link SubscriptionIndex} narrows the watches to those a
+ * changed flight can be a leg of; only these are searched again, and subscribers get
+ * the itineraries added and removed. A full reload recomputes every watch. A single
+ * thread owns the watches and the index, so changes are applied in version order.
+ */
+@Service
+public class SubscriptionService {
+
+    private static final Logger log = LoggerFactory.getLogger(SubscriptionService.class);
+
+    private final FlightSearchService searchService;
+    private final FlightDataService dataService;
+    private final ShardRouter shardRouter;
+
+    @Value("${skypath.subscriptions.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    // SSE connections are closed after this long; EventSource clients reconnect on their own
+    @Value("${skypath.subscriptions.timeout-millis:1800000}")
+    private long timeoutMillis;
+
+    // Only touched on the subscription thread
+    private final Map<WatchKey, Watch> watches = new HashMap<>();
+    private SubscriptionIndex<Watch> index = new SubscriptionIndex<>();
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private ExecutorService executor;
+
+    // Airport sets sorted, so that equivalent searches share a watch
+    private record WatchKey(List<String> origins, List<String> destinations, LocalDate date,
+                            SearchFilters filters) {
+    }
+
+    private static final class Watch {
+        final WatchKey key;
+        final Set<SseEmitter> emitters = new LinkedHashSet<>();
+        List<Itinerary> itineraries = List.of();
+        // Dataset version the itineraries were computed for (at least)
+        long version;
+
+        Watch(WatchKey key) {
+            this.key = key;
+        }
+    }
+
+    public SubscriptionService(FlightSearchService searchService, FlightDataService dataService,
+                               ShardRouter shardRouter) {
+        this.searchService = searchService;
+        this.dataService = dataService;
+        this.shardRouter = shardRouter;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "search-subscriptions");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Not in cluster mode, where a node only sees the changes to its own shard.
+     */
+    public boolean isAvailable() {
+        return !shardRouter.isEnabled();
+    }
+
+    /**
+     * Opens a subscription: the current result arrives as a {@code snapshot} event,
+     * then each change as an {@code update} event with the added and removed itineraries.
+     */
+    public SseEmitter subscribe(Collection<String> origins, Collection<String> destinations, LocalDate date,
+                                SearchFilters filters) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new SearchOverloadedException("Too many search subscriptions, try again later.");
+        }
+        WatchKey key = new WatchKey(origins.stream().sorted().distinct().toList(),
+                destinations.stream().sorted().distinct().toList(), date, filters);
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Runnable unsubscribe = () -> executor.execute(() -> remove(key, emitter));
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        executor.execute(() -> add(key, emitter));
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.get();
+    }
+
+    @EventListener
+    public void onDatasetChanged(DatasetChangedEvent event) {
+        executor.execute(() -> refresh(event));
+    }
+
+    private void add(WatchKey key, SseEmitter emitter) {
+        try {
+            Watch watch = watches.get(key);
+            if (watch == null) {
+                watch = new Watch(key);
+                watch.version = dataService.getNetwork().version();
+                watch.itineraries = search(key);
+                watches.put(key, watch);
+                index.add(watch, key.origins(), key.destinations(), dataService.getNetwork());
+            }
+            watch.emitters.add(emitter);
+            send(watch, emitter, "snapshot", new SearchUpdate(watch.version, watch.itineraries, List.of(),
+                    watch.itineraries.size()));
+        } catch (RuntimeException e) {
+            log.error("Subscription to {} failed", key, e);
+            Watch watch = watches.get(key);
+            if (watch == null || !watch.emitters.contains(emitter)) {
+                subscribers.decrementAndGet();
+            }
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void remove(WatchKey key, SseEmitter emitter) {
+        Watch watch = watches.get(key);
+        if (watch == null || !watch.emitters.remove(emitter)) {
+            return;
+        }
+        subscribers.decrementAndGet();
+        if (watch.emitters.isEmpty()) {
+            watches.remove(key);
+            index.remove(watch, key.origins(), key.destinations());
+        }
+    }
+
+    private void refresh(DatasetChangedEvent event) {
+        Collection<Watch> affected;
+        if (event.fullReload()) {
+            // Stops may have changed anywhere, so the index starts over
+            affected = List.copyOf(watches.values());
+            index = new SubscriptionIndex<>();
+            affected.forEach(watch -> index.add(watch, watch.key.origins(), watch.key.destinations(),
+                    dataService.getNetwork()));
+        } else {
+            affected = index.affected(event.changedFlights());
+        }
+        int recomputed = 0;
+        for (Watch watch : affected) {
+            if (!event.fullReload() && !nearDate(watch.key.date(), event.changedFlights())) {
+                continue;
+            }
+            try {
+                List<Itinerary> next = search(watch.key);
+                recomputed++;
+                Set<Itinerary> previous = new HashSet<>(watch.itineraries);
+                Set<Itinerary> current = new HashSet<>(next);
+                List<Itinerary> added = next.stream().filter(i -> !previous.contains(i)).toList();
+                List<Itinerary> removed = watch.itineraries.stream().filter(i -> !current.contains(i)).toList();
+                watch.itineraries = next;
+                watch.version = event.version();
+                if (!added.isEmpty() || !removed.isEmpty()) {
+                    SearchUpdate update = new SearchUpdate(event.version(), added, removed, next.size());
+                    for (SseEmitter emitter : List.copyOf(watch.emitters)) {
+                        send(watch, emitter, "update", update);
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.error("Recomputing subscribed search {} failed", watch.key, e);
+            }
+        }
+        if (recomputed > 0) {
+            log.debug("Dataset version {}: recomputed {} of {} subscribed searches.",
+                    event.version(), recomputed, watches.size());
+        }
+    }
+
+    // Itineraries span at most a few days from the search date, in local times
+    private static boolean nearDate(LocalDate date, List<Flight> flights) {
+        for (Flight f : flights) {
+            LocalDate departure = f.departureTime().toLocalDate();
+            if (!departure.isBefore(date.minusDays(1)) && !departure.isAfter(date.plusDays(3))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Complete results: a budget-truncated one would show up as removed itineraries
+    private List<Itinerary> search(WatchKey key) {
+        return searchService.search(key.origins(), key.destinations(), key.date(), SearchLimits.UNLIMITED,
+                key.filters()).itineraries();
+    }
+
+    private void send(Watch watch, SseEmitter emitter, String name, SearchUpdate update) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(update));
+        } catch (IOException | IllegalStateException e) {
+            // Gone client; completing the emitter runs its completion callback
+            watch.emitters.remove(emitter);
+            subscribers.decrementAndGet();
+            emitter.completeWithError(e);
+            if (watch.emitters.isEmpty()) {
+                watches.remove(watch.key);
+                index.remove(watch, watch.key.origins(), watch.key.destinations());
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.skypath.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: deadlines are hashed by tick into a ring of slots, so a
+ * tick only looks at the one slot it lands on, however many timeouts are pending.
+ * Timeouts more than one turn away sit in their slot until their tick comes round.
+ *
+ * Any thread may schedule, which is an append to a lock-free queue; the slots are
+ * owned by the one thread calling {@link #advance}, which moves scheduled timeouts
+ * into place before firing the due ones. Timeouts fire on the first tick at or after
+ * their deadline, never early. There is no cancelling: the owner of an item that
+ * was settled in the meantime ignores it when it fires.
+ */
+final class TimerWheel<T> {
+
+    private record Timeout<T>(T item, long deadlineNanos) {
+    }
+
+    private final Queue<Timeout<T>> scheduled = new ConcurrentLinkedQueue<>();
+    private final List<List<Timeout<T>>> slots;
+    private final int mask;
+    private final long tickNanos;
+    private final long originNanos;
+    // Next tick to fire; only touched by the advancing thread
+    private long tick;
+
+    // Slot count is rounded up to a power of two
+    TimerWheel(int slots, long tickNanos, long originNanos) {
+        int size = 1 << (32 - Integer.numberOfLeadingZeros(Math.max(1, slots - 1)));
+        this.slots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            this.slots.add(new ArrayList<>());
+        }
+        this.mask = size - 1;
+        this.tickNanos = tickNanos;
+        this.originNanos = originNanos;
+    }
+
+    void schedule(T item, long deadlineNanos) {
+        scheduled.add(new Timeout<>(item, deadlineNanos));
+    }
+
+    /**
+     * Fires, in tick order, every timeout due by {@code nowNanos}; returns how many.
+     * Must only be called from one thread.
+     */
+    int advance(long nowNanos, Consumer<T> expired) {
+        for (Timeout<T> timeout; (timeout = scheduled.poll()) != null; ) {
+            // Already due ones go into the slot fired next
+            long due = Math.max(tickOf(timeout.deadlineNanos()), tick);
+            slots.get((int) (due & mask)).add(timeout);
+        }
+
+        long last = Math.floorDiv(nowNanos - originNanos, tickNanos);
+        int fired = 0;
+        for (; tick <= last; tick++) {
+            List<Timeout<T>> slot = slots.get((int) (tick & mask));
+            if (slot.isEmpty()) {
+                continue;
+            }
+            List<Timeout<T>> later = new ArrayList<>();
+            for (Timeout<T> timeout : slot) {
+                if (tickOf(timeout.deadlineNanos()) <= tick) {
+                    expired.accept(timeout.item());
+                    fired++;
+                } else {
+                    later.add(timeout);
+                }
+            }
+            slots.set((int) (tick & mask), later);
+        }
+        return fired;
+    }
+
+    // First tick starting at or after the deadline
+    private long tickOf(long deadlineNanos) {
+        return Math.floorDiv(deadlineNanos - originNanos + tickNanos - 1, tickNanos);
+    }
+}
@@ -0,0 +1,116 @@
+package com.skypath.service;
+
+import com.skypath.model.Itinerary;
+import com.skypath.model.Trip;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Picks the k best combinations of one itinerary per leg without building the
+ * cross product.
+ *
+ * Every leg's list is sorted by cost, so the cheapest combination takes row 0
+ * of each. Any other combination is reached from exactly one cheaper parent by
+ * incrementing its last non-zero row; a heap of those frontier combinations
+ * yields them in cost order while touching O(k * legs) of them. Combinations
+ * where a leg leaves before the previous one lands plus the minimum stay are
+ * skipped. Work is capped at maxCandidates popped combinations.
+ */
+final class TripCombiner {
+
+    private TripCombiner() {
+    }
+
+    // rows[j] is the row taken from leg j; children only advance legs from pivot on
+    private record Candidate(int[] rows, int pivot, double cost) {
+    }
+
+    static TripResult topK(List<List<Itinerary>> legs, TripSort sort, long minStayMinutes, int k,
+                           int maxCandidates) {
+        List<Trip> trips = new ArrayList<>();
+        int n = legs.size();
+        if (k <= 0 || legs.stream().anyMatch(List::isEmpty)) {
+            return new TripResult(trips, false);
+        }
+
+        Comparator<Itinerary> byCost = Comparator.comparingDouble(sort::cost);
+        List<List<Itinerary>> sorted = new ArrayList<>(n);
+        double[][] costs = new double[n][];
+        long[][] departures = new long[n][];
+        long[][] arrivals = new long[n][];
+        for (int j = 0; j < n; j++) {
+            List<Itinerary> leg = legs.get(j).stream().sorted(byCost).toList();
+            sorted.add(leg);
+            costs[j] = leg.stream().mapToDouble(sort::cost).toArray();
+            departures[j] = leg.stream().mapToLong(TripCombiner::departure).toArray();
+            arrivals[j] = leg.stream().mapToLong(TripCombiner::arrival).toArray();
+        }
+        long minStaySeconds = minStayMinutes * 60;
+
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(Comparator.comparingDouble(Candidate::cost));
+        frontier.add(new Candidate(new int[n], 0, cost(costs, new int[n])));
+        int popped = 0;
+        while (!frontier.isEmpty() && trips.size() < k) {
+            if (popped++ == maxCandidates) {
+                return new TripResult(trips, true);
+            }
+            Candidate candidate = frontier.poll();
+            int[] rows = candidate.rows();
+            if (connects(rows, departures, arrivals, minStaySeconds)) {
+                trips.add(trip(sorted, rows));
+            }
+            for (int j = candidate.pivot(); j < n; j++) {
+                if (rows[j] + 1 < costs[j].length) {
+                    int[] next = rows.clone();
+                    next[j]++;
+                    frontier.add(new Candidate(next, j, cost(costs, next)));
+                }
+            }
+        }
+        return new TripResult(trips, false);
+    }
+
+    private static double cost(double[][] costs, int[] rows) {
+        double cost = 0;
+        for (int j = 0; j < rows.length; j++) {
+            cost += costs[j][rows[j]];
+        }
+        return cost;
+    }
+
+    // Each leg departs at least the minimum stay after the previous one arrives
+    private static boolean connects(int[] rows, long[][] departures, long[][] arrivals, long minStaySeconds) {
+        for (int j = 1; j < rows.length; j++) {
+            if (departures[j][rows[j]] < arrivals[j - 1][rows[j - 1]] + minStaySeconds) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Trip trip(List<List<Itinerary>> legs, int[] rows) {
+        List<Itinerary> chosen = new ArrayList<>(rows.length);
+        long duration = 0;
+        double price = 0;
+        for (int j = 0; j < rows.length; j++) {
+            Itinerary itinerary = legs.get(j).get(rows[j]);
+            chosen.add(itinerary);
+            duration += itinerary.totalDurationMinutes();
+            price += itinerary.totalPrice();
+        }
+        return new Trip(List.copyOf(chosen), duration, Math.round(price * 100.0) / 100.0);
+    }
+
+    private static long departure(Itinerary itinerary) {
+        return OffsetDateTime.parse(itinerary.segments().get(0).departureTime()).toEpochSecond();
+    }
+
+    private static long arrival(Itinerary itinerary) {
+        int last = itinerary.segments().size() - 1;
+        return OffsetDateTime.parse(itinerary.segments().get(last).arrivalTime()).toEpochSecond();
+    }
+}
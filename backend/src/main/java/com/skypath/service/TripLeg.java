@@ -0,0 +1,11 @@
+package com.skypath.service;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * One leg of a trip: from any of the origin airports to any of the destination
+ * airports, departing on the date.
+ */
+public record TripLeg(Set<String> origins, Set<String> destinations, LocalDate date) {
+}
@@ -0,0 +1,12 @@
+package com.skypath.service;
+
+import com.skypath.model.Trip;
+
+import java.util.List;
+
+/**
+ * The best trips found, cheapest (or shortest) first. {@code partial} is set when a
+ * leg search ran out of budget or the ranking stopped at its candidate limit.
+ */
+public record TripResult(List<Trip> trips, boolean partial) {
+}
@@ -0,0 +1,68 @@
+package com.skypath.service;
+
+import com.skypath.index.FlightNetwork;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Searches trips made of several one-way searches. The legs run concurrently on
+ * the search pool against one dataset snapshot, and only the best combinations
+ * are assembled, so neither the work nor the response grows with the product
+ * of the leg result counts.
+ */
+@Service
+public class TripSearchService {
+
+    private final FlightSearchService searchService;
+    private final SearchAdmission admission;
+
+    // Upper bound on combinations examined per request when stay rules reject many of them
+    @Value("${skypath.trips.max-candidates:10000}")
+    private int maxCandidates;
+
+    public TripSearchService(FlightSearchService searchService, SearchAdmission admission) {
+        this.searchService = searchService;
+        this.admission = admission;
+    }
+
+    /**
+     * The best {@code limit} round trips: out on {@code departDate}, back from any
+     * destination airport to any origin airport on {@code returnDate}, leaving at
+     * least {@code minStayMinutes} after the outbound lands.
+     */
+    public TripResult roundTrip(Set<String> origins, Set<String> destinations, LocalDate departDate,
+                                LocalDate returnDate, long minStayMinutes, SearchLimits limits,
+                                SearchFilters filters, TripSort sort, int limit, long maxWaitMillis) {
+        List<TripLeg> legs = List.of(
+                new TripLeg(origins, destinations, departDate),
+                new TripLeg(destinations, origins, returnDate));
+        return multiCity(legs, minStayMinutes, limits, filters, sort, limit, maxWaitMillis);
+    }
+
+    /**
+     * The best {@code limit} trips taking the legs in order, each leaving at least
+     * {@code minStayMinutes} after the previous one lands. Legs need not connect
+     * (open jaw).
+     */
+    public TripResult multiCity(List<TripLeg> legs, long minStayMinutes, SearchLimits limits,
+                                SearchFilters filters, TripSort sort, int limit, long maxWaitMillis) {
+        FlightNetwork snapshot = searchService.snapshot();
+        List<Supplier<SearchResult>> searches = new ArrayList<>(legs.size());
+        for (TripLeg leg : legs) {
+            searches.add(() -> searchService.search(snapshot, leg.origins(), leg.destinations(), leg.date(),
+                    limits, filters, SearchView.FULL));
+        }
+        List<SearchResult> results = admission.runAll(searches, maxWaitMillis);
+
+        TripResult trips = TripCombiner.topK(results.stream().map(SearchResult::itineraries).toList(),
+                sort, minStayMinutes, limit, maxCandidates);
+        boolean partial = trips.partial() || results.stream().anyMatch(SearchResult::partial);
+        return new TripResult(trips.trips(), partial);
+    }
+}
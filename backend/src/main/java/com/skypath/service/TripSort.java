@@ -0,0 +1,15 @@
+package com.skypath.service;
+
+import com.skypath.model.Itinerary;
+
+/**
+ * What trips and ranked searches are ordered by; a trip costs the sum of its legs.
+ */
+public enum TripSort {
+    PRICE,
+    DURATION;
+
+    double cost(Itinerary itinerary) {
+        return this == PRICE ? itinerary.totalPrice() : itinerary.totalDurationMinutes();
+    }
+}
@@ -0,0 +1,98 @@
+package com.skypath.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypath.dto.SearchResponse;
+import com.skypath.model.Itinerary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays a fixed set of representative searches after startup so the JIT has
+ * compiled the search and serialization paths before the instance reports
+ * ready. Runs once, on its own thread.
+ */
+@Service
+public class WarmupService {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupService.class);
+
+    private final FlightSearchService searchService;
+    private final FlightDataService dataService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${skypath.warmup.enabled:true}")
+    private boolean enabled;
+
+    // Comma-separated ORIGIN-DESTINATION@YYYY-MM-DD, mixing direct, multi-stop and empty routes
+    @Value("${skypath.warmup.searches:}")
+    private String[] searches;
+
+    @Value("${skypath.warmup.iterations:300}")
+    private int iterations;
+
+    @Value("${skypath.warmup.max-seconds:20}")
+    private long maxSeconds;
+
+    private volatile boolean done;
+
+    public WarmupService(FlightSearchService searchService, FlightDataService dataService,
+                         ObjectMapper objectMapper) {
+        this.searchService = searchService;
+        this.dataService = dataService;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            done = true;
+            return;
+        }
+        Thread thread = new Thread(this::warmUp, "warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    private void warmUp() {
+        try {
+            List<RouteKey> routes = new ArrayList<>();
+            for (String spec : searches) {
+                if (!spec.isBlank()) {
+                    routes.add(RouteKey.parse(spec));
+                }
+            }
+
+            long started = System.nanoTime();
+            long deadline = started + maxSeconds * 1_000_000_000L;
+            int runs = 0;
+            for (int i = 0; i < iterations && !routes.isEmpty() && System.nanoTime() < deadline; i++) {
+                for (RouteKey route : routes) {
+                    if (!dataService.airportExists(route.origin()) || !dataService.airportExists(route.destination())) {
+                        continue;
+                    }
+                    List<Itinerary> itineraries = searchService.search(route.origin(), route.destination(),
+                            route.date());
+                    objectMapper.writeValueAsBytes(new SearchResponse(itineraries, itineraries.size(), false));
+                    runs++;
+                }
+            }
+            log.info("Warmup ran {} searches in {} ms.", runs, (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            // A failed warmup only costs latency; never keep the instance out of rotation for it
+            log.warn("Warmup stopped early: {}", e.getMessage());
+        } finally {
+            done = true;
+        }
+    }
+}
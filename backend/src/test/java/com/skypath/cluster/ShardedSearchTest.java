@@ -0,0 +1,148 @@
+package com.skypath.cluster;
+
+import com.skypath.SkypathBackendApplication;
+import com.skypath.dto.ScheduleChange;
+import com.skypath.model.Itinerary;
+import com.skypath.service.FlightDataService;
+import com.skypath.service.FlightSearchService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs three origin-sharded nodes on localhost and checks that searches
+ * coordinated by any of them match the single-node results.
+ */
+@SpringBootTest
+class ShardedSearchTest {
+
+    private static final LocalDate SEARCH_DATE = LocalDate.of(2024, 3, 15);
+    private static final List<ConfigurableApplicationContext> shards = new ArrayList<>();
+    private static final List<String> shardUrls = new ArrayList<>();
+
+    @Autowired
+    private FlightDataService singleNodeData;
+
+    @Autowired
+    private FlightSearchService singleNode;
+
+    @BeforeAll
+    static void startShards() throws IOException {
+        int[] ports = new int[3];
+        for (int i = 0; i < ports.length; i++) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                ports[i] = socket.getLocalPort();
+            }
+        }
+        Arrays.stream(ports).mapToObj(p -> "http://localhost:" + p).forEach(shardUrls::add);
+        String urls = String.join(",", shardUrls);
+
+        for (int i = 0; i < ports.length; i++) {
+            shards.add(new SpringApplicationBuilder(SkypathBackendApplication.class)
+                    .properties(
+                            "server.port=" + ports[i],
+                            "skypath.cluster.enabled=true",
+                            "skypath.cluster.shards=" + urls,
+                            "skypath.cluster.self=" + i,
+                            "skypath.hot-routes.pinned=")
+                    .run());
+        }
+    }
+
+    @AfterAll
+    static void stopShards() {
+        shards.forEach(ConfigurableApplicationContext::close);
+        shards.clear();
+        shardUrls.clear();
+    }
+
+    private static Set<String> describe(List<Itinerary> itineraries) {
+        Set<String> described = new HashSet<>();
+        itineraries.forEach(it -> described.add(it.toString()));
+        return described;
+    }
+
+    private void assertSameAsSingleNode(int coordinator, String origin, String destination) {
+        List<Itinerary> expected = singleNode.search(origin, destination, SEARCH_DATE);
+        List<Itinerary> actual = shards.get(coordinator).getBean(FlightSearchService.class)
+                .search(origin, destination, SEARCH_DATE);
+
+        assertEquals(expected.size(), actual.size(), origin + " -> " + destination);
+        assertEquals(describe(expected), describe(actual), origin + " -> " + destination);
+    }
+
+    @Test
+    @DisplayName("Each shard holds only part of the flights, together all of them")
+    void flightsArePartitioned() {
+        int total = singleNodeData.getNetwork().flightCount();
+        int sum = 0;
+        for (ConfigurableApplicationContext shard : shards) {
+            int count = shard.getBean(FlightDataService.class).getNetwork().flightCount();
+            assertTrue(count < total, "a shard should not hold every flight");
+            sum += count;
+        }
+        assertEquals(total, sum);
+    }
+
+    @Test
+    @DisplayName("Multi-stop searches match single-node results from every coordinator")
+    void matchesSingleNode() {
+        for (int coordinator = 0; coordinator < shards.size(); coordinator++) {
+            assertSameAsSingleNode(coordinator, "JFK", "LAX");
+            assertSameAsSingleNode(coordinator, "BOS", "SEA");
+            assertSameAsSingleNode(coordinator, "JFK", "NRT");
+            assertSameAsSingleNode(coordinator, "SFO", "LHR");
+        }
+    }
+
+    @Test
+    @DisplayName("Routes with no connection stay empty")
+    void noRoute() {
+        assertSameAsSingleNode(1, "AMS", "ATL");
+    }
+
+    @Test
+    @DisplayName("A change on another shard changes the coordinator's ETag")
+    void etagFollowsOtherShards() throws Exception {
+        ShardRouter router = shards.get(0).getBean(ShardRouter.class);
+        int owner = router.owner("JFK");
+        int coordinator = (owner + 1) % shards.size();
+        FlightDataService ownerData = shards.get(owner).getBean(FlightDataService.class);
+
+        HttpClient http = HttpClient.newHttpClient();
+        HttpRequest search = HttpRequest.newBuilder(URI.create(shardUrls.get(coordinator)
+                + "/api/flights/search?origin=JFK&destination=LAX&date=" + SEARCH_DATE)).build();
+        HttpResponse<String> before = http.send(search, HttpResponse.BodyHandlers.ofString());
+        String etag = before.headers().firstValue("ETag").orElseThrow();
+
+        ownerData.applyChanges(List.of(new ScheduleChange(ScheduleChange.Type.UPDATE, "SP101",
+                null, null, null, 199.0, null)));
+        try {
+            HttpResponse<String> after = http.send(HttpRequest.newBuilder(search.uri())
+                    .header("If-None-Match", etag).build(), HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, after.statusCode());
+            assertNotEquals(etag, after.headers().firstValue("ETag").orElseThrow());
+            assertTrue(after.body().contains("199.0"), "the coordinator should see the new fare");
+        } finally {
+            ownerData.applyChanges(List.of(new ScheduleChange(ScheduleChange.Type.UPDATE, "SP101",
+                    null, null, null, 299.0, null)));
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package com.skypath.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.skypath.dto.NormalizedSearchResponse;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -7,8 +12,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -270,6 +280,269 @@ class FlightSearchControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("Metro and multi-airport searches")
+    class MultiAirport {
+
+        @Test
+        @DisplayName("Metro code should search every airport in the metro")
+        void metroOriginCoversAllAirports() throws Exception {
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "NYC")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.count", greaterThan(0)))
+                    .andExpect(jsonPath("$.itineraries[*].segments[0].origin",
+                            everyItem(in(new String[]{"JFK", "LGA", "EWR"}))))
+                    .andExpect(jsonPath("$.itineraries[*].segments[0].origin", hasItem("JFK")));
+        }
+
+        @Test
+        @DisplayName("Metro search should return at least the single-airport results")
+        void metroIsSupersetOfAirport() throws Exception {
+            JsonNode single = new ObjectMapper().readTree(mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE))
+                    .andReturn().getResponse().getContentAsString());
+            JsonNode metro = new ObjectMapper().readTree(mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "NYC")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE))
+                    .andReturn().getResponse().getContentAsString());
+
+            assertTrue(metro.get("count").asInt() >= single.get("count").asInt());
+        }
+
+        @Test
+        @DisplayName("Comma-separated codes should be accepted on both sides")
+        void commaSeparatedCodes() throws Exception {
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "jfk, EWR")
+                            .param("destination", "LAX,SFO")
+                            .param("date", SEARCH_DATE))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.itineraries[*].segments[0].origin",
+                            everyItem(in(new String[]{"JFK", "EWR"}))))
+                    .andExpect(header().string("ETag", containsString("EWR/JFK-LAX/SFO")));
+        }
+
+        @Test
+        @DisplayName("Overlapping origin and destination sets should be rejected")
+        void overlappingSets() throws Exception {
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "NYC")
+                            .param("destination", "LGA")
+                            .param("date", SEARCH_DATE))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error", is("SAME_ORIGIN_DESTINATION")));
+        }
+
+        @Test
+        @DisplayName("An unknown code in a list should be reported by name")
+        void unknownCodeInList() throws Exception {
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX,QQQ")
+                            .param("date", SEARCH_DATE))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error", is("UNKNOWN_DESTINATION")))
+                    .andExpect(jsonPath("$.message", containsString("QQQ")));
+        }
+    }
+
+    @Nested
+    @DisplayName("Search filters")
+    class Filters {
+
+        @Test
+        @DisplayName("maxStops=0 should return only direct flights")
+        void directOnly() throws Exception {
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE)
+                            .param("maxStops", "0"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.count", greaterThan(0)))
+                    .andExpect(jsonPath("$.itineraries[*].stops", everyItem(is(0))));
+        }
+
+        @Test
+        @DisplayName("Price cap and departure window should bound every result")
+        void priceAndDepartureWindow() throws Exception {
+            MvcResult result = mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE)
+                            .param("maxPrice", "600")
+                            .param("departAfter", "08:00")
+                            .param("departBefore", "14:00"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.count", greaterThan(0)))
+                    .andReturn();
+
+            for (JsonNode itinerary : new ObjectMapper().readTree(result.getResponse().getContentAsString())
+                    .get("itineraries")) {
+                assertTrue(itinerary.get("totalPrice").asDouble() <= 600);
+                String departure = itinerary.get("segments").get(0).get("departureTime").asText();
+                String localTime = departure.substring(11, 16);
+                assertTrue(localTime.compareTo("08:00") >= 0 && localTime.compareTo("14:00") <= 0, departure);
+            }
+        }
+
+        @Test
+        @DisplayName("Excluding the only carrier should return nothing")
+        void excludedCarrier() throws Exception {
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE)
+                            .param("excludeAirlines", "SP"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.count", is(0)));
+        }
+
+        @Test
+        @DisplayName("Should reject malformed filter values")
+        void invalidFilters() throws Exception {
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE)
+                            .param("maxPrice", "-5"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error", is("INVALID_MAX_PRICE")));
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE)
+                            .param("departAfter", "9am"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error", is("INVALID_TIME")));
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE)
+                            .param("departAfter", "18:00")
+                            .param("departBefore", "06:00"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error", is("INVALID_TIME_WINDOW")));
+        }
+    }
+
+    @Nested
+    @DisplayName("Views")
+    class Views {
+
+        @Test
+        @DisplayName("view=summary should drop names, aircraft and layovers but keep times and prices")
+        void summaryOmitsDetails() throws Exception {
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE)
+                            .param("view", "summary"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.count", greaterThan(0)))
+                    .andExpect(jsonPath("$.itineraries[0].totalPrice").exists())
+                    .andExpect(jsonPath("$.itineraries[0].stops").exists())
+                    .andExpect(jsonPath("$.itineraries[0].segments[0].departureTime").exists())
+                    .andExpect(jsonPath("$.itineraries[0].segments[0].flightNumber").exists())
+                    .andExpect(jsonPath("$.itineraries[0].segments[0].originName").doesNotExist())
+                    .andExpect(jsonPath("$.itineraries[0].segments[0].aircraft").doesNotExist())
+                    .andExpect(jsonPath("$.itineraries[0].layovers").doesNotExist());
+        }
+
+        @Test
+        @DisplayName("Summary and full views should list the same itineraries under different ETags")
+        void summaryMatchesFull() throws Exception {
+            MvcResult full = mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "ORD")
+                            .param("date", SEARCH_DATE))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            MvcResult summary = mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "ORD")
+                            .param("date", SEARCH_DATE)
+                            .param("view", "summary"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            ObjectMapper mapper = new ObjectMapper();
+            JsonNode fullItineraries = mapper.readTree(full.getResponse().getContentAsString()).get("itineraries");
+            JsonNode summaryItineraries = mapper.readTree(summary.getResponse().getContentAsString())
+                    .get("itineraries");
+            assertEquals(fullItineraries.size(), summaryItineraries.size());
+            for (int i = 0; i < fullItineraries.size(); i++) {
+                assertEquals(fullItineraries.get(i).get("totalPrice"), summaryItineraries.get(i).get("totalPrice"));
+                assertEquals(fullItineraries.get(i).get("totalDurationMinutes"),
+                        summaryItineraries.get(i).get("totalDurationMinutes"));
+            }
+            assertNotEquals(full.getResponse().getHeader("ETag"), summary.getResponse().getHeader("ETag"));
+        }
+
+        @Test
+        @DisplayName("Unknown views should be rejected")
+        void rejectsUnknownView() throws Exception {
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE)
+                            .param("view", "tiny"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error", is("INVALID_VIEW")));
+        }
+    }
+
+    @Nested
+    @DisplayName("Server-Timing")
+    class ServerTimingHeader {
+
+        @Test
+        @DisplayName("Live searches should report each phase of the search and serialization")
+        void reportsSearchPhases() throws Exception {
+            // A filter keeps the search off the hot-route table
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE)
+                            .param("maxStops", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(ServerTiming.HEADER, allOf(
+                            startsWith("validation;dur="),
+                            containsString("lookup;dur="),
+                            containsString("dfs;dur="),
+                            containsString("build;dur="),
+                            containsString("sort;dur="),
+                            containsString("wait;dur="),
+                            containsString("serialize;dur="))));
+        }
+
+        @Test
+        @DisplayName("Revalidated searches should still report their timing")
+        void reportsNotModified() throws Exception {
+            String etag = mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE)
+                            .header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(ServerTiming.HEADER, allOf(
+                            containsString("cache;dur="), not(containsString("dfs;dur=")))));
+        }
+    }
+
     // ==========================================
     // Test Case 6: SYD -> LAX (date line crossing)
     // ==========================================
@@ -336,6 +609,31 @@ class FlightSearchControllerTest {
     @DisplayName("Input Validation")
     class InputValidation {
 
+        @Test
+        @DisplayName("Should reject a non-numeric maxTimeMs")
+        void shouldRejectInvalidMaxTime() throws Exception {
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE)
+                            .param("maxTimeMs", "soon"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").value("INVALID_MAX_TIME"));
+        }
+
+        @Test
+        @DisplayName("Should report complete results within a client budget")
+        void shouldAcceptClientBudget() throws Exception {
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "BOS")
+                            .param("destination", "SEA")
+                            .param("date", SEARCH_DATE)
+                            .param("maxTimeMs", "5000"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.partial").value(false))
+                    .andExpect(header().exists("ETag"));
+        }
+
         @Test
         @DisplayName("Should return 400 for missing origin")
         void missingOrigin() throws Exception {
@@ -437,6 +735,62 @@ class FlightSearchControllerTest {
                     .andExpect(jsonPath("$", hasSize(25)));
         }
 
+        @Test
+        @DisplayName("Should answer a matching If-None-Match with 304")
+        void shouldRevalidateWithETag() throws Exception {
+            String etag = mockMvc.perform(get("/api/airports"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Cache-Control", containsString("max-age")))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            mockMvc.perform(get("/api/airports").header("If-None-Match", etag))
+                    .andExpect(status().isNotModified());
+        }
+
+        @Test
+        @DisplayName("Should serve the pre-compressed payload to gzip clients")
+        void shouldServeGzip() throws Exception {
+            byte[] gzip = mockMvc.perform(get("/api/airports").header("Accept-Encoding", "gzip, br"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Encoding", "gzip"))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+                assertEquals(25, new ObjectMapper().readTree(in).size());
+            }
+        }
+
+        @Test
+        @DisplayName("Suggest should match city prefixes, busiest airport first")
+        void suggestByCity() throws Exception {
+            mockMvc.perform(get("/api/airports/suggest").param("q", "new y"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(3)))
+                    .andExpect(jsonPath("$[0].code").value("JFK"))
+                    .andExpect(jsonPath("$[*].code", containsInAnyOrder("JFK", "EWR", "LGA")));
+        }
+
+        @Test
+        @DisplayName("Suggest should put an exact code match first and honour the limit")
+        void suggestByCode() throws Exception {
+            mockMvc.perform(get("/api/airports/suggest").param("q", "sfo").param("limit", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].code").value("SFO"));
+
+            mockMvc.perform(get("/api/airports/suggest").param("q", "zzz"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(0)));
+        }
+
+        @Test
+        @DisplayName("Suggest should reject a non-numeric limit with 400")
+        void suggestInvalidLimit() throws Exception {
+            mockMvc.perform(get("/api/airports/suggest").param("q", "sfo").param("limit", "abc"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error").value("INVALID_LIMIT"));
+        }
+
         @Test
         @DisplayName("Airport objects should have required fields")
         void airportsShouldHaveRequiredFields() throws Exception {
@@ -449,4 +803,104 @@ class FlightSearchControllerTest {
                     .andExpect(jsonPath("$[0].timezone").exists());
         }
     }
+
+    // ==========================================
+    // Readiness Endpoint Tests
+    // ==========================================
+    @Nested
+    @DisplayName("Readiness Endpoint")
+    class ReadinessEndpoint {
+
+        @Test
+        @DisplayName("Should report ready once data is loaded and warmup has finished")
+        void shouldBecomeReady() throws Exception {
+            int status = 0;
+            for (int attempt = 0; attempt < 300 && status != 200; attempt++) {
+                status = mockMvc.perform(get("/api/health/ready")).andReturn().getResponse().getStatus();
+                if (status != 200) {
+                    assertEquals(503, status);
+                    Thread.sleep(100);
+                }
+            }
+
+            mockMvc.perform(get("/api/health/ready"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.ready").value(true))
+                    .andExpect(jsonPath("$.dataLoaded").value(true))
+                    .andExpect(jsonPath("$.warmedUp").value(true))
+                    .andExpect(jsonPath("$.datasetVersion", greaterThan(0)));
+        }
+    }
+
+    // ==========================================
+    // Wire Format Tests
+    // ==========================================
+    @Nested
+    @DisplayName("Wire Formats")
+    class WireFormats {
+
+        private MvcResult searchJfkLax(String accept) throws Exception {
+            return mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE)
+                            .header("Accept", accept))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(accept))
+                    .andReturn();
+        }
+
+        private JsonNode searchJfkLaxAsJson() throws Exception {
+            return new ObjectMapper().readTree(searchJfkLax("application/json").getResponse().getContentAsByteArray());
+        }
+
+        @Test
+        @DisplayName("Smile response should decode to the JSON response")
+        void smileMatchesJson() throws Exception {
+            byte[] smile = searchJfkLax("application/x-jackson-smile").getResponse().getContentAsByteArray();
+            assertEquals(searchJfkLaxAsJson(), new ObjectMapper(new SmileFactory()).readTree(smile));
+        }
+
+        @Test
+        @DisplayName("CBOR response should decode to the JSON response")
+        void cborMatchesJson() throws Exception {
+            byte[] cbor = searchJfkLax("application/cbor").getResponse().getContentAsByteArray();
+            assertEquals(searchJfkLaxAsJson(), new ObjectMapper(new CBORFactory()).readTree(cbor));
+        }
+
+        @Test
+        @DisplayName("Each encoding should get its own ETag, and a repeat search a 304")
+        void etagPerRepresentation() throws Exception {
+            String json = searchJfkLax("application/json").getResponse().getHeader("ETag");
+            String smile = searchJfkLax("application/x-jackson-smile").getResponse().getHeader("ETag");
+            assertNotNull(json);
+            assertNotEquals(json, smile);
+
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE)
+                            .header("Accept", "application/json")
+                            .header("If-None-Match", json))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", json));
+        }
+
+        @Test
+        @DisplayName("Normalized response should reference airports from a side table")
+        void normalizedShape() throws Exception {
+            mockMvc.perform(get(SEARCH_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("date", SEARCH_DATE)
+                            .header("Accept", NormalizedSearchResponse.MEDIA_TYPE))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(NormalizedSearchResponse.MEDIA_TYPE))
+                    .andExpect(jsonPath("$.airports.JFK.city").value("New York"))
+                    .andExpect(jsonPath("$.airports.LAX").exists())
+                    .andExpect(jsonPath("$.itineraries[0].segments[0].origin").value("JFK"))
+                    .andExpect(jsonPath("$.itineraries[0].segments[0].originName").doesNotExist())
+                    .andExpect(jsonPath("$.count", greaterThan(3)));
+        }
+    }
 }
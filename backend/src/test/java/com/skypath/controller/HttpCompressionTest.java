@@ -0,0 +1,58 @@
+package com.skypath.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Response compression happens in Tomcat, which MockMvc bypasses, so these run
+ * against a real server. Tomcat skips compression for strong ETags.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class HttpCompressionTest {
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private HttpResponse<byte[]> search(String acceptEncoding) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                        + "/api/flights/search?origin=JFK&destination=LAX&date=2024-03-15"))
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", acceptEncoding)
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    @Test
+    @DisplayName("A search should be gzipped for clients that accept it, under the same weak ETag")
+    void searchIsGzipped() throws Exception {
+        HttpResponse<byte[]> gzipped = search("gzip");
+        HttpResponse<byte[]> identity = search("identity");
+
+        assertEquals(200, gzipped.statusCode());
+        assertEquals("gzip", gzipped.headers().firstValue("Content-Encoding").orElse(null));
+        assertTrue(identity.headers().firstValue("Content-Encoding").isEmpty());
+
+        String etag = gzipped.headers().firstValue("ETag").orElseThrow();
+        assertTrue(etag.startsWith("W/"), etag);
+        assertEquals(identity.headers().firstValue("ETag").orElseThrow(), etag);
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode decoded = mapper.readTree(new GZIPInputStream(new ByteArrayInputStream(gzipped.body())));
+        assertEquals(mapper.readTree(identity.body()), decoded);
+    }
+}
@@ -0,0 +1,229 @@
+package com.skypath.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the schedule admin API.
+ * Mutates the dataset, so the application context is discarded afterwards.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class ScheduleAdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private static final String SEARCH_URL = "/api/flights/search";
+
+    @Test
+    @DisplayName("Should make an added flight searchable without a reload")
+    void addFlight() throws Exception {
+        mockMvc.perform(post("/api/admin/flights")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"flightNumber": "SP9001", "airline": "SkyPath Airways",
+                                 "origin": "BOS", "destination": "SEA",
+                                 "departureTime": "2024-03-15T09:00:00", "arrivalTime": "2024-03-15T12:30:00",
+                                 "price": 345.0, "aircraft": "A321"}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied", is(1)));
+
+        mockMvc.perform(get(SEARCH_URL)
+                        .param("origin", "BOS")
+                        .param("destination", "SEA")
+                        .param("date", "2024-03-15"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itineraries[?(@.stops == 0)].segments[0].flightNumber",
+                        contains("SP9001")));
+    }
+
+    @Test
+    @DisplayName("Should remove a cancelled flight from search results")
+    void cancelFlight() throws Exception {
+        mockMvc.perform(delete("/api/admin/flights/SP510"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(SEARCH_URL)
+                        .param("origin", "SFO")
+                        .param("destination", "NRT")
+                        .param("date", "2024-03-15"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itineraries[*].segments[*].flightNumber", not(hasItem("SP510"))));
+    }
+
+    @Test
+    @DisplayName("Should reject changes to unknown flights with 404")
+    void unknownFlight() throws Exception {
+        mockMvc.perform(patch("/api/admin/flights/XX000")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": 99.0}"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error", is("UNKNOWN_FLIGHT")));
+    }
+
+    @Test
+    @DisplayName("Should reject malformed bodies and unknown change types with 400")
+    void unreadableChange() throws Exception {
+        mockMvc.perform(post("/api/admin/flights/changes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"type\": \"DELAY\", \"flightNumber\": \"SP102\"}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("INVALID_CHANGE")));
+
+        mockMvc.perform(post("/api/admin/flights")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"flightNumber\": "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("INVALID_CHANGE")));
+    }
+
+    @Test
+    @DisplayName("Should reject flights arriving before they depart and negative prices")
+    void invalidTimesAndPrices() throws Exception {
+        mockMvc.perform(patch("/api/admin/flights/SP102")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"arrivalTime\": \"2024-03-14T23:00:00\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("INVALID_CHANGE")));
+
+        mockMvc.perform(patch("/api/admin/flights/SP102")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": -1.0}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("INVALID_CHANGE")));
+    }
+
+    @Test
+    @DisplayName("Should reject a batch atomically when one change is invalid")
+    void atomicBatch() throws Exception {
+        mockMvc.perform(post("/api/admin/flights/changes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"type": "UPDATE", "flightNumber": "SP102", "price": 1.0},
+                                 {"type": "CANCEL", "flightNumber": "XX000"}]
+                                """))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get(SEARCH_URL)
+                        .param("origin", "JFK")
+                        .param("destination", "LAX")
+                        .param("date", "2024-03-15"))
+                .andExpect(jsonPath("$.itineraries[*].totalPrice", not(hasItem(1.0))));
+    }
+
+    @Test
+    @DisplayName("Should search a retained earlier version by number or by time")
+    void timeTravel() throws Exception {
+        String before = Instant.now().toString();
+        long previous = versionOf(mockMvc.perform(get("/api/admin/flights/versions"))
+                .andExpect(status().isOk())
+                .andReturn(), "current");
+        long cancelled = versionOf(mockMvc.perform(delete("/api/admin/flights/SP111"))
+                .andExpect(status().isOk())
+                .andReturn(), "version");
+
+        mockMvc.perform(get(SEARCH_URL)
+                        .param("origin", "JFK")
+                        .param("destination", "ORD")
+                        .param("date", "2024-03-15"))
+                .andExpect(jsonPath("$.itineraries[*].segments[*].flightNumber", not(hasItem("SP111"))));
+        mockMvc.perform(get(SEARCH_URL)
+                        .param("origin", "JFK")
+                        .param("destination", "ORD")
+                        .param("date", "2024-03-15")
+                        .param("version", Long.toString(previous)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itineraries[*].segments[*].flightNumber", hasItem("SP111")));
+        mockMvc.perform(get(SEARCH_URL)
+                        .param("origin", "JFK")
+                        .param("destination", "ORD")
+                        .param("date", "2024-03-15")
+                        .param("asOf", before))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itineraries[*].segments[*].flightNumber", hasItem("SP111")));
+
+        mockMvc.perform(get("/api/admin/flights/versions"))
+                .andExpect(jsonPath("$.versions[*].version", hasItems((int) previous, (int) cancelled)));
+    }
+
+    @Test
+    @DisplayName("Should reject versions that were never retained and conflicting version parameters")
+    void unknownVersion() throws Exception {
+        mockMvc.perform(get(SEARCH_URL)
+                        .param("origin", "JFK")
+                        .param("destination", "LAX")
+                        .param("date", "2024-03-15")
+                        .param("version", "999999"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("VERSION_NOT_RETAINED")));
+        mockMvc.perform(get(SEARCH_URL)
+                        .param("origin", "JFK")
+                        .param("destination", "LAX")
+                        .param("date", "2024-03-15")
+                        .param("asOf", "2000-01-01T00:00:00Z"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("VERSION_NOT_RETAINED")));
+        mockMvc.perform(get(SEARCH_URL)
+                        .param("origin", "JFK")
+                        .param("destination", "LAX")
+                        .param("date", "2024-03-15")
+                        .param("version", "1")
+                        .param("asOf", "2000-01-01T00:00:00Z"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("CONFLICTING_VERSION")));
+    }
+
+    @Test
+    @DisplayName("Should push the itineraries a change removes to subscribers of the search")
+    void subscription() throws Exception {
+        MvcResult subscription = mockMvc.perform(get("/api/flights/subscribe")
+                        .param("origin", "DEN")
+                        .param("destination", "LAX")
+                        .param("date", "2024-03-15"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitEvents(subscription, "event:snapshot");
+
+        mockMvc.perform(delete("/api/admin/flights/SP210"))
+                .andExpect(status().isOk());
+
+        String events = awaitEvents(subscription, "event:update");
+        String update = events.substring(events.indexOf("event:update"));
+        assertTrue(update.contains("\"flightNumber\":\"SP210\""), update);
+        assertTrue(update.contains("\"added\":[]"), update);
+    }
+
+    // The events sent so far, once they include the marker
+    private static String awaitEvents(MvcResult subscription, String marker) throws Exception {
+        for (int wait = 0; wait < 100; wait++) {
+            String events = subscription.getResponse().getContentAsString();
+            if (events.contains(marker)) {
+                return events;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("No " + marker + " in " + subscription.getResponse().getContentAsString());
+    }
+
+    private static long versionOf(MvcResult result, String field) throws Exception {
+        return new ObjectMapper().readTree(result.getResponse().getContentAsString()).get(field).asLong();
+    }
+}
@@ -0,0 +1,143 @@
+package com.skypath.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.OffsetDateTime;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for the trip endpoints against the real dataset.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class TripSearchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private static final String ROUND_TRIP_URL = "/api/trips/round-trip";
+
+    @Nested
+    @DisplayName("Round trips")
+    class RoundTrips {
+
+        @Test
+        @DisplayName("Should return at most limit trips, cheapest first, out and back")
+        void cheapestFirst() throws Exception {
+            MvcResult result = mockMvc.perform(get(ROUND_TRIP_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("departDate", "2024-03-15")
+                            .param("returnDate", "2024-03-15")
+                            .param("limit", "5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.count", allOf(greaterThan(0), lessThanOrEqualTo(5))))
+                    .andExpect(jsonPath("$.partial", is(false)))
+                    .andExpect(jsonPath("$.trips[0].legs.length()", is(2)))
+                    .andExpect(jsonPath("$.trips[0].legs[0].segments[0].originCode", is("JFK")))
+                    .andExpect(jsonPath("$.trips[0].legs[1].segments[0].originCode", is("LAX")))
+                    .andReturn();
+
+            double previous = 0;
+            for (JsonNode trip : new ObjectMapper().readTree(result.getResponse().getContentAsString()).get("trips")) {
+                assertTrue(trip.get("totalPrice").asDouble() >= previous);
+                previous = trip.get("totalPrice").asDouble();
+            }
+        }
+
+        @Test
+        @DisplayName("Should reject a return before the departure")
+        void returnBeforeDeparture() throws Exception {
+            mockMvc.perform(get(ROUND_TRIP_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("departDate", "2024-03-16")
+                            .param("returnDate", "2024-03-15"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error", is("INVALID_RETURN_DATE")));
+        }
+
+        @Test
+        @DisplayName("Should reject a missing return date and an unknown sort")
+        void invalidParameters() throws Exception {
+            mockMvc.perform(get(ROUND_TRIP_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("departDate", "2024-03-15"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error", is("MISSING_RETURN_DATE")));
+            mockMvc.perform(get(ROUND_TRIP_URL)
+                            .param("origin", "JFK")
+                            .param("destination", "LAX")
+                            .param("departDate", "2024-03-15")
+                            .param("returnDate", "2024-03-16")
+                            .param("sort", "stops"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error", is("INVALID_SORT")));
+        }
+    }
+
+    @Nested
+    @DisplayName("Multi-city trips")
+    class MultiCity {
+
+        private static final String MULTI_CITY_URL = "/api/trips/multi-city";
+
+        @Test
+        @DisplayName("Should chain the legs in order, each leaving after the previous one lands")
+        void chainsLegs() throws Exception {
+            MvcResult result = mockMvc.perform(get(MULTI_CITY_URL)
+                            .param("legs", "JFK-ORD@2024-03-15,ORD-LAX@2024-03-15,LAX-JFK@2024-03-15")
+                            .param("sort", "duration")
+                            .param("limit", "3"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.count", allOf(greaterThan(0), lessThanOrEqualTo(3))))
+                    .andExpect(jsonPath("$.trips[0].legs.length()", is(3)))
+                    .andExpect(jsonPath("$.trips[0].legs[1].segments[0].originCode", is("ORD")))
+                    .andReturn();
+
+            for (JsonNode trip : new ObjectMapper().readTree(result.getResponse().getContentAsString()).get("trips")) {
+                JsonNode legs = trip.get("legs");
+                for (int i = 1; i < legs.size(); i++) {
+                    JsonNode previous = legs.get(i - 1).get("segments");
+                    OffsetDateTime landed = OffsetDateTime.parse(
+                            previous.get(previous.size() - 1).get("arrivalTime").asText());
+                    OffsetDateTime departs = OffsetDateTime.parse(
+                            legs.get(i).get("segments").get(0).get("departureTime").asText());
+                    assertFalse(departs.isBefore(landed));
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Should reject malformed legs and dates going backwards")
+        void invalidLegs() throws Exception {
+            mockMvc.perform(get(MULTI_CITY_URL)
+                            .param("legs", "JFK-ORD@2024-03-15,ORD/LAX@2024-03-16"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error", is("INVALID_LEGS")));
+            mockMvc.perform(get(MULTI_CITY_URL)
+                            .param("legs", "JFK-ORD@2024-03-16,ORD-LAX@2024-03-15"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error", is("INVALID_LEGS")));
+            mockMvc.perform(get(MULTI_CITY_URL)
+                            .param("legs", "JFK-ORD@2024-03-15"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.error", is("INVALID_LEGS")));
+        }
+    }
+}
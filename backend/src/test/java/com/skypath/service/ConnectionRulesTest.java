@@ -0,0 +1,140 @@
+package com.skypath.service;
+
+import com.skypath.index.ConnectionRules;
+import com.skypath.index.ConnectionTable;
+import com.skypath.index.FlightNetwork;
+import com.skypath.model.Airport;
+import com.skypath.model.Flight;
+import com.skypath.model.Itinerary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Minimum connection time rules: precedence, compilation into the network's
+ * table, and searches honoring them with and without the connection index.
+ */
+class ConnectionRulesTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 15);
+
+    private static final List<Airport> AIRPORTS = List.of(
+            new Airport("JFK", "JFK International", "New York", "US", "America/Chicago"),
+            new Airport("ORD", "O'Hare International", "Chicago", "US", "America/Chicago"),
+            new Airport("DEN", "Denver International", "Denver", "US", "America/Chicago"),
+            new Airport("LAX", "LAX International", "Los Angeles", "US", "America/Chicago"));
+
+    // Into ORD and DEN at 10:00, then on to LAX 60, 80, 100 and 150 minutes later
+    private static final List<Flight> FLIGHTS = List.of(
+            flight("SP1", "SkyPath Airways", "JFK", "ORD", 8, 0),
+            flight("SP2", "SkyPath Airways", "ORD", "LAX", 11, 0),
+            flight("OA3", "Other Air", "ORD", "LAX", 11, 20),
+            flight("OA4", "Other Air", "ORD", "LAX", 11, 40),
+            flight("SP5", "SkyPath Airways", "ORD", "LAX", 12, 30),
+            flight("SP6", "SkyPath Airways", "JFK", "DEN", 8, 0),
+            flight("SP7", "SkyPath Airways", "DEN", "LAX", 11, 0));
+
+    private final FlightSearchService searchService = new FlightSearchService(null);
+
+    private static Flight flight(String number, String airline, String origin, String destination,
+                                 int hour, int minute) {
+        LocalDateTime departure = DATE.atTime(hour, minute);
+        return new Flight(number, airline, origin, destination, departure, departure.plusHours(2), 199.0, "A320");
+    }
+
+    private static ConnectionRules rules(String... specs) {
+        return ConnectionRules.of(Arrays.stream(specs).map(ConnectionRules.Rule::parse).toList());
+    }
+
+    private Set<String> search(ConnectionRules rules, boolean indexConnections) {
+        return search(FlightNetwork.compile(1, AIRPORTS, FLIGHTS, rules, indexConnections));
+    }
+
+    private Set<String> search(FlightNetwork network) {
+        List<Itinerary> itineraries = searchService.search(network, List.of("JFK"), List.of("LAX"), DATE,
+                SearchLimits.UNLIMITED, SearchFilters.NONE, SearchView.FULL).itineraries();
+        return itineraries.stream()
+                .map(it -> it.segments().get(0).flightNumber() + "-" + it.segments().get(1).flightNumber())
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    @DisplayName("The most specific rule wins, and configured rules override the defaults")
+    void precedence() {
+        FlightNetwork network = FlightNetwork.compile(1, AIRPORTS, List.of(), rules(
+                "*:DD:*:30", "DEN:*:*:50", "*:*:INTERLINE:60", "*:*:INTERLINE:75", "XXX:*:*:10"), false);
+        ConnectionTable table = network.connectionTable();
+        int jfk = network.airportId("JFK");
+        int den = network.airportId("DEN");
+
+        // An airport outranks a direction, which outranks a carrier pair
+        assertEquals(50 * 60, table.minSeconds(den, true, true, true));
+        assertEquals(30 * 60, table.minSeconds(jfk, true, true, false));
+        // Of two rules with the same keys the later one wins
+        assertEquals(75 * 60, table.minSeconds(jfk, false, false, false));
+        // Unmatched connections keep the default
+        assertEquals(ConnectionRules.MIN_LAYOVER_INTERNATIONAL_MINUTES * 60,
+                table.minSeconds(jfk, false, true, true));
+
+        // After a domestic arrival the window spans 30 minutes up to the default for international departures
+        assertEquals(30 * 60, table.earliestSeconds(jfk, true));
+        assertEquals(ConnectionRules.MIN_LAYOVER_INTERNATIONAL_MINUTES * 60, table.latestSeconds(jfk, true));
+        assertEquals(30 * 60, table.minSeconds(jfk));
+    }
+
+    @Test
+    @DisplayName("Without configured rules connections need 45 minutes domestic")
+    void defaults() {
+        Set<String> expected = Set.of("SP1-SP2", "SP1-OA3", "SP1-OA4", "SP1-SP5", "SP6-SP7");
+        assertEquals(expected, search(ConnectionRules.DEFAULT, true));
+        assertEquals(expected, search(ConnectionRules.DEFAULT, false));
+    }
+
+    @Test
+    @DisplayName("Airport and carrier-pair minimums apply alike with and without the connection index")
+    void searches() {
+        ConnectionRules rules = rules("ORD:DD:ONLINE:120", "*:*:INTERLINE:90");
+        // SP2 misses ORD's 120 online minutes and OA3 the 90 interline ones; DEN keeps 45
+        Set<String> expected = Set.of("SP1-OA4", "SP1-SP5", "SP6-SP7");
+
+        assertEquals(expected, search(rules, true));
+        assertEquals(expected, search(rules, false));
+    }
+
+    @Test
+    @DisplayName("Flights added to a patched version match carrier-pair rules by their airline")
+    void patchedCarriers() {
+        ConnectionRules rules = rules("*:*:INTERLINE:90");
+        List<Flight> base = FLIGHTS.stream().filter(f -> !f.flightNumber().equals("OA3")).toList();
+        List<Flight> added = List.of(FLIGHTS.get(2), flight("SP8", "SkyPath Airways", "ORD", "LAX", 11, 20));
+        // OA3 and SP8 both leave 80 minutes after landing, which only suffices online
+        Set<String> expected = Set.of("SP1-SP2", "SP1-SP8", "SP1-OA4", "SP1-SP5", "SP6-SP7");
+
+        for (boolean indexConnections : new boolean[]{true, false}) {
+            FlightNetwork patched = FlightNetwork.compile(1, AIRPORTS, base, rules, indexConnections)
+                    .withChanges(2, List.of(), added);
+            assertEquals(expected, search(patched));
+        }
+    }
+
+    @Test
+    @DisplayName("Rejects malformed rules and minimums beyond the maximum layover")
+    void parse() {
+        ConnectionRules.Rule rule = ConnectionRules.Rule.parse(" ord:id:* : 120 ");
+        assertEquals(new ConnectionRules.Rule("ORD", ConnectionRules.Direction.ID, null, 120), rule);
+
+        assertThrows(IllegalArgumentException.class, () -> ConnectionRules.Rule.parse("ORD:ID:120"));
+        assertThrows(IllegalArgumentException.class, () -> ConnectionRules.Rule.parse("ORD:XX:*:120"));
+        assertThrows(IllegalArgumentException.class, () -> ConnectionRules.Rule.parse("ORD:*:CODESHARE:60"));
+        assertThrows(IllegalArgumentException.class, () -> ConnectionRules.Rule.parse("ORD:*:*:soon"));
+        assertThrows(IllegalArgumentException.class, () -> ConnectionRules.Rule.parse("ORD:*:*:400"));
+    }
+}
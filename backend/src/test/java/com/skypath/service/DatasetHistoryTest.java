@@ -0,0 +1,105 @@
+package com.skypath.service;
+
+import com.skypath.index.FlightNetwork;
+import com.skypath.model.Airport;
+import com.skypath.model.Flight;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DatasetHistory on a ring of 40 airports, each flying to the next two.
+ */
+class DatasetHistoryTest {
+
+    private static final Instant T0 = Instant.parse("2024-03-14T09:00:00Z");
+    private static final int AIRPORTS = 40;
+
+    private static String code(int airport) {
+        return "A" + (char) ('A' + airport / 26) + (char) ('A' + airport % 26);
+    }
+
+    private static Flight flight(String number, int origin, int destination, int hour) {
+        LocalDateTime departure = LocalDateTime.of(2024, 3, 15, hour, 0);
+        return new Flight(number, "SkyPath Airways", code(origin), code(destination), departure,
+                departure.plusHours(2), 199.0, "A320");
+    }
+
+    private static FlightNetwork network() {
+        List<Airport> airports = new ArrayList<>();
+        List<Flight> flights = new ArrayList<>();
+        int number = 100;
+        for (int airport = 0; airport < AIRPORTS; airport++) {
+            airports.add(new Airport(code(airport), code(airport), "City " + airport, "US", "America/New_York"));
+            for (int hop = 1; hop <= 2; hop++) {
+                for (int hour = 6; hour < 22; hour += 2) {
+                    flights.add(flight("SP" + number++, airport, (airport + hop) % AIRPORTS, hour));
+                }
+            }
+        }
+        return FlightNetwork.compile(1, airports, flights, true);
+    }
+
+    @Test
+    @DisplayName("Finds versions by number and by the instant they were current")
+    void lookups() {
+        DatasetHistory history = new DatasetHistory(10, Duration.ofHours(24));
+        FlightNetwork v1 = network();
+        FlightNetwork v2 = v1.withChanges(2, List.of(), List.of(flight("SP900", 0, 1, 9)));
+        history.add(v1, T0);
+        history.add(v2, T0.plusSeconds(3600));
+
+        assertSame(v1, history.version(1));
+        assertSame(v2, history.version(2));
+        assertNull(history.version(3));
+        assertSame(v1, history.asOf(T0.plusSeconds(1800)));
+        assertSame(v2, history.asOf(T0.plusSeconds(3600)));
+        assertNull(history.asOf(T0.minusSeconds(1)));
+    }
+
+    @Test
+    @DisplayName("Drops versions beyond the count and superseded for longer than the age limit")
+    void eviction() {
+        DatasetHistory history = new DatasetHistory(3, Duration.ofHours(1));
+        FlightNetwork network = network();
+        for (int version = 1; version <= 5; version++) {
+            history.add(network, T0.plusSeconds(version));
+        }
+        assertEquals(3, history.entries().size());
+
+        // Versions 3 and 4 were superseded about two hours ago; 5 only now
+        history.add(network, T0.plus(Duration.ofHours(2)));
+        assertEquals(2, history.entries().size());
+        // The previous version was current until just now, so it stays
+        history.add(network, T0.plus(Duration.ofHours(10)));
+        assertEquals(List.of(T0.plus(Duration.ofHours(2)), T0.plus(Duration.ofHours(10))),
+                history.entries().stream().map(DatasetHistory.Entry::createdAt).toList());
+    }
+
+    @Test
+    @DisplayName("Versions share untouched tables, so history memory grows with the changes")
+    void structuralSharing() {
+        DatasetHistory history = new DatasetHistory(1000, Duration.ofHours(24));
+        FlightNetwork network = network();
+        history.add(network, T0);
+        long single = history.retainedBytes();
+
+        for (int version = 2; version <= 100; version++) {
+            network = network.withChanges(version, List.of(),
+                    List.of(flight("SP" + (1000 + version), 0, 1, 5)));
+            history.add(network, T0.plusSeconds(version));
+        }
+
+        assertEquals(100, history.entries().size());
+        // 99 full copies would be 100 times one version; sharing keeps it far below
+        assertTrue(history.retainedBytes() < single * 20,
+                "retained " + history.retainedBytes() + " bytes vs " + single + " for one version");
+    }
+}
@@ -1,5 +1,7 @@
 package com.skypath.service;
 
+import com.skypath.index.FlightBucket;
+import com.skypath.index.FlightNetwork;
 import com.skypath.model.Airport;
 import com.skypath.model.Flight;
 import org.junit.jupiter.api.DisplayName;
@@ -64,6 +66,17 @@ class FlightDataServiceTest {
         assertFalse(dataService.airportExists(""));
     }
 
+    @Test
+    @DisplayName("Should resolve metro codes to their airports in the dataset")
+    void resolveMetroCodes() {
+        assertEquals(List.of("JFK", "LGA", "EWR"), dataService.resolveAirports("NYC"));
+        assertEquals(List.of("NRT", "HND"), dataService.resolveAirports("TYO"));
+        // LGW is not in the dataset, so London is just Heathrow
+        assertEquals(List.of("LHR"), dataService.resolveAirports("LON"));
+        assertEquals(List.of("JFK"), dataService.resolveAirports("JFK"));
+        assertTrue(dataService.resolveAirports("XXX").isEmpty());
+    }
+
     @Test
     @DisplayName("Should find flights from JFK on search date")
     void getFlightsByOriginAndDate() {
@@ -143,4 +156,24 @@ class FlightDataServiceTest {
         assertNull(dataService.getAirport("XXX"));
         assertNull(dataService.getAirport("INVALID"));
     }
+
+    @Test
+    @DisplayName("Should compile network with connection index for shipped dataset")
+    void compilesConnectionIndex() {
+        FlightNetwork network = dataService.getNetwork();
+        assertEquals(25, network.airportCount());
+        assertNotNull(network.connections());
+        assertEquals(network.flightCount(), network.connections().entries());
+    }
+
+    @Test
+    @DisplayName("Should keep each origin's flights sorted by departure instant")
+    void bucketsSortedByDeparture() {
+        FlightNetwork network = dataService.getNetwork();
+        FlightBucket jfk = network.bucket(network.airportId("JFK"));
+        assertFalse(jfk.flights().isEmpty());
+        for (int row = 1; row < jfk.size(); row++) {
+            assertTrue(jfk.departure(row - 1) <= jfk.departure(row));
+        }
+    }
 }
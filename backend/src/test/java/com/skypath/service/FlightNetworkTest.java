@@ -0,0 +1,86 @@
+package com.skypath.service;
+
+import com.skypath.index.FlightBucket;
+import com.skypath.index.FlightNetwork;
+import com.skypath.index.LowerBounds;
+import com.skypath.model.Airport;
+import com.skypath.model.Flight;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Patched network versions: buckets a change touches must derive the same
+ * per-route data as a network compiled from scratch. Also covers the lower
+ * bounds each version caches.
+ */
+class FlightNetworkTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 15);
+
+    private static final List<Airport> AIRPORTS = List.of(
+            new Airport("JFK", "JFK International", "New York", "US", "America/New_York"),
+            new Airport("ORD", "O'Hare International", "Chicago", "US", "America/New_York"),
+            new Airport("LAX", "LAX International", "Los Angeles", "US", "America/New_York"));
+
+    private static Flight flight(String number, String airline, String destination, int hour, int hours,
+                                 double price) {
+        LocalDateTime departure = DATE.atTime(hour, 0);
+        return new Flight(number, airline, "JFK", destination, departure, departure.plusHours(hours), price, "A320");
+    }
+
+    @Test
+    @DisplayName("Adding flights keeps destinations, route minima and carriers in step with the rows")
+    void addedFlights() {
+        Flight toOrd = flight("SP1", "SkyPath Airways", "ORD", 8, 3, 189.0);
+        Flight toLax = flight("SP2", "SkyPath Airways", "LAX", 9, 6, 299.0);
+        Flight cheaper = flight("OA3", "Other Air", "ORD", 10, 2, 149.0);
+        FlightNetwork network = FlightNetwork.compile(1, AIRPORTS, List.of(toOrd), false);
+
+        FlightNetwork patched = network.withChanges(2, List.of(), List.of(toLax, cheaper));
+        FlightNetwork compiled = FlightNetwork.compile(2, AIRPORTS, List.of(toOrd, toLax, cheaper), false);
+
+        int jfk = patched.airportId("JFK");
+        FlightBucket bucket = patched.bucket(jfk);
+        FlightBucket expected = compiled.bucket(compiled.airportId("JFK"));
+        assertArrayEquals(expected.destinationAirports(), bucket.destinationAirports());
+        assertEquals(2, bucket.destinationAirports().length);
+        for (int route = 0; route < bucket.destinationAirports().length; route++) {
+            assertEquals(expected.routeMinSeconds(route), bucket.routeMinSeconds(route));
+            assertEquals(expected.routeMinFare(route), bucket.routeMinFare(route));
+        }
+
+        int ord = Arrays.binarySearch(bucket.destinationAirports(), patched.airportId("ORD"));
+        assertEquals(2 * 3600, bucket.routeMinSeconds(ord));
+        assertEquals(149.0, bucket.routeMinFare(ord));
+
+        // Rows are ordered by departure: SP1, SP2, OA3
+        assertTrue(bucket.sameCarrier(0, bucket, 1));
+        assertFalse(bucket.sameCarrier(1, bucket, 2));
+    }
+
+    @Test
+    @DisplayName("Bounds to several destinations are cached and take the nearer destination's values")
+    void lowerBoundsToSeveralDestinations() {
+        FlightNetwork network = FlightNetwork.compile(1, AIRPORTS, List.of(
+                flight("SP1", "SkyPath Airways", "ORD", 8, 3, 189.0),
+                flight("SP2", "SkyPath Airways", "LAX", 9, 6, 299.0)), false);
+        int jfk = network.airportId("JFK");
+        int ord = network.airportId("ORD");
+        int lax = network.airportId("LAX");
+
+        LowerBounds both = network.lowerBounds(new int[]{lax, ord}, FlightSearchService.MAX_LEGS);
+
+        assertSame(both, network.lowerBounds(new int[]{ord, lax}, FlightSearchService.MAX_LEGS));
+        assertEquals(3 * 3600, both.remainingSeconds(jfk, 1));
+        assertEquals(189.0, both.remainingFare(jfk, 1));
+        assertEquals(6 * 3600, network.lowerBounds(new int[]{lax}, FlightSearchService.MAX_LEGS)
+                .remainingSeconds(jfk, FlightSearchService.MAX_LEGS));
+    }
+}
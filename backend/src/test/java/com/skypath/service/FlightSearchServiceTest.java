@@ -1,8 +1,12 @@
 package com.skypath.service;
 
+import com.skypath.index.FlightNetwork;
 import com.skypath.model.Airport;
 import com.skypath.model.Flight;
 import com.skypath.model.Itinerary;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -11,19 +15,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.*;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for FlightSearchService.
- * Uses Mockito to isolate the search algorithm from real flight data.
+ * Each test compiles its flights into a network served by a mocked data service.
  */
 @ExtendWith(MockitoExtension.class)
 class FlightSearchServiceTest {
@@ -31,6 +40,9 @@ class FlightSearchServiceTest {
     @Mock
     private FlightDataService dataService;
 
+    @Mock
+    private SeatInventory inventory;
+
     private FlightSearchService searchService;
 
     // Test airports
@@ -41,21 +53,19 @@ class FlightSearchServiceTest {
     private static final Airport LHR = new Airport("LHR", "London Heathrow", "London", "GB", "Europe/London");
     private static final Airport NRT = new Airport("NRT", "Narita International", "Tokyo", "JP", "Asia/Tokyo");
     private static final Airport SYD = new Airport("SYD", "Sydney Airport", "Sydney", "AU", "Australia/Sydney");
+    private static final Airport SFO = new Airport("SFO", "SFO Airport", "San Francisco", "US", "America/Los_Angeles");
 
     private static final LocalDate SEARCH_DATE = LocalDate.of(2024, 3, 15);
 
     @BeforeEach
     void setUp() {
-        searchService = new FlightSearchService(dataService);
-
-        // Set up airport lookups (lenient to avoid unnecessary stubbing warnings)
-        lenient().when(dataService.getAirport("JFK")).thenReturn(JFK);
-        lenient().when(dataService.getAirport("LAX")).thenReturn(LAX);
-        lenient().when(dataService.getAirport("ORD")).thenReturn(ORD);
-        lenient().when(dataService.getAirport("DFW")).thenReturn(DFW);
-        lenient().when(dataService.getAirport("LHR")).thenReturn(LHR);
-        lenient().when(dataService.getAirport("NRT")).thenReturn(NRT);
-        lenient().when(dataService.getAirport("SYD")).thenReturn(SYD);
+        searchService = new FlightSearchService(dataService, null, inventory);
+    }
+
+    // Serves the flights as the current dataset
+    private void given(Flight... flights) {
+        when(dataService.getNetwork()).thenReturn(FlightNetwork.compile(1,
+                List.of(JFK, LAX, ORD, DFW, LHR, NRT, SYD, SFO), List.of(flights), true));
     }
 
     // --- Helper to create flights ---
@@ -82,8 +92,7 @@ class FlightSearchServiceTest {
         void findDirectFlight() {
             Flight direct = flight("F1", "JFK", "LAX", 8, 0, 11, 15, 299.0);
 
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(List.of(direct));
+            given(direct);
 
             List<Itinerary> results = searchService.search("JFK", "LAX", SEARCH_DATE);
 
@@ -103,8 +112,7 @@ class FlightSearchServiceTest {
             Flight f1 = flight("F1", "JFK", "LAX", 8, 0, 11, 15, 299.0);
             Flight f2 = flight("F2", "JFK", "LAX", 14, 0, 17, 15, 329.0);
 
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(List.of(f1, f2));
+            given(f1, f2);
 
             List<Itinerary> results = searchService.search("JFK", "LAX", SEARCH_DATE);
 
@@ -115,8 +123,7 @@ class FlightSearchServiceTest {
         @Test
         @DisplayName("Should return empty list when no flights exist")
         void noFlightsFound() {
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(Collections.emptyList());
+            given();
 
             List<Itinerary> results = searchService.search("JFK", "LAX", SEARCH_DATE);
 
@@ -135,10 +142,7 @@ class FlightSearchServiceTest {
             Flight leg1 = flight("F1", "JFK", "ORD", 7, 0, 8, 30, 189.0);
             Flight leg2 = flight("F2", "ORD", "LAX", 9, 15, 11, 30, 225.0);
 
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(List.of(leg1));
-            when(dataService.getFlightsByOrigin("ORD"))
-                    .thenReturn(List.of(leg2));
+            given(leg1, leg2);
 
             List<Itinerary> results = searchService.search("JFK", "LAX", SEARCH_DATE);
 
@@ -159,10 +163,7 @@ class FlightSearchServiceTest {
             Flight leg1 = flight("F1", "JFK", "ORD", 7, 0, 8, 30, 189.0);
             Flight leg2 = flight("F2", "ORD", "LAX", 9, 0, 11, 15, 225.0);
 
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(List.of(leg1));
-            when(dataService.getFlightsByOrigin("ORD"))
-                    .thenReturn(List.of(leg2));
+            given(leg1, leg2);
 
             List<Itinerary> results = searchService.search("JFK", "LAX", SEARCH_DATE);
 
@@ -182,10 +183,7 @@ class FlightSearchServiceTest {
             Flight leg1 = flight("F1", "JFK", "LHR", 15, 18, 0, 16, 6, 0, 649.0);
             Flight leg2 = flight("F2", "LHR", "NRT", 7, 0, 16, 0, 849.0); // too soon, only 60 min
 
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(List.of(leg1));
-            when(dataService.getFlightsByOrigin("LHR"))
-                    .thenReturn(List.of(leg2));
+            given(leg1, leg2);
 
             List<Itinerary> results = searchService.search("JFK", "NRT", SEARCH_DATE);
 
@@ -201,10 +199,7 @@ class FlightSearchServiceTest {
             Flight leg1 = flight("F1", "JFK", "LHR", 15, 18, 0, 16, 6, 0, 649.0);
             Flight leg2 = flight("F2", "LHR", "NRT", 16, 7, 30, 16, 16, 0, 849.0);
 
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(List.of(leg1));
-            when(dataService.getFlightsByOrigin("LHR"))
-                    .thenReturn(List.of(leg2));
+            given(leg1, leg2);
 
             List<Itinerary> results = searchService.search("JFK", "NRT", SEARCH_DATE);
 
@@ -225,10 +220,7 @@ class FlightSearchServiceTest {
             Flight leg1 = flight("F1", "JFK", "ORD", 7, 0, 8, 30, 189.0);
             Flight leg2 = flight("F2", "ORD", "LAX", 15, 0, 17, 15, 225.0);
 
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(List.of(leg1));
-            when(dataService.getFlightsByOrigin("ORD"))
-                    .thenReturn(List.of(leg2));
+            given(leg1, leg2);
 
             List<Itinerary> results = searchService.search("JFK", "LAX", SEARCH_DATE);
 
@@ -242,10 +234,7 @@ class FlightSearchServiceTest {
             Flight leg1 = flight("F1", "JFK", "ORD", 7, 0, 8, 30, 189.0);
             Flight leg2 = flight("F2", "ORD", "LAX", 14, 30, 16, 45, 225.0);
 
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(List.of(leg1));
-            when(dataService.getFlightsByOrigin("ORD"))
-                    .thenReturn(List.of(leg2));
+            given(leg1, leg2);
 
             List<Itinerary> results = searchService.search("JFK", "LAX", SEARCH_DATE);
 
@@ -266,12 +255,7 @@ class FlightSearchServiceTest {
             Flight leg2 = flight("F2", "ORD", "DFW", 9, 30, 11, 45, 169.0);  // dep 09:30 CT (60 min layover)
             Flight leg3 = flight("F3", "DFW", "LAX", 14, 0, 15, 15, 179.0);  // dep 14:00 CT (135 min layover)
 
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(List.of(leg1));
-            when(dataService.getFlightsByOrigin("ORD"))
-                    .thenReturn(List.of(leg2));
-            when(dataService.getFlightsByOrigin("DFW"))
-                    .thenReturn(List.of(leg3));
+            given(leg1, leg2, leg3);
 
             List<Itinerary> results = searchService.search("JFK", "LAX", SEARCH_DATE);
 
@@ -287,22 +271,13 @@ class FlightSearchServiceTest {
         @DisplayName("Should not exceed 2 stops (no 3-stop itineraries)")
         void noThreeStopConnections() {
             // JFK -> ORD -> DFW -> LAX -> SFO (would be 3 stops, should not happen)
-            Airport SFO = new Airport("SFO", "SFO Airport", "San Francisco", "US", "America/Los_Angeles");
-            lenient().when(dataService.getAirport("SFO")).thenReturn(SFO);
 
             Flight leg1 = flight("F1", "JFK", "ORD", 7, 0, 8, 30, 100.0);
             Flight leg2 = flight("F2", "ORD", "DFW", 9, 30, 11, 0, 100.0);
             Flight leg3 = flight("F3", "DFW", "LAX", 12, 0, 13, 15, 100.0);
             Flight leg4 = flight("F4", "LAX", "SFO", 14, 0, 15, 0, 100.0); // this would be a 3rd stop
 
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(List.of(leg1));
-            when(dataService.getFlightsByOrigin("ORD"))
-                    .thenReturn(List.of(leg2));
-            when(dataService.getFlightsByOrigin("DFW"))
-                    .thenReturn(List.of(leg3));
-            lenient().when(dataService.getFlightsByOrigin("LAX"))
-                    .thenReturn(List.of(leg4));
+            given(leg1, leg2, leg3, leg4);
 
             // Searching JFK -> SFO: should not find 3-stop path
             // The only path would be JFK->ORD->DFW->LAX->SFO (3 stops), which is too many
@@ -327,19 +302,37 @@ class FlightSearchServiceTest {
             // Also provide a valid non-cyclic connection
             Flight ordToLax = flight("F4", "ORD", "LAX", 9, 15, 11, 30, 225.0);
 
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(List.of(leg1));
-            when(dataService.getFlightsByOrigin("ORD"))
-                    .thenReturn(List.of(backToJFK, ordToLax));
-            lenient().when(dataService.getFlightsByOrigin("JFK"))
-                    .thenReturn(List.of(leg3));
+            given(leg1, backToJFK, ordToLax, leg3);
 
             List<Itinerary> results = searchService.search("JFK", "LAX", SEARCH_DATE);
 
-            // Should only find JFK->ORD->LAX, not JFK->ORD->JFK->LAX
+            // F3 flies direct and F1 connects to F4, but JFK->ORD->JFK->LAX is never built
+            assertEquals(2, results.size());
+            assertTrue(results.stream().anyMatch(it -> it.stops() == 1
+                    && it.segments().get(1).flightNumber().equals("F4")));
+            assertTrue(results.stream().noneMatch(it -> it.stops() == 2));
+        }
+
+        @Test
+        @DisplayName("A search that fails mid-walk should not leave hubs visited for the next one")
+        void failedSearchDoesNotLeakVisits() {
+            Flight toOrd = flight("F1", "JFK", "ORD", 7, 0, 8, 30, 189.0);
+            Flight toLax = flight("F2", "ORD", "LAX", 9, 30, 11, 30, 225.0);
+            given(toOrd, toLax);
+            when(inventory.hasSeats(toOrd, 1)).thenReturn(true);
+            when(inventory.hasSeats(toLax, 1)).thenThrow(new IllegalStateException("inventory down"))
+                    .thenReturn(true);
+            SearchFilters seats = new SearchFilters(List.of(), List.of(), Double.POSITIVE_INFINITY, Long.MAX_VALUE,
+                    2, null, null, null, null, 1);
+
+            // Both searches run on this thread and share its scratch
+            assertThrows(IllegalStateException.class, () -> searchService.search(List.of("JFK"), List.of("LAX"),
+                    SEARCH_DATE, SearchLimits.UNLIMITED, seats));
+            List<Itinerary> results = searchService.search(List.of("JFK"), List.of("LAX"), SEARCH_DATE,
+                    SearchLimits.UNLIMITED, seats).itineraries();
+
             assertEquals(1, results.size());
-            assertEquals(1, results.get(0).stops());
-            assertEquals("F4", results.get(0).segments().get(1).flightNumber());
+            assertEquals("F2", results.get(0).segments().get(1).flightNumber());
         }
     }
 
@@ -354,8 +347,7 @@ class FlightSearchServiceTest {
             Flight fast = flight("FAST", "JFK", "LAX", 8, 0, 11, 15, 399.0);   // ~6h15m (includes TZ)
             Flight slow = flight("SLOW", "JFK", "LAX", 14, 0, 18, 30, 199.0);  // ~7h30m
 
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(List.of(slow, fast)); // provide in reverse order
+            given(slow, fast); // provide in reverse order
 
             List<Itinerary> results = searchService.search("JFK", "LAX", SEARCH_DATE);
 
@@ -378,10 +370,7 @@ class FlightSearchServiceTest {
             Flight leg1 = flight("F1", "JFK", "ORD", 7, 0, 8, 30, 189.0);
             Flight leg2 = flight("F2", "ORD", "LAX", 9, 15, 11, 30, 225.0);
 
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(List.of(leg1));
-            when(dataService.getFlightsByOrigin("ORD"))
-                    .thenReturn(List.of(leg2));
+            given(leg1, leg2);
 
             List<Itinerary> results = searchService.search("JFK", "LAX", SEARCH_DATE);
 
@@ -397,10 +386,7 @@ class FlightSearchServiceTest {
             Flight leg1 = flight("F1", "JFK", "ORD", 11, 0, 12, 30, 189.0);
             Flight leg2 = flight("F2", "ORD", "LAX", 11, 0, 13, 15, 225.0);
 
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(List.of(leg1));
-            when(dataService.getFlightsByOrigin("ORD"))
-                    .thenReturn(List.of(leg2));
+            given(leg1, leg2);
 
             List<Itinerary> results = searchService.search("JFK", "LAX", SEARCH_DATE);
 
@@ -420,8 +406,7 @@ class FlightSearchServiceTest {
             Flight dateLineFlight = flight("SYD1", "SYD", "LAX",
                     15, 9, 0, 15, 6, 0, 1099.0);
 
-            when(dataService.getFlightsByOriginAndDate("SYD", SEARCH_DATE))
-                    .thenReturn(List.of(dateLineFlight));
+            given(dateLineFlight);
 
             List<Itinerary> results = searchService.search("SYD", "LAX", SEARCH_DATE);
 
@@ -447,10 +432,7 @@ class FlightSearchServiceTest {
             Flight leg1 = flight("F1", "JFK", "ORD", 7, 0, 8, 30, 189.50);
             Flight leg2 = flight("F2", "ORD", "LAX", 9, 15, 11, 30, 225.75);
 
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(List.of(leg1));
-            when(dataService.getFlightsByOrigin("ORD"))
-                    .thenReturn(List.of(leg2));
+            given(leg1, leg2);
 
             List<Itinerary> results = searchService.search("JFK", "LAX", SEARCH_DATE);
 
@@ -463,8 +445,7 @@ class FlightSearchServiceTest {
         void correctSegmentDetails() {
             Flight direct = flight("SP101", "JFK", "LAX", 8, 0, 11, 15, 299.0);
 
-            when(dataService.getFlightsByOriginAndDate("JFK", SEARCH_DATE))
-                    .thenReturn(List.of(direct));
+            given(direct);
 
             List<Itinerary> results = searchService.search("JFK", "LAX", SEARCH_DATE);
 
@@ -482,4 +463,230 @@ class FlightSearchServiceTest {
             assertTrue(seg.durationMinutes() > 0);
         }
     }
+
+    @Nested
+    @DisplayName("Request Coalescing")
+    class RequestCoalescing {
+
+        @Test
+        @DisplayName("Concurrent identical searches should share one computation")
+        void concurrentDuplicatesShareOneSearch() throws Exception {
+            Flight direct = flight("SP101", "JFK", "LAX", 8, 0, 11, 30, 299);
+            given(direct);
+            // Seat checks run inside the shared computation, so blocking one holds the leader there
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            when(inventory.hasSeats(direct, 1)).thenAnswer(invocation -> {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return true;
+            });
+            SearchFilters seats = new SearchFilters(List.of(), List.of(), Double.POSITIVE_INFINITY, Long.MAX_VALUE,
+                    2, null, null, null, null, 1);
+            Callable<List<Itinerary>> search = () -> searchService.search(List.of("JFK"), List.of("LAX"),
+                    SEARCH_DATE, SearchLimits.UNLIMITED, seats).itineraries();
+
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            try {
+                Future<List<Itinerary>> leader = pool.submit(search);
+                assertTrue(started.await(5, TimeUnit.SECONDS));
+
+                List<Future<List<Itinerary>>> followers = new ArrayList<>();
+                for (int i = 0; i < 3; i++) {
+                    followers.add(pool.submit(search));
+                }
+                for (int wait = 0; wait < 500 && searchService.coalescedCount() < 3; wait++) {
+                    Thread.sleep(10);
+                }
+                release.countDown();
+
+                List<Itinerary> results = leader.get(5, TimeUnit.SECONDS);
+                assertEquals(1, results.size());
+                for (Future<List<Itinerary>> follower : followers) {
+                    assertSame(results, follower.get(5, TimeUnit.SECONDS));
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+
+            assertEquals(3, searchService.coalescedCount());
+            verify(inventory, times(1)).hasSeats(direct, 1);
+        }
+
+        @Test
+        @DisplayName("Sequential searches should not reuse a finished result")
+        void sequentialSearchesRecompute() {
+            Flight direct = flight("SP101", "JFK", "LAX", 8, 0, 11, 30, 299);
+            given(direct);
+
+            List<Itinerary> first = searchService.search("JFK", "LAX", SEARCH_DATE);
+            List<Itinerary> second = searchService.search("JFK", "LAX", SEARCH_DATE);
+
+            assertEquals(0, searchService.coalescedCount());
+            assertNotSame(first, second);
+        }
+    }
+
+    @Nested
+    @DisplayName("Search Budget")
+    class SearchBudget {
+
+        @Test
+        @DisplayName("Should stop at the expansion budget and flag the result as partial")
+        void expansionBudgetGivesPartialResult() {
+            given(
+                    flight("SP101", "JFK", "LAX", 8, 0, 11, 30, 299),
+                    flight("SP102", "JFK", "LAX", 12, 0, 15, 30, 329),
+                    flight("SP103", "JFK", "LAX", 16, 0, 19, 30, 349));
+
+            SearchResult result = searchService.search("JFK", "LAX", SEARCH_DATE, new SearchLimits(60_000, 1));
+
+            assertTrue(result.partial());
+            assertEquals(1, result.itineraries().size());
+        }
+
+        @Test
+        @DisplayName("Should return complete results within budget")
+        void withinBudgetIsComplete() {
+            given(
+                    flight("SP101", "JFK", "LAX", 8, 0, 11, 30, 299),
+                    flight("SP102", "JFK", "LAX", 12, 0, 15, 30, 329));
+
+            SearchResult result = searchService.search("JFK", "LAX", SEARCH_DATE, new SearchLimits(60_000, 1_000));
+
+            assertFalse(result.partial());
+            assertEquals(2, result.itineraries().size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Flight Recorder Events")
+    class FlightRecorderEvents {
+
+        @Test
+        @DisplayName("Should record each search with its route, result size and expansions")
+        void recordsSearchEvent() throws Exception {
+            given(flight("SP101", "JFK", "LAX", 8, 0, 11, 30, 299));
+
+            Path file = Files.createTempFile("search", ".jfr");
+            try (Recording recording = new Recording()) {
+                recording.enable("com.skypath.Search").withThreshold(Duration.ZERO);
+                recording.start();
+                searchService.search("JFK", "LAX", SEARCH_DATE);
+                recording.stop();
+                recording.dump(file);
+
+                List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                        .filter(e -> e.getEventType().getName().equals("com.skypath.Search"))
+                        .toList();
+                assertEquals(1, events.size());
+                RecordedEvent event = events.get(0);
+                assertEquals("JFK", event.getString("origins"));
+                assertEquals("LAX", event.getString("destinations"));
+                assertEquals("2024-03-15", event.getString("date"));
+                assertEquals(1, event.getInt("results"));
+                assertTrue(event.getLong("expansions") > 0);
+                assertFalse(event.getBoolean("coalesced"));
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Filter Push-Down")
+    class FilterPushDown {
+
+        private SearchResult search(SearchFilters filters) {
+            return searchService.search(List.of("JFK"), List.of("LAX"), SEARCH_DATE, SearchLimits.UNLIMITED, filters);
+        }
+
+        private SearchFilters filters(List<String> airlines, List<String> excluded, double maxPrice,
+                                      long maxDurationMinutes, int maxStops, LocalTime departAfter,
+                                      LocalTime departBefore) {
+            return new SearchFilters(airlines, excluded, maxPrice, maxDurationMinutes, maxStops,
+                    departAfter, departBefore, null, null, 0);
+        }
+
+        @Test
+        @DisplayName("Should drop a path once its running price exceeds the cap")
+        void priceCapPrunesConnection() {
+            given(
+                    flight("AA1", "JFK", "LAX", 8, 0, 11, 30, 450),
+                    flight("AA2", "JFK", "ORD", 7, 0, 8, 30, 189),
+                    flight("AA3", "ORD", "LAX", 9, 30, 11, 30, 225));
+
+            List<Itinerary> results = search(filters(List.of(), List.of(), 420, Long.MAX_VALUE, 2, null, null))
+                    .itineraries();
+
+            assertEquals(1, results.size());
+            assertEquals(414.0, results.get(0).totalPrice());
+        }
+
+        @Test
+        @DisplayName("Should skip every itinerary using an excluded carrier")
+        void excludedCarrier() {
+            given(
+                    flight("UA1", "JFK", "LAX", 8, 0, 11, 30, 450),
+                    flight("AA2", "JFK", "ORD", 7, 0, 8, 30, 189),
+                    flight("UA3", "ORD", "LAX", 9, 30, 11, 30, 225),
+                    flight("AA4", "ORD", "LAX", 10, 0, 12, 0, 245));
+
+            List<Itinerary> results = search(filters(List.of(), List.of("ua"), Double.POSITIVE_INFINITY,
+                    Long.MAX_VALUE, 2, null, null)).itineraries();
+
+            assertEquals(1, results.size());
+            assertEquals("AA4", results.get(0).segments().get(1).flightNumber());
+        }
+
+        @Test
+        @DisplayName("Should not expand hub departures when only directs are allowed")
+        void maxStopsLimitsExpansion() {
+            given(
+                    flight("AA1", "JFK", "LAX", 8, 0, 11, 30, 450),
+                    flight("AA2", "JFK", "ORD", 7, 0, 8, 30, 189),
+                    flight("AA3", "ORD", "LAX", 9, 30, 11, 30, 225));
+
+            SearchResult directs = search(filters(List.of(), List.of(), Double.POSITIVE_INFINITY,
+                    Long.MAX_VALUE, 0, null, null));
+            SearchResult connections = search(filters(List.of(), List.of(), Double.POSITIVE_INFINITY,
+                    Long.MAX_VALUE, 2, null, null));
+
+            assertEquals(1, directs.itineraries().size());
+            assertEquals(0, directs.itineraries().get(0).stops());
+            assertEquals(2, connections.itineraries().size());
+            assertTrue(directs.timings().expansions() < connections.timings().expansions());
+        }
+
+        @Test
+        @DisplayName("Should keep only first legs inside the departure window")
+        void departureWindow() {
+            given(
+                    flight("AA1", "JFK", "LAX", 8, 0, 11, 30, 299),
+                    flight("AA2", "JFK", "LAX", 12, 0, 15, 30, 329),
+                    flight("AA3", "JFK", "LAX", 16, 0, 19, 30, 349));
+
+            List<Itinerary> results = search(filters(List.of(), List.of(), Double.POSITIVE_INFINITY,
+                    Long.MAX_VALUE, 2, LocalTime.of(10, 0), LocalTime.of(12, 0))).itineraries();
+
+            assertEquals(1, results.size());
+            assertEquals("AA2", results.get(0).segments().get(0).flightNumber());
+        }
+
+        @Test
+        @DisplayName("Should drop connections longer than the duration cap")
+        void durationCap() {
+            given(
+                    flight("AA2", "JFK", "ORD", 7, 0, 8, 30, 189),
+                    flight("AA3", "ORD", "LAX", 9, 30, 11, 30, 225),
+                    flight("AA4", "ORD", "LAX", 13, 0, 15, 0, 245));
+
+            // 07:00 ET to 11:30 PT is 7.5 hours; the later connection takes 11 hours
+            List<Itinerary> results = search(filters(List.of("AA"), List.of(), Double.POSITIVE_INFINITY,
+                    8 * 60, 2, null, null)).itineraries();
+
+            assertEquals(1, results.size());
+            assertEquals(450, results.get(0).totalDurationMinutes());
+        }
+    }
 }
@@ -0,0 +1,89 @@
+package com.skypath.service;
+
+import com.skypath.dto.ScheduleChange;
+import com.skypath.model.Itinerary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for HotRouteService.
+ * Pins the JFK -> LAX route; applies a schedule change, so the context is discarded afterwards.
+ */
+@SpringBootTest(properties = "skypath.hot-routes.pinned=JFK-LAX@2024-03-15")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class HotRouteServiceTest {
+
+    @Autowired
+    private HotRouteService hotRoutes;
+
+    @Autowired
+    private FlightSearchService searchService;
+
+    @Autowired
+    private FlightDataService dataService;
+
+    private static final LocalDate SEARCH_DATE = LocalDate.of(2024, 3, 15);
+
+    private List<Itinerary> awaitMaterialized(String origin, String destination) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            HotRouteService.HotRoute route = hotRoutes.lookup(origin, destination, SEARCH_DATE);
+            if (route != null) {
+                return route.itineraries();
+            }
+            Thread.sleep(50);
+        }
+        return null;
+    }
+
+    @Test
+    @DisplayName("Should materialize pinned routes with the same results as a live search")
+    void pinnedRouteMatchesLiveSearch() throws InterruptedException {
+        List<Itinerary> materialized = awaitMaterialized("JFK", "LAX");
+        assertNotNull(materialized, "Pinned route should be materialized after startup");
+        assertEquals(searchService.search("JFK", "LAX", SEARCH_DATE), materialized);
+    }
+
+    @Test
+    @DisplayName("Should tag a recomputed list with the version it was searched on")
+    void listCarriesItsVersion() throws InterruptedException {
+        assertNotNull(awaitMaterialized("JFK", "LAX"));
+        long version = dataService.applyChanges(List.of(
+                new ScheduleChange(ScheduleChange.Type.CANCEL, "SP102", null, null, null, null, null)));
+
+        HotRouteService.HotRoute route = null;
+        for (int attempt = 0; attempt < 100; attempt++) {
+            route = hotRoutes.lookup("JFK", "LAX", SEARCH_DATE);
+            if (route.version() >= version) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        assertEquals(version, route.version());
+        assertEquals(searchService.search("JFK", "LAX", SEARCH_DATE), route.itineraries());
+        assertTrue(route.itineraries().stream()
+                .flatMap(it -> it.segments().stream())
+                .noneMatch(segment -> segment.flightNumber().equals("SP102")));
+    }
+
+    @Test
+    @DisplayName("Should return null for routes that are not hot")
+    void coldRouteMisses() {
+        assertNull(hotRoutes.lookup("BOS", "SEA", SEARCH_DATE));
+    }
+
+    @Test
+    @DisplayName("Should parse route specs case-insensitively")
+    void parseRouteKey() {
+        RouteKey key = RouteKey.parse(" jfk-lax@2024-03-15 ");
+        assertEquals(new RouteKey("JFK", "LAX", SEARCH_DATE), key);
+        assertThrows(IllegalArgumentException.class, () -> RouteKey.parse("JFKLAX"));
+    }
+}
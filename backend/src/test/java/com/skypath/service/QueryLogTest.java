@@ -0,0 +1,89 @@
+package com.skypath.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for QueryLog and its ring buffer.
+ */
+class QueryLogTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @TempDir
+    Path dir;
+
+    private QueryLog queryLog(boolean enabled, long slowThresholdMillis) {
+        return new QueryLog(mapper, enabled, dir.resolve("queries.jsonl").toString(),
+                dir.resolve("slow.jsonl").toString(), slowThresholdMillis, 1.0, 16, 1 << 20, 2);
+    }
+
+    private static QueryRecord record(long latencyMicros, SearchFilters filters) {
+        return new QueryRecord(1_700_000_000_000L, List.of("JFK"), List.of("LAX"), LocalDate.of(2024, 3, 15),
+                filters, SearchView.FULL, null, 2000, latencyMicros, 12, false, false);
+    }
+
+    @Test
+    @DisplayName("Records are written as JSON lines that read back unchanged, slow ones also to the slow file")
+    void writesAndReadsBack() throws Exception {
+        QueryLog log = queryLog(true, 100);
+        log.start();
+        SearchFilters filters = new SearchFilters(List.of("AA"), List.of(), 500, Long.MAX_VALUE,
+                FlightSearchService.MAX_STOPS, LocalTime.of(8, 0), null, null, null, 0);
+        QueryRecord fast = record(5_000, null);
+        QueryRecord slow = record(150_000, filters);
+        log.record(fast);
+        log.record(slow);
+        log.stop();
+
+        List<String> lines = Files.readAllLines(dir.resolve("queries.jsonl"));
+        assertEquals(2, lines.size());
+        assertEquals(fast, mapper.readValue(lines.get(0), QueryRecord.class));
+        assertEquals(slow, mapper.readValue(lines.get(1), QueryRecord.class));
+
+        List<String> slowLines = Files.readAllLines(dir.resolve("slow.jsonl"));
+        assertEquals(List.of(lines.get(1)), slowLines);
+    }
+
+    @Test
+    @DisplayName("A disabled log ignores records and creates no files")
+    void disabledIsNoOp() throws Exception {
+        QueryLog log = queryLog(false, 100);
+        log.start();
+        log.record(record(5_000, null));
+        log.stop();
+
+        assertFalse(log.isEnabled());
+        assertEquals(0, log.dropped());
+        assertFalse(Files.exists(dir.resolve("queries.jsonl")));
+    }
+
+    @Test
+    @DisplayName("Ring buffer rejects offers when full and accepts again once polled")
+    void ringBufferBounded() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, buffer.poll());
+        }
+        assertNull(buffer.poll());
+    }
+}
@@ -0,0 +1,103 @@
+package com.skypath.service;
+
+import com.skypath.index.FlightNetwork;
+import com.skypath.index.LowerBounds;
+import com.skypath.model.Airport;
+import com.skypath.model.Flight;
+import com.skypath.model.Itinerary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Top-K searches on a dense network of ten airports, every pair flown every two
+ * hours with varying flight times and fares.
+ */
+class RankedSearchTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 15);
+    private static final int AIRPORTS = 10;
+
+    private final FlightSearchService searchService = new FlightSearchService(null);
+
+    private static String code(int airport) {
+        return "A" + (char) ('A' + airport) + "X";
+    }
+
+    private static FlightNetwork network() {
+        List<Airport> airports = new ArrayList<>();
+        List<Flight> flights = new ArrayList<>();
+        int number = 100;
+        for (int from = 0; from < AIRPORTS; from++) {
+            airports.add(new Airport(code(from), code(from), "City " + from, "US", "America/Chicago"));
+            for (int to = 0; to < AIRPORTS; to++) {
+                if (from == to) {
+                    continue;
+                }
+                for (int hour = 6; hour <= 20; hour += 2) {
+                    LocalDateTime departure = DATE.atTime(hour, 5 * ((from + to) % 4));
+                    long minutes = 60 + 15 * ((from * 7 + to * 3 + hour) % 9);
+                    double price = 80 + 37 * ((from * 3 + to * 5 + hour) % 11);
+                    flights.add(new Flight("SP" + number++, "SkyPath Airways", code(from), code(to), departure,
+                            departure.plusMinutes(minutes), price, "A320"));
+                }
+            }
+        }
+        return FlightNetwork.compile(1, airports, flights, true);
+    }
+
+    private SearchResult search(FlightNetwork network, SearchRanking ranking) {
+        return searchService.search(network, List.of(code(0)), List.of(code(1)), DATE, SearchLimits.UNLIMITED,
+                SearchFilters.NONE, SearchView.FULL, ranking);
+    }
+
+    @Test
+    @DisplayName("The fastest K are those of the full search, found with far fewer expansions")
+    void fastest() {
+        FlightNetwork network = network();
+        SearchResult all = search(network, SearchRanking.ALL);
+        SearchResult best = search(network, new SearchRanking(TripSort.DURATION, 10));
+
+        assertEquals(10, best.itineraries().size());
+        assertEquals(all.itineraries().subList(0, 10).stream().map(Itinerary::totalDurationMinutes).toList(),
+                best.itineraries().stream().map(Itinerary::totalDurationMinutes).toList());
+        assertTrue(best.timings().expansions() * 5 < all.timings().expansions(),
+                best.timings().expansions() + " expansions vs " + all.timings().expansions());
+    }
+
+    @Test
+    @DisplayName("The cheapest K are those of the full search, found with fewer expansions")
+    void cheapest() {
+        FlightNetwork network = network();
+        List<Itinerary> all = new ArrayList<>(search(network, SearchRanking.ALL).itineraries());
+        all.sort(new SearchRanking(TripSort.PRICE, 10).comparator());
+        SearchResult best = search(network, new SearchRanking(TripSort.PRICE, 10));
+
+        assertEquals(all.subList(0, 10).stream().map(Itinerary::totalPrice).toList(),
+                best.itineraries().stream().map(Itinerary::totalPrice).toList());
+        assertTrue(best.timings().expansions() < search(network, SearchRanking.ALL).timings().expansions());
+    }
+
+    @Test
+    @DisplayName("Bounds never exceed the real remainder of any itinerary")
+    void admissible() {
+        FlightNetwork network = network();
+        int destination = network.airportId(code(1));
+        LowerBounds bounds = network.lowerBounds(new int[]{destination}, FlightSearchService.MAX_LEGS);
+
+        for (Itinerary itinerary : search(network, SearchRanking.ALL).itineraries()) {
+            int legs = itinerary.segments().size();
+            assertTrue(bounds.remainingFare(network.airportId(code(0)), legs) <= itinerary.totalPrice() + 1e-9);
+            assertTrue(bounds.remainingSeconds(network.airportId(code(0)), legs) / 60
+                    <= itinerary.totalDurationMinutes());
+        }
+        assertEquals(LowerBounds.UNREACHABLE, bounds.remainingSeconds(network.airportId(code(0)), 0));
+        assertEquals(0, bounds.remainingSeconds(destination, 0));
+    }
+}
@@ -0,0 +1,92 @@
+package com.skypath.service;
+
+import com.skypath.exception.SearchOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SearchAdmission: one worker thread and a one-slot queue.
+ */
+class SearchAdmissionTest {
+
+    private final SearchAdmission admission = new SearchAdmission(1, 1);
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        admission.stop();
+    }
+
+    private String blockingSearch() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+
+    private void awaitQueued(int expected) throws InterruptedException {
+        for (int wait = 0; wait < 500 && admission.queued() < expected; wait++) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @DisplayName("Should run searches and return their result")
+    void runsSearch() {
+        assertEquals("ok", admission.run(() -> "ok", 1_000));
+    }
+
+    @Test
+    @DisplayName("Should run several searches and return their results in order")
+    void runsAll() {
+        List<Supplier<String>> searches = List.of(() -> "outbound", () -> "return");
+        assertEquals(List.of("outbound", "return"), admission.runAll(searches, 1_000));
+    }
+
+    @Test
+    @DisplayName("Should shed a search when the worker is busy and the queue is full")
+    void shedsWhenQueueFull() throws Exception {
+        Future<String> running = callers.submit(() -> admission.run(this::blockingSearch, 5_000));
+        Thread.sleep(50);
+        Future<String> queued = callers.submit(() -> admission.run(this::blockingSearch, 5_000));
+        awaitQueued(1);
+
+        assertThrows(SearchOverloadedException.class, () -> admission.run(() -> "rejected", 1_000));
+
+        release.countDown();
+        assertEquals("done", running.get(5, TimeUnit.SECONDS));
+        assertEquals("done", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Should give up on a search that waits in the queue too long")
+    void shedsWhenQueuedTooLong() throws Exception {
+        callers.submit(() -> admission.run(this::blockingSearch, 5_000));
+        Thread.sleep(50);
+
+        SearchOverloadedException e = assertThrows(SearchOverloadedException.class,
+                () -> admission.run(() -> "late", 100));
+        assertTrue(e.getMessage().contains("scheduled"));
+        assertEquals(0, admission.queued());
+    }
+
+    @Test
+    @DisplayName("Should report a search that started but ran too long as not finished")
+    void shedsWhenRunningTooLong() {
+        SearchOverloadedException e = assertThrows(SearchOverloadedException.class,
+                () -> admission.run(this::blockingSearch, 100));
+        assertTrue(e.getMessage().contains("did not finish"));
+    }
+}
@@ -0,0 +1,153 @@
+package com.skypath.service;
+
+import com.skypath.cluster.ShardRouter;
+import com.skypath.exception.InventoryException;
+import com.skypath.model.Flight;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SeatInventory: A320s have 100 seats here, E175s 4.
+ */
+class SeatInventoryTest {
+
+    private static final Flight JFK_ORD = flight("SP1", "JFK", "ORD", "A320");
+    private static final Flight ORD_DEN = flight("SP2", "ORD", "DEN", "E175");
+    private static final Flight DEN_LAX = flight("SP3", "DEN", "LAX", "A320");
+
+    private static Flight flight(String number, String origin, String destination, String aircraft) {
+        LocalDateTime departure = LocalDateTime.of(2024, 3, 15, 9, 0);
+        return new Flight(number, "SkyPath Airways", origin, destination, departure, departure.plusHours(2),
+                199.0, aircraft);
+    }
+
+    private static SeatInventory inventory(long holdSeconds) {
+        return new SeatInventory(new ShardRouter(), new String[]{"A320:100", "E175:4"}, 180, holdSeconds, 9, 1);
+    }
+
+    private static String error(Runnable action) {
+        return assertThrows(InventoryException.class, action::run).getError();
+    }
+
+    @Test
+    @DisplayName("A multi-leg hold takes every leg or none")
+    void allOrNothing() {
+        SeatInventory inventory = inventory(600);
+
+        assertEquals("SOLD_OUT", error(() -> inventory.hold(List.of(JFK_ORD, ORD_DEN, DEN_LAX), 5)));
+        assertEquals(100, inventory.available(JFK_ORD));
+        assertEquals(4, inventory.available(ORD_DEN));
+        assertEquals(100, inventory.available(DEN_LAX));
+
+        inventory.hold(List.of(JFK_ORD, ORD_DEN, DEN_LAX), 4);
+        assertEquals(96, inventory.available(JFK_ORD));
+        assertEquals(0, inventory.available(ORD_DEN));
+        assertFalse(inventory.hasSeats(ORD_DEN, 1));
+        assertTrue(inventory.hasSeats(DEN_LAX, 96));
+    }
+
+    @Test
+    @DisplayName("Confirming sells the held seats, releasing gives them back, and a hold settles once")
+    void confirmAndRelease() {
+        SeatInventory inventory = inventory(600);
+        SeatInventory.Hold sold = inventory.hold(List.of(JFK_ORD), 3);
+        SeatInventory.Hold released = inventory.hold(List.of(JFK_ORD), 2);
+
+        assertEquals(SeatInventory.Status.CONFIRMED, inventory.confirm(sold.id()).status());
+        assertEquals(SeatInventory.Status.RELEASED, inventory.release(released.id()).status());
+        assertEquals(97, inventory.available(JFK_ORD));
+        assertEquals(3, inventory.sold(JFK_ORD));
+
+        assertEquals("HOLD_NOT_FOUND", error(() -> inventory.release(sold.id())));
+        assertEquals("HOLD_NOT_FOUND", error(() -> inventory.confirm(released.id())));
+        assertEquals(0, inventory.activeHolds());
+    }
+
+    @Test
+    @DisplayName("Unconfirmed holds expire and give their seats back")
+    void expiry() throws Exception {
+        SeatInventory inventory = inventory(0);
+        SeatInventory.Hold hold = inventory.hold(List.of(ORD_DEN), 4);
+        assertEquals(0, inventory.available(ORD_DEN));
+
+        Thread.sleep(5);
+        inventory.expireDue();
+
+        assertEquals(SeatInventory.Status.EXPIRED, hold.status());
+        assertEquals(4, inventory.available(ORD_DEN));
+        assertEquals("HOLD_NOT_FOUND", error(() -> inventory.confirm(hold.id())));
+        assertEquals(0, inventory.activeHolds());
+    }
+
+    @Test
+    @DisplayName("Rejects seat counts beyond the limit and repeated flights")
+    void validation() {
+        SeatInventory inventory = inventory(600);
+
+        assertEquals("INVALID_SEATS", error(() -> inventory.hold(List.of(JFK_ORD), 0)));
+        assertEquals("INVALID_SEATS", error(() -> inventory.hold(List.of(JFK_ORD), 10)));
+        assertEquals("INVALID_HOLD", error(() -> inventory.hold(List.of(JFK_ORD, JFK_ORD), 1)));
+        assertEquals(100, inventory.available(JFK_ORD));
+    }
+
+    @Test
+    @DisplayName("A flash sale of concurrent holds sells every seat exactly once")
+    void flashSale() throws Exception {
+        SeatInventory inventory = inventory(600);
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<int[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int[] held = new int[2];
+                    for (int i = 0; i < 500; i++) {
+                        try {
+                            inventory.hold(List.of(JFK_ORD), 1);
+                            held[0]++;
+                        } catch (InventoryException e) {
+                            // sold out
+                        }
+                        try {
+                            inventory.hold(List.of(DEN_LAX, ORD_DEN), 1);
+                            held[1]++;
+                        } catch (InventoryException e) {
+                            // sold out
+                        }
+                    }
+                    return held;
+                }));
+            }
+            start.countDown();
+            int direct = 0;
+            int connecting = 0;
+            for (Future<int[]> future : futures) {
+                int[] held = future.get(30, TimeUnit.SECONDS);
+                direct += held[0];
+                connecting += held[1];
+            }
+
+            assertEquals(100, direct);
+            assertEquals(0, inventory.available(JFK_ORD));
+            // The small leg limits the connection, and the big one gave back what it could not use
+            assertEquals(4, connecting);
+            assertEquals(0, inventory.available(ORD_DEN));
+            assertEquals(96, inventory.available(DEN_LAX));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
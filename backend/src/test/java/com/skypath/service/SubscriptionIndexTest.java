@@ -0,0 +1,74 @@
+package com.skypath.service;
+
+import com.skypath.index.FlightNetwork;
+import com.skypath.model.Airport;
+import com.skypath.model.Flight;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SubscriptionIndex on a chain JFK -> ORD -> DEN -> LAX, plus SEA -> BOS.
+ */
+class SubscriptionIndexTest {
+
+    private static final List<Airport> AIRPORTS = List.of(
+            new Airport("JFK", "JFK", "New York", "US", "America/New_York"),
+            new Airport("ORD", "ORD", "Chicago", "US", "America/Chicago"),
+            new Airport("DEN", "DEN", "Denver", "US", "America/Denver"),
+            new Airport("LAX", "LAX", "Los Angeles", "US", "America/Los_Angeles"),
+            new Airport("SEA", "SEA", "Seattle", "US", "America/Los_Angeles"),
+            new Airport("BOS", "BOS", "Boston", "US", "America/New_York"));
+
+    private static Flight flight(String origin, String destination) {
+        LocalDateTime departure = LocalDateTime.of(2024, 3, 15, 9, 0);
+        return new Flight("SP1", "SkyPath Airways", origin, destination, departure, departure.plusHours(2),
+                199.0, "A320");
+    }
+
+    private static FlightNetwork network() {
+        return FlightNetwork.compile(1, AIRPORTS, List.of(flight("JFK", "ORD"), flight("ORD", "DEN"),
+                flight("DEN", "LAX"), flight("SEA", "BOS")), true);
+    }
+
+    @Test
+    @DisplayName("Matches flights leaving the origin, reaching the destination or joining first and last stops")
+    void roles() {
+        SubscriptionIndex<String> index = new SubscriptionIndex<>();
+        index.add("JFK-LAX", List.of("JFK"), List.of("LAX"), network());
+
+        assertEquals(Set.of(), index.affected(List.of(flight("SEA", "BOS"))));
+        assertEquals(Set.of(), index.affected(List.of(flight("ORD", "SEA"))));
+        assertEquals(Set.of("JFK-LAX"), index.affected(List.of(flight("ORD", "DEN"))));
+        assertEquals(Set.of("JFK-LAX"), index.affected(List.of(flight("JFK", "SEA"))));
+        assertEquals(Set.of("JFK-LAX"), index.affected(List.of(flight("BOS", "LAX"))));
+    }
+
+    @Test
+    @DisplayName("Routes added next to the origin or destination become stops")
+    void learnsStops() {
+        SubscriptionIndex<String> index = new SubscriptionIndex<>();
+        index.add("JFK-LAX", List.of("JFK"), List.of("LAX"), network());
+
+        // SEA -> BOS is not a middle leg until JFK -> SEA and BOS -> LAX exist
+        index.affected(List.of(flight("JFK", "SEA"), flight("BOS", "LAX")));
+        assertEquals(Set.of("JFK-LAX"), index.affected(List.of(flight("SEA", "BOS"))));
+    }
+
+    @Test
+    @DisplayName("Removed watches are no longer matched")
+    void remove() {
+        SubscriptionIndex<String> index = new SubscriptionIndex<>();
+        index.add("JFK-LAX", List.of("JFK"), List.of("LAX"), network());
+        index.add("ORD-LAX", List.of("ORD"), List.of("LAX"), network());
+        index.remove("JFK-LAX", List.of("JFK"), List.of("LAX"));
+
+        assertEquals(Set.of("ORD-LAX"), index.affected(List.of(flight("DEN", "LAX"))));
+        assertEquals(Set.of(), index.affected(List.of(flight("JFK", "ORD"))));
+    }
+}
@@ -0,0 +1,101 @@
+package com.skypath.service;
+
+import com.skypath.model.FlightSegment;
+import com.skypath.model.Itinerary;
+import com.skypath.model.Trip;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the k-best merge of trip legs.
+ */
+class TripCombinerTest {
+
+    // A direct itinerary departing and arriving at the given UTC hours on 2024-03-15/16
+    private Itinerary itinerary(String flight, int departDay, int departHour, int arriveHour, double price) {
+        String departure = String.format("2024-03-%02dT%02d:00:00Z", departDay, departHour);
+        String arrival = String.format("2024-03-%02dT%02d:00:00Z", departDay, arriveHour);
+        FlightSegment segment = new FlightSegment(flight, "TestAir", "JFK", "JFK", "New York", "LAX", "LAX",
+                "Los Angeles", departure, arrival, (arriveHour - departHour) * 60L, "A320");
+        return new Itinerary(List.of(segment), List.of(), (arriveHour - departHour) * 60L, price, 0);
+    }
+
+    @Test
+    @DisplayName("Should return the cheapest pairs in order without the full cross product")
+    void cheapestPairsFirst() {
+        List<Itinerary> outbound = List.of(
+                itinerary("O1", 15, 8, 11, 300), itinerary("O2", 15, 9, 12, 100), itinerary("O3", 15, 10, 13, 200));
+        List<Itinerary> inbound = List.of(
+                itinerary("R1", 16, 8, 11, 250), itinerary("R2", 16, 9, 12, 50));
+
+        TripResult result = TripCombiner.topK(List.of(outbound, inbound), TripSort.PRICE, 0, 3, 100);
+
+        assertFalse(result.partial());
+        List<Double> prices = result.trips().stream().map(Trip::totalPrice).toList();
+        assertEquals(List.of(150.0, 250.0, 350.0), prices);
+        assertEquals("O2", result.trips().get(0).legs().get(0).segments().get(0).flightNumber());
+        assertEquals("R2", result.trips().get(0).legs().get(1).segments().get(0).flightNumber());
+    }
+
+    @Test
+    @DisplayName("Should skip returns leaving before the outbound lands plus the minimum stay")
+    void respectsMinimumStay() {
+        List<Itinerary> outbound = List.of(itinerary("O1", 15, 8, 11, 100));
+        List<Itinerary> inbound = List.of(
+                itinerary("R1", 15, 12, 15, 50), itinerary("R2", 15, 16, 19, 80));
+
+        TripResult result = TripCombiner.topK(List.of(outbound, inbound), TripSort.PRICE, 180, 5, 100);
+
+        assertEquals(1, result.trips().size());
+        assertEquals(180.0, result.trips().get(0).totalPrice());
+    }
+
+    @Test
+    @DisplayName("Should rank by total flight time when sorting by duration")
+    void sortsByDuration() {
+        List<Itinerary> outbound = List.of(itinerary("O1", 15, 8, 14, 100), itinerary("O2", 15, 8, 10, 500));
+        List<Itinerary> inbound = List.of(itinerary("R1", 16, 8, 11, 100));
+
+        TripResult result = TripCombiner.topK(List.of(outbound, inbound), TripSort.DURATION, 0, 1, 100);
+
+        assertEquals(300, result.trips().get(0).totalDurationMinutes());
+    }
+
+    @Test
+    @DisplayName("Should flag the result as partial when the candidate limit cuts the ranking short")
+    void candidateLimit() {
+        List<Itinerary> outbound = new ArrayList<>();
+        List<Itinerary> inbound = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            outbound.add(itinerary("O" + i, 15, 8, 11, 100 + i));
+            // Every return leaves before any outbound lands
+            inbound.add(itinerary("R" + i, 15, 9, 10, 100 + i));
+        }
+
+        TripResult result = TripCombiner.topK(List.of(outbound, inbound), TripSort.PRICE, 0, 5, 20);
+
+        assertTrue(result.partial());
+        assertTrue(result.trips().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should combine three legs in order, each after the previous one lands")
+    void threeLegs() {
+        List<Itinerary> first = List.of(itinerary("A1", 15, 8, 11, 100), itinerary("A2", 15, 14, 17, 90));
+        List<Itinerary> second = List.of(itinerary("B1", 15, 12, 13, 40), itinerary("B2", 15, 18, 19, 60));
+        List<Itinerary> third = List.of(itinerary("C1", 15, 20, 22, 70), itinerary("C2", 16, 8, 10, 75));
+
+        TripResult result = TripCombiner.topK(List.of(first, second, third), TripSort.PRICE, 0, 10, 100);
+
+        // A2 lands at 17:00, so only B2 can follow it; B1 can only follow A1
+        List<Double> prices = result.trips().stream().map(Trip::totalPrice).toList();
+        assertEquals(List.of(210.0, 215.0, 220.0, 225.0, 230.0, 235.0), prices);
+        assertEquals(List.of("A1", "B1", "C1"), result.trips().get(0).legs().stream()
+                .map(leg -> leg.segments().get(0).flightNumber()).toList());
+    }
+}
@@ -0,0 +1,395 @@
+package com.skypath.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypath.SkypathBackendApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model HTTP load test. Starts the backend in a separate JVM on a generated
+ * {@link SyntheticNetwork} (or targets a running instance) and sends requests at a
+ * fixed mean arrival rate with Poisson gaps, whatever the server's response times.
+ *
+ * <pre>
+ * --rate=N           requests per second (default 200)
+ * --duration=S       measured seconds (default 60), after --warmup=S unmeasured (default 15)
+ * --mix=K=W,...      request weights by kind: direct, one-stop, two-stop, hub, airports
+ *                    (default direct=25,one-stop=30,two-stop=20,hub=15,airports=10)
+ * --hubs=N --spokes=N --frequency=N --seed=N
+ *                    generated network (default 40 hubs, 760 spokes, 12 flights a day per route)
+ * --target=URL       a running instance to load instead; it must serve the same generated dataset
+ * --jvm-args="..."   extra options for the backend JVM, e.g. "-Xmx2g -XX:+UseZGC"
+ * </pre>
+ *
+ * Each latency is measured from the moment the request was due, not from when it was
+ * actually sent, so time the generator spent queued behind a stalled server counts
+ * against the server (coordinated omission correction). Errors and shed requests are
+ * measured the same way, in their own histogram and in the overall one, so a server
+ * that answers fast by refusing work does not look fast. Run it with a rising --rate;
+ * the saturation point is where p99 detaches from p50 and throughput stops following
+ * the offered rate, or where the shed rate starts to climb.
+ */
+public final class LoadTest {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    enum Kind {
+        DIRECT("direct"), ONE_STOP("one-stop"), TWO_STOP("two-stop"), HUB("hub"), AIRPORTS("airports");
+
+        final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        static Kind of(String label) {
+            for (Kind kind : values()) {
+                if (kind.label.equals(label)) {
+                    return kind;
+                }
+            }
+            throw new IllegalArgumentException("Unknown request kind '" + label + "'");
+        }
+    }
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        long warmupSeconds = Long.parseLong(options.getOrDefault("warmup", "15"));
+        long durationSeconds = Long.parseLong(options.getOrDefault("duration", "60"));
+        Map<Kind, Integer> mix = mix(options.getOrDefault("mix", "direct=25,one-stop=30,two-stop=20,hub=15,airports=10"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        SyntheticNetwork network = new SyntheticNetwork(
+                Integer.parseInt(options.getOrDefault("hubs", "40")),
+                Integer.parseInt(options.getOrDefault("spokes", "760")),
+                Integer.parseInt(options.getOrDefault("frequency", "12")), seed);
+        System.out.printf("Network: %d hubs, %d spokes, %d flights%n",
+                network.hubs.size(), network.spokes.size(), network.flights.size());
+
+        Process backend = null;
+        String target = options.get("target");
+        try {
+            if (target == null) {
+                Path dataset = Path.of("build", "loadtest", "flights.json");
+                network.write(dataset, new ObjectMapper().findAndRegisterModules());
+                int port = freePort();
+                backend = startBackend(dataset, port, network, options.getOrDefault("jvm-args", ""));
+                target = "http://localhost:" + port;
+                awaitReady(target, backend);
+            }
+            Requests requests = new Requests(network, mix, target, seed);
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            if (warmupSeconds > 0) {
+                System.out.printf("Warming up for %d s at %.0f requests/s...%n", warmupSeconds, rate);
+                run(client, requests, rate, warmupSeconds, seed);
+            }
+            System.out.printf("Measuring for %d s at %.0f requests/s against %s...%n", durationSeconds, rate, target);
+            Results results = run(client, requests, rate, durationSeconds, seed + 1);
+            results.print();
+        } finally {
+            if (backend != null) {
+                backend.destroy();
+                if (!backend.waitFor(10, TimeUnit.SECONDS)) {
+                    backend.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private static Map<Kind, Integer> mix(String spec) {
+        Map<Kind, Integer> mix = new EnumMap<>(Kind.class);
+        for (String part : spec.split(",")) {
+            String[] weight = part.trim().split("=");
+            mix.put(Kind.of(weight[0].trim()), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    // Same classpath as this JVM, which includes the application; warmup runs hub searches
+    private static Process startBackend(Path dataset, int port, SyntheticNetwork network, String jvmArgs)
+            throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (String arg : jvmArgs.trim().split("\\s+")) {
+            if (!arg.isEmpty()) {
+                command.add(arg);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SkypathBackendApplication.class.getName());
+        command.add("--server.port=" + port);
+        command.add("--skypath.data.path=file:" + dataset.toAbsolutePath());
+        command.add("--skypath.hot-routes.pinned=");
+        command.add("--skypath.warmup.searches=" + network.hubs.get(0).code() + "-"
+                + network.hubs.get(network.hubs.size() - 1).code() + "@" + SyntheticNetwork.DATE);
+        command.add("--skypath.query-log.enabled=false");
+        Path log = Path.of("build", "loadtest", "backend.log");
+        System.out.println("Starting backend on port " + port + ", log in " + log);
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+
+    private static void awaitReady(String target, Process backend) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest ready = HttpRequest.newBuilder(URI.create(target + "/api/health/ready")).build();
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(3);
+        while (System.nanoTime() < deadline) {
+            if (!backend.isAlive()) {
+                throw new IllegalStateException("Backend exited with " + backend.exitValue()
+                        + ", see build" + File.separator + "loadtest" + File.separator + "backend.log");
+            }
+            try {
+                if (client.send(ready, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException("Backend not ready after 3 minutes");
+    }
+
+    private static Results run(HttpClient client, Requests requests, double rate, long seconds, long seed)
+            throws InterruptedException {
+        Results results = new Results();
+        Random arrivals = new Random(seed);
+        AtomicInteger inFlight = new AtomicInteger();
+        long meanGapNanos = (long) (1e9 / rate);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long due = start;
+        int sent = 0;
+        while (due < end) {
+            for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            Kind kind = requests.nextKind();
+            long intended = due;
+            results.maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            client.sendAsync(requests.next(kind), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long micros = (System.nanoTime() - intended) / 1000;
+                        inFlight.decrementAndGet();
+                        if (failure != null) {
+                            results.failure(kind, failure.getClass().getSimpleName(), micros);
+                        } else if (response.statusCode() != 200) {
+                            if (response.statusCode() == 503) {
+                                results.shed.increment();
+                            }
+                            results.failure(kind, "HTTP " + response.statusCode(), micros);
+                        } else {
+                            results.success(kind, micros);
+                        }
+                    });
+            sent++;
+            due += (long) (-Math.log(1 - arrivals.nextDouble()) * meanGapNanos);
+        }
+        long drainDeadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        results.sent = sent;
+        results.seconds = (System.nanoTime() - start) / 1e9;
+        results.offeredSeconds = seconds;
+        return results;
+    }
+
+    // Picks request kinds by weight and endpoints for them
+    private static final class Requests {
+
+        private final SyntheticNetwork network;
+        private final String baseUrl;
+        private final Random random;
+        private final Kind[] kinds;
+        private final int[] cumulativeWeights;
+
+        Requests(SyntheticNetwork network, Map<Kind, Integer> mix, String baseUrl, long seed) {
+            this.network = network;
+            this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+            this.random = new Random(seed);
+            this.kinds = mix.keySet().toArray(new Kind[0]);
+            this.cumulativeWeights = new int[kinds.length];
+            int total = 0;
+            for (int i = 0; i < kinds.length; i++) {
+                total += mix.get(kinds[i]);
+                cumulativeWeights[i] = total;
+            }
+            if (total <= 0) {
+                throw new IllegalArgumentException("The request mix needs a positive weight");
+            }
+        }
+
+        Kind nextKind() {
+            int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; ; i++) {
+                if (pick < cumulativeWeights[i]) {
+                    return kinds[i];
+                }
+            }
+        }
+
+        HttpRequest next(Kind kind) {
+            String path = switch (kind) {
+                case DIRECT -> {
+                    int spoke = spoke();
+                    yield search(network.spokes.get(spoke).code(), network.hubs.get(network.spokeHubs[spoke][0]).code());
+                }
+                case ONE_STOP -> {
+                    int spoke = spoke();
+                    int hub;
+                    do {
+                        hub = random.nextInt(network.hubs.size());
+                    } while (network.servesHub(spoke, hub) && network.hubs.size() > 2);
+                    yield search(network.spokes.get(spoke).code(), network.hubs.get(hub).code());
+                }
+                case TWO_STOP -> {
+                    int from = spoke();
+                    int to;
+                    int tries = 0;
+                    do {
+                        to = spoke();
+                    } while ((to == from || network.sharesHub(from, to)) && ++tries < 100);
+                    yield search(network.spokes.get(from).code(), network.spokes.get(to).code());
+                }
+                case HUB -> {
+                    int from = random.nextInt(network.hubs.size());
+                    int to = (from + 1 + random.nextInt(Math.max(network.hubs.size() - 1, 1))) % network.hubs.size();
+                    yield search(network.hubs.get(from).code(), network.hubs.get(to).code());
+                }
+                case AIRPORTS -> "/api/airports";
+            };
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build();
+        }
+
+        private int spoke() {
+            return random.nextInt(network.spokes.size());
+        }
+
+        private static String search(String origin, String destination) {
+            return "/api/flights/search?origin=" + origin + "&destination=" + destination
+                    + "&date=" + SyntheticNetwork.DATE;
+        }
+    }
+
+    private static final class Results {
+
+        // Successful responses per kind and overall, failed ones, and every completed request
+        private final Map<Kind, Histogram> latencies = new EnumMap<>(Kind.class);
+        private final Histogram ok = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        private final Histogram errors = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        private final Histogram all = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+        // 503 responses: searches the server refused under load
+        private final LongAdder shed = new LongAdder();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private int sent;
+        private double seconds;
+        private long offeredSeconds;
+
+        Results() {
+            for (Kind kind : Kind.values()) {
+                latencies.put(kind, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3));
+            }
+        }
+
+        void success(Kind kind, long micros) {
+            long value = Math.min(micros, MAX_LATENCY_MICROS);
+            latencies.get(kind).recordValue(value);
+            ok.recordValue(value);
+            all.recordValue(value);
+        }
+
+        void failure(Kind kind, String reason, long micros) {
+            long value = Math.min(micros, MAX_LATENCY_MICROS);
+            errors.recordValue(value);
+            all.recordValue(value);
+            failures.computeIfAbsent(kind.label + ": " + reason, r -> new LongAdder()).increment();
+        }
+
+        void print() {
+            long succeeded = ok.getTotalCount();
+            long failed = errors.getTotalCount();
+            System.out.printf("Sent %d requests (%.1f/s offered), %d ok, %d failed, %.1f ok/s, "
+                            + "%.1f%% shed (%.1f/s), max %d in flight%n",
+                    sent, sent / (double) offeredSeconds, succeeded, failed, succeeded / seconds,
+                    sent == 0 ? 0.0 : 100.0 * shed.sum() / sent, shed.sum() / seconds, maxInFlight.get());
+            System.out.printf("%-10s %9s %9s %9s %9s %9s %9s  (ms)%n", "", "count", "p50", "p99", "p99.9", "max", "mean");
+            for (Map.Entry<Kind, Histogram> entry : latencies.entrySet()) {
+                if (entry.getValue().getTotalCount() > 0) {
+                    print(entry.getKey().label, entry.getValue());
+                }
+            }
+            print("ok", ok);
+            if (failed > 0) {
+                print("errors", errors);
+            }
+            print("all", all);
+            if (!failures.isEmpty()) {
+                System.out.println("Failures:");
+                new LinkedHashMap<>(failures).forEach((reason, count) ->
+                        System.out.printf("  %-40s %d%n", reason, count.sum()));
+            }
+        }
+
+        private static void print(String label, Histogram histogram) {
+            System.out.printf("%-10s %9d %9.2f %9.2f %9.2f %9.2f %9.2f%n", label, histogram.getTotalCount(),
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0,
+                    histogram.getMean() / 1000.0);
+        }
+    }
+}
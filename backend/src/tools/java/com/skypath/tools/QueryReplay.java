@@ -0,0 +1,294 @@
+package com.skypath.tools;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypath.SkypathBackendApplication;
+import com.skypath.service.FlightSearchService;
+import com.skypath.service.QueryRecord;
+import com.skypath.service.SearchFilters;
+import com.skypath.service.SearchLimits;
+import com.skypath.service.SearchView;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a query log written by {@link com.skypath.service.QueryLog} and compares the
+ * latency percentiles with the ones captured.
+ *
+ * <pre>
+ * --file=PATH        query log to replay (required)
+ * --target=URL       base URL of a running instance; default: search in-process
+ * --speed=N          pacing: 1 keeps the captured gaps, 10 replays ten times faster,
+ *                    0 sends queries back to back (default 1)
+ * --threads=N        concurrent searches (default 16)
+ * </pre>
+ *
+ * Paced replays are open-model: each query is due at its captured offset divided by the
+ * speed and its latency is taken from that moment, so a stall also counts against the
+ * queries that queued behind it (no coordinated omission). In-process replays boot the
+ * application without a web server and call {@link FlightSearchService} directly, so
+ * they measure the search without admission, hot routes or HTTP.
+ */
+public final class QueryReplay {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private QueryReplay() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        String file = options.get("file");
+        if (file == null) {
+            System.err.println("Usage: QueryReplay --file=PATH [--target=URL] [--speed=N] [--threads=N]");
+            System.exit(2);
+        }
+        List<QueryRecord> records = read(Path.of(file));
+        if (records.isEmpty()) {
+            System.out.println("No queries in " + file);
+            return;
+        }
+        double speed = Double.parseDouble(options.getOrDefault("speed", "1"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        String target = options.get("target");
+
+        try (Target searches = target == null ? new InProcess() : new Remote(target)) {
+            replay(records, searches, speed, threads);
+        }
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private static List<QueryRecord> read(Path file) throws IOException {
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        List<QueryRecord> records = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    records.add(mapper.readValue(line, QueryRecord.class));
+                }
+            }
+        }
+        records.sort((a, b) -> Long.compare(a.timestamp(), b.timestamp()));
+        return records;
+    }
+
+    private static void replay(List<QueryRecord> records, Target searches, double speed, int threads)
+            throws InterruptedException {
+        Histogram captured = new Histogram(MAX_LATENCY_MICROS, 3);
+        Histogram replayed = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger changedCounts = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        boolean paced = speed > 0;
+        long firstTimestamp = records.get(0).timestamp();
+        long start = System.nanoTime();
+        for (QueryRecord record : records) {
+            captured.recordValue(Math.min(record.latencyMicros(), MAX_LATENCY_MICROS));
+            long due = start + (long) ((record.timestamp() - firstTimestamp) * 1_000_000 / Math.max(speed, 1e-9));
+            if (paced) {
+                for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+            pool.execute(() -> {
+                long begin = paced ? due : System.nanoTime();
+                try {
+                    int results = searches.search(record);
+                    if (results != record.results() && !record.partial()) {
+                        changedCounts.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                }
+                replayed.recordValue(Math.min((System.nanoTime() - begin) / 1000, MAX_LATENCY_MICROS));
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Replayed %d queries against %s in %.1f s (%.1f/s), %d errors, %d result counts changed%n",
+                records.size(), searches, seconds, records.size() / seconds, errors.get(), changedCounts.get());
+        System.out.printf("%-10s %9s %9s %9s %9s %9s  (ms)%n", "", "p50", "p90", "p99", "p99.9", "max");
+        print("captured", captured);
+        print("replayed", replayed);
+    }
+
+    private static void print(String label, Histogram histogram) {
+        System.out.printf("%-10s %9.2f %9.2f %9.2f %9.2f %9.2f%n", label,
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    // Runs one captured search and returns the number of itineraries
+    private interface Target extends AutoCloseable {
+
+        int search(QueryRecord record) throws Exception;
+
+        @Override
+        void close();
+    }
+
+    private static final class InProcess implements Target {
+
+        private final ConfigurableApplicationContext context;
+        private final FlightSearchService searchService;
+        private final long maxExpansions;
+
+        InProcess() {
+            context = new SpringApplicationBuilder(SkypathBackendApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .run("--skypath.query-log.enabled=false");
+            searchService = context.getBean(FlightSearchService.class);
+            maxExpansions = context.getEnvironment()
+                    .getProperty("skypath.search.budget.max-expansions", Long.class, 5_000_000L);
+        }
+
+        @Override
+        public int search(QueryRecord record) {
+            return searchService.search(record.origins(), record.destinations(), record.date(),
+                            new SearchLimits(record.budgetMillis(), maxExpansions), record.filtersOrNone(),
+                            record.view(), record.rankingOrAll())
+                    .itineraries().size();
+        }
+
+        @Override
+        public void close() {
+            context.close();
+        }
+
+        @Override
+        public String toString() {
+            return "in-process FlightSearchService";
+        }
+    }
+
+    private static final class Remote implements Target {
+
+        private final String baseUrl;
+        private final HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        Remote(String baseUrl) {
+            this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        }
+
+        @Override
+        public int search(QueryRecord record) throws Exception {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + query(record)))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+            return mapper.readTree(response.body()).get("count").asInt();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return baseUrl;
+        }
+    }
+
+    // The search request the record was captured from, with resolved airports
+    static String query(QueryRecord record) {
+        StringBuilder query = new StringBuilder("/api/flights/search");
+        param(query, "origin", String.join(",", record.origins()));
+        param(query, "destination", String.join(",", record.destinations()));
+        param(query, "date", record.date().toString());
+        param(query, "maxTimeMs", Long.toString(record.budgetMillis()));
+        if (record.view() == SearchView.SUMMARY) {
+            param(query, "view", "summary");
+        }
+        if (record.ranking() != null) {
+            param(query, "sort", record.ranking().sort().name().toLowerCase());
+            if (record.ranking().limit() < Integer.MAX_VALUE) {
+                param(query, "limit", Integer.toString(record.ranking().limit()));
+            }
+        }
+        SearchFilters filters = record.filters();
+        if (filters != null) {
+            if (!filters.airlines().isEmpty()) {
+                param(query, "airlines", String.join(",", filters.airlines()));
+            }
+            if (!filters.excludedAirlines().isEmpty()) {
+                param(query, "excludeAirlines", String.join(",", filters.excludedAirlines()));
+            }
+            if (filters.maxPrice() != SearchFilters.NONE.maxPrice()) {
+                param(query, "maxPrice", Double.toString(filters.maxPrice()));
+            }
+            if (filters.maxDurationMinutes() != SearchFilters.NONE.maxDurationMinutes()) {
+                param(query, "maxDurationMinutes", Long.toString(filters.maxDurationMinutes()));
+            }
+            if (filters.maxStops() != SearchFilters.NONE.maxStops()) {
+                param(query, "maxStops", Integer.toString(filters.maxStops()));
+            }
+            if (filters.departAfter() != null) {
+                param(query, "departAfter", filters.departAfter().toString());
+            }
+            if (filters.departBefore() != null) {
+                param(query, "departBefore", filters.departBefore().toString());
+            }
+            if (filters.arriveAfter() != null) {
+                param(query, "arriveAfter", filters.arriveAfter().toString());
+            }
+            if (filters.arriveBefore() != null) {
+                param(query, "arriveBefore", filters.arriveBefore().toString());
+            }
+            if (filters.seats() > 0) {
+                param(query, "seats", Integer.toString(filters.seats()));
+            }
+        }
+        return query.toString();
+    }
+
+    private static void param(StringBuilder query, String name, String value) {
+        query.append(query.indexOf("?") < 0 ? '?' : '&')
+                .append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,155 @@
+package com.skypath.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.skypath.model.Airport;
+import com.skypath.model.Flight;
+import com.skypath.model.FlightDataset;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded hub-and-spoke network for load tests. Hubs are fully connected; every spoke
+ * flies to and from two hubs. So a spoke reaches its own hubs directly, any other hub
+ * or a spoke sharing a hub with one stop, and the remaining spokes with two stops
+ * (spoke, hub, hub, spoke). All flights depart on {@link #DATE}, spread over the day.
+ */
+final class SyntheticNetwork {
+
+    static final LocalDate DATE = LocalDate.of(2024, 3, 15);
+
+    // Carrier code and name
+    private static final String[][] AIRLINES = {
+            {"SP", "SkyPath Airways"}, {"AT", "Atlas Air Lines"}, {"MR", "Meridian Air"}, {"PX", "Polar Express"}
+    };
+    private static final String[] AIRCRAFT = {"A320", "A321", "B737", "B787", "E190"};
+    // Regions keep most connections domestic while some cross countries and timezones
+    private static final String[][] REGIONS = {
+            {"US", "America/New_York"}, {"US", "America/Chicago"}, {"US", "America/Denver"},
+            {"US", "America/Los_Angeles"}, {"GB", "Europe/London"}, {"DE", "Europe/Berlin"},
+            {"JP", "Asia/Tokyo"}, {"AU", "Australia/Sydney"}
+    };
+
+    final List<Airport> hubs = new ArrayList<>();
+    final List<Airport> spokes = new ArrayList<>();
+    // The two hubs of each spoke, by spoke index
+    final int[][] spokeHubs;
+    final List<Flight> flights = new ArrayList<>();
+
+    private final Random random;
+    private int flightNumber = 1000;
+
+    /**
+     * @param frequency flights per day in each direction of every route
+     */
+    SyntheticNetwork(int hubCount, int spokeCount, int frequency, long seed) {
+        random = new Random(seed);
+        for (int i = 0; i < hubCount; i++) {
+            hubs.add(airport(i, "Hub"));
+        }
+        for (int i = 0; i < spokeCount; i++) {
+            spokes.add(airport(hubCount + i, "Spoke"));
+        }
+
+        for (Airport from : hubs) {
+            for (Airport to : hubs) {
+                if (from != to) {
+                    route(from, to, frequency);
+                }
+            }
+        }
+        spokeHubs = new int[spokeCount][];
+        for (int i = 0; i < spokeCount; i++) {
+            int first = random.nextInt(hubCount);
+            int second = hubCount == 1 ? first : (first + 1 + random.nextInt(hubCount - 1)) % hubCount;
+            spokeHubs[i] = new int[]{first, second};
+            for (int hub : spokeHubs[i]) {
+                route(spokes.get(i), hubs.get(hub), frequency);
+                route(hubs.get(hub), spokes.get(i), frequency);
+            }
+        }
+    }
+
+    List<Airport> airports() {
+        List<Airport> airports = new ArrayList<>(hubs);
+        airports.addAll(spokes);
+        return airports;
+    }
+
+    boolean sharesHub(int spoke, int other) {
+        for (int hub : spokeHubs[spoke]) {
+            if (hub == spokeHubs[other][0] || hub == spokeHubs[other][1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean servesHub(int spoke, int hub) {
+        return spokeHubs[spoke][0] == hub || spokeHubs[spoke][1] == hub;
+    }
+
+    void write(Path file, ObjectMapper mapper) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        mapper.copy().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writeValue(file.toFile(), new FlightDataset(airports(), flights));
+    }
+
+    private Airport airport(int index, String kind) {
+        String[] region = REGIONS[index % REGIONS.length];
+        return new Airport(code(index), kind + " " + code(index), kind + " City " + index, region[0], region[1]);
+    }
+
+    // AAA, AAB, ... in base 26
+    private static String code(int index) {
+        char[] code = new char[3];
+        for (int i = 2; i >= 0; i--) {
+            code[i] = (char) ('A' + index % 26);
+            index /= 26;
+        }
+        return new String(code);
+    }
+
+    // Departures between 05:00 and 23:00 local, block time 1-12 h depending on distance
+    private void route(Airport from, Airport to, int frequency) {
+        ZoneId fromZone = ZoneId.of(from.timezone());
+        ZoneId toZone = ZoneId.of(to.timezone());
+        int regionGap = Math.abs(regionOf(from) - regionOf(to));
+        long blockMinutes = 60 + regionGap * 75L + random.nextInt(60);
+        double basePrice = 80 + blockMinutes * 0.9;
+        long spacing = 18 * 60 / Math.max(frequency, 1);
+        for (int i = 0; i < frequency; i++) {
+            long offset = 5 * 60 + i * spacing + random.nextInt((int) Math.max(spacing, 1));
+            ZonedDateTime departure = DATE.atStartOfDay(fromZone).plusMinutes(offset);
+            LocalDateTime arrival = departure.plus(Duration.ofMinutes(blockMinutes))
+                    .withZoneSameInstant(toZone).toLocalDateTime();
+            String[] airline = AIRLINES[random.nextInt(AIRLINES.length)];
+            flights.add(new Flight(airline[0] + flightNumber++, airline[1], from.code(), to.code(),
+                    departure.toLocalDateTime(), arrival,
+                    Math.round(basePrice * (0.7 + random.nextDouble() * 0.8)),
+                    AIRCRAFT[random.nextInt(AIRCRAFT.length)]));
+        }
+    }
+
+    private static int regionOf(Airport airport) {
+        for (int i = 0; i < REGIONS.length; i++) {
+            if (REGIONS[i][1].equals(airport.timezone())) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
@@ -11,7 +11,13 @@ import './App.css';
 type SearchState =
   | { status: 'idle' }
   | { status: 'loading' }
-  | { status: 'success'; itineraries: Itinerary[]; origin: string; destination: string }
+  | {
+      status: 'success';
+      itineraries: Itinerary[];
+      partial: boolean;
+      origin: string;
+      destination: string;
+    }
   | { status: 'error'; message: string };
 
 export default function App() {
@@ -25,6 +31,7 @@ export default function App() {
         setState({
           status: 'success',
           itineraries: response.itineraries,
+          partial: response.partial,
           origin,
           destination,
         });
@@ -83,7 +90,10 @@ export default function App() {
 
           {state.status === 'success' &&
             (state.itineraries.length > 0 ? (
-              <ResultsList itineraries={state.itineraries} />
+              <ResultsList
+                itineraries={state.itineraries}
+                partial={state.partial}
+              />
             ) : (
               <EmptyState
                 origin={state.origin}
@@ -3,14 +3,16 @@ import ItineraryCard from './ItineraryCard';
 
 interface Props {
   itineraries: Itinerary[];
+  partial?: boolean;
 }
 
-export default function ResultsList({ itineraries }: Props) {
+export default function ResultsList({ itineraries, partial = false }: Props) {
   return (
     <div className="results-list">
       <p className="results-list__count">
         {itineraries.length} itinerar{itineraries.length === 1 ? 'y' : 'ies'}{' '}
         found
+        {partial && ' (search stopped early, more connections may exist)'}
       </p>
       <div className="results-list__items">
         {itineraries.map((it, i) => (
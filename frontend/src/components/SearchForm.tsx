@@ -1,6 +1,11 @@
-import { useState, useCallback, useEffect } from 'react';
+import { useState, useCallback, useEffect, useRef } from 'react';
 import type { Airport } from '../types';
-import { fetchAirports } from '../services/api';
+import { suggestAirports } from '../services/api';
+
+type AirportField = 'origin' | 'destination';
+
+// Typing pause before suggestions are requested
+const SUGGEST_DELAY_MS = 150;
 
 interface Props {
   onSearch: (origin: string, destination: string, date: string) => void;
@@ -12,15 +17,38 @@ export default function SearchForm({ onSearch, loading }: Props) {
   const [destination, setDestination] = useState('');
   const [date, setDate] = useState('');
   const [errors, setErrors] = useState<Record<string, string>>({});
-  const [airports, setAirports] = useState<Airport[]>([]);
+  const [suggestions, setSuggestions] = useState<Record<AirportField, Airport[]>>({
+    origin: [],
+    destination: [],
+  });
+
+  const timers = useRef<Partial<Record<AirportField, ReturnType<typeof setTimeout>>>>({});
+  // Latest request per field; responses to older ones are dropped when they arrive late
+  const requests = useRef<Record<AirportField, number>>({ origin: 0, destination: 0 });
 
   useEffect(() => {
-    fetchAirports()
-      .then(setAirports)
-      .catch(() => {});
+    const pending = timers.current;
+    return () => Object.values(pending).forEach(clearTimeout);
   }, []);
 
-  const airportCodes = new Set(airports.map((a) => a.code));
+  // Ask the server for ranked matches once typing pauses (prefix index lookup)
+  const loadSuggestions = (field: AirportField, query: string) => {
+    clearTimeout(timers.current[field]);
+    const request = ++requests.current[field];
+    if (!query.trim()) {
+      setSuggestions((s) => ({ ...s, [field]: [] }));
+      return;
+    }
+    timers.current[field] = setTimeout(() => {
+      suggestAirports(query.trim())
+        .then((list) => {
+          if (request === requests.current[field]) {
+            setSuggestions((s) => ({ ...s, [field]: list }));
+          }
+        })
+        .catch(() => {});
+    }, SUGGEST_DELAY_MS);
+  };
 
   const validate = useCallback((): boolean => {
     const e: Record<string, string> = {};
@@ -28,17 +56,13 @@ export default function SearchForm({ onSearch, loading }: Props) {
     if (!origin.trim()) {
       e.origin = 'Origin is required';
     } else if (!/^[A-Z]{3}$/.test(origin.trim())) {
-      e.origin = 'Enter a valid 3-letter airport code';
-    } else if (airports.length > 0 && !airportCodes.has(origin.trim())) {
-      e.origin = `Airport "${origin.trim()}" not found`;
+      e.origin = 'Pick an airport from the list or enter its 3-letter code';
     }
 
     if (!destination.trim()) {
       e.destination = 'Destination is required';
     } else if (!/^[A-Z]{3}$/.test(destination.trim())) {
-      e.destination = 'Enter a valid 3-letter airport code';
-    } else if (airports.length > 0 && !airportCodes.has(destination.trim())) {
-      e.destination = `Airport "${destination.trim()}" not found`;
+      e.destination = 'Pick an airport from the list or enter its 3-letter code';
     }
 
     if (
@@ -55,7 +79,7 @@ export default function SearchForm({ onSearch, loading }: Props) {
 
     setErrors(e);
     return Object.keys(e).length === 0;
-  }, [origin, destination, date, airports, airportCodes]);
+  }, [origin, destination, date]);
 
   const handleSubmit = (e: React.FormEvent) => {
     e.preventDefault();
@@ -65,12 +89,24 @@ export default function SearchForm({ onSearch, loading }: Props) {
   };
 
   const handleAirportInput =
-    (setter: (v: string) => void) =>
+    (field: AirportField, setter: (v: string) => void) =>
     (e: React.ChangeEvent<HTMLInputElement>) => {
-      setter(e.target.value.toUpperCase().slice(0, 3));
+      const value = e.target.value.toUpperCase();
+      setter(value);
       setErrors({});
+      loadSuggestions(field, value);
     };
 
+  const suggestionList = (field: AirportField) => (
+    <datalist id={`${field}-suggestions`}>
+      {suggestions[field].map((a) => (
+        <option key={a.code} value={a.code}>
+          {a.city} - {a.name}
+        </option>
+      ))}
+    </datalist>
+  );
+
   return (
     <form className="search-form" onSubmit={handleSubmit}>
       <div className="search-form__row">
@@ -80,12 +116,14 @@ export default function SearchForm({ onSearch, loading }: Props) {
           <input
             id="origin"
             type="text"
-            placeholder="JFK"
+            placeholder="JFK or New York"
             value={origin}
-            onChange={handleAirportInput(setOrigin)}
-            maxLength={3}
+            onChange={handleAirportInput('origin', setOrigin)}
+            list="origin-suggestions"
+            maxLength={60}
             autoComplete="off"
           />
+          {suggestionList('origin')}
           {errors.origin && (
             <span className="search-form__error">{errors.origin}</span>
           )}
@@ -112,12 +150,14 @@ export default function SearchForm({ onSearch, loading }: Props) {
           <input
             id="destination"
             type="text"
-            placeholder="LAX"
+            placeholder="LAX or Los Angeles"
             value={destination}
-            onChange={handleAirportInput(setDestination)}
-            maxLength={3}
+            onChange={handleAirportInput('destination', setDestination)}
+            list="destination-suggestions"
+            maxLength={60}
             autoComplete="off"
           />
+          {suggestionList('destination')}
           {errors.destination && (
             <span className="search-form__error">{errors.destination}</span>
           )}
@@ -27,11 +27,13 @@ export async function searchFlights(
 }
 
 /**
- * Fetch all airports (for autocomplete / validation hints).
+ * Ranked airport matches for a code, city or name prefix (autocomplete).
  */
-export async function fetchAirports(): Promise<Airport[]> {
+export async function suggestAirports(q: string): Promise<Airport[]> {
   try {
-    const { data } = await client.get<Airport[]>('/api/airports');
+    const { data } = await client.get<Airport[]>('/api/airports/suggest', {
+      params: { q, limit: 8 },
+    });
     return data;
   } catch (err) {
     throw toUserError(err);
@@ -35,6 +35,8 @@ export interface Itinerary {
 export interface SearchResponse {
   itineraries: Itinerary[];
   count: number;
+  /** True when the server stopped searching at its time budget */
+  partial: boolean;
 }
 
 export interface ErrorResponse {